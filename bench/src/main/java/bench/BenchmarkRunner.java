@@ -0,0 +1,28 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks matching the first argument, all of them by default, with the GC profiler
+ * for allocation rates and writes the results as JSON to the second argument, bench-results.json by default.
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "bench\\..*Benchmark";
+        String result = args.length > 1 ? args[1] : "bench-results.json";
+
+        Options options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result)
+            .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.google.gson.Gson;
+
+import ast.AstJsonWriter;
+import ast.ProgramNode;
+import ast.flat.FlatTree;
+import ast.flat.FlatTreePrinter;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenBuffer;
+import parser.Parser;
+
+/**
+ * Serializing and walking the AST of 1000 top-level statements, as objects and as a {@link FlatTree}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatTreeBenchmark {
+    private static final int STATEMENTS = 1000;
+
+    private ProgramNode program;
+    private FlatTree tree;
+    private Gson gson;
+
+    @Setup
+    public void setup() throws UnexpectedTokenException {
+        TokenBuffer tokens = new Lexer(ArraySource.fromString(Workloads.statements(STATEMENTS))).tokenizeAll();
+        program = new Parser(tokens).build();
+        tree = FlatTree.of(program, tokens);
+        gson = new Gson();
+    }
+
+    @Benchmark
+    public String objectsToJson() {
+        return gson.toJson(program);
+    }
+
+    @Benchmark
+    public String objectsToJsonStreaming() {
+        return AstJsonWriter.toJson(program, true);
+    }
+
+    @Benchmark
+    public String flatToJson() {
+        return FlatTreePrinter.toJson(tree);
+    }
+
+    @Benchmark
+    public int flatCountIdentifiers() {
+        int count = 0;
+        for (int node = 0; node < tree.size(); node++) {
+            if (tree.kind(node) == FlatTree.Kind.IDENTIFIER) { count++; }
+        }
+        return count;
+    }
+}
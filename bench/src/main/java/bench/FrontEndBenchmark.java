@@ -0,0 +1,42 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import ast.ProgramNode;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.ParallelParser;
+import parser.Parser;
+
+/**
+ * Time to lex and parse 16 MiB of top-level statements, on one thread and on every core of the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontEndBenchmark {
+    private static final int SOURCE_SIZE = 16 << 20;
+
+    private char[] source;
+
+    @Setup
+    public void setup() {
+        source = Workloads.ofSize(SOURCE_SIZE).toCharArray();
+    }
+
+    @Benchmark
+    public ProgramNode sequential() throws UnexpectedTokenException {
+        return new Parser(new Lexer(ArraySource.fromCharArray(source)).tokenizeAll()).build();
+    }
+
+    @Benchmark
+    public ProgramNode parallel() throws UnexpectedTokenException {
+        return new ParallelParser(source).build();
+    }
+}
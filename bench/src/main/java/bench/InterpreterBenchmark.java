@@ -0,0 +1,51 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import ast.ProgramNode;
+import compiler.Chunk;
+import compiler.Compiler;
+import errors.analyzer.DuplicateIdentifierException;
+import errors.analyzer.UndeclaredIdentifierException;
+import errors.parser.UnexpectedTokenException;
+import interpreter.Interpreter;
+import vm.VirtualMachine;
+
+/**
+ * Runs each workload on each execution engine:
+ * {@code tree} is the plain tree-walking interpreter, {@code closure} lets it compile hot functions,
+ * and {@code vm} is the bytecode virtual machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    @Param({ "fib", "isPrime", "strings" })
+    public String workload;
+
+    @Param({ "tree", "closure", "vm" })
+    public String engine;
+
+    private ProgramNode AST;
+    private Chunk chunk;
+
+    @Setup
+    public void setup() throws UnexpectedTokenException {
+        AST = Workloads.parse(Workloads.program(workload));
+        if (engine.equals("vm")) { chunk = new Compiler().compile(AST); }
+    }
+
+    @Benchmark
+    public String run() throws UndeclaredIdentifierException, DuplicateIdentifierException {
+        if (chunk != null) { return new VirtualMachine().run(chunk); }
+
+        Interpreter interpreter = new Interpreter(AST);
+        if (engine.equals("tree")) { interpreter.setCompileThreshold(-1); }
+        return interpreter.run();
+    }
+}
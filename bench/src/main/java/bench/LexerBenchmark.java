@@ -0,0 +1,34 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenBuffer;
+
+/**
+ * Tokenization throughput. Every operation lexes one MiB of source, so operations per second read as MiB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+    private static final int SOURCE_SIZE = 1 << 20;
+
+    private char[] source;
+
+    @Setup
+    public void setup() {
+        source = Workloads.ofSize(SOURCE_SIZE).substring(0, SOURCE_SIZE).toCharArray();
+    }
+
+    @Benchmark
+    public TokenBuffer tokenizeAll() {
+        return new Lexer(ArraySource.fromCharArray(source)).tokenizeAll();
+    }
+}
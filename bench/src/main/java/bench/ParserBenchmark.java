@@ -0,0 +1,37 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import ast.ProgramNode;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenBuffer;
+import parser.Parser;
+
+/**
+ * Time to parse 1000 top-level statements from already lexed tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    private static final int STATEMENTS = 1000;
+
+    private TokenBuffer tokens;
+
+    @Setup
+    public void setup() {
+        tokens = new Lexer(ArraySource.fromString(Workloads.statements(STATEMENTS))).tokenizeAll();
+    }
+
+    @Benchmark
+    public ProgramNode build() throws UnexpectedTokenException {
+        return new Parser(tokens).build();
+    }
+}
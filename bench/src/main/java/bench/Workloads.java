@@ -0,0 +1,95 @@
+package bench;
+
+import ast.ProgramNode;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.Parser;
+
+/**
+ * Ascetic sources shared by the benchmarks.
+ */
+final class Workloads {
+    private Workloads() {}
+
+    static final String FIB = """
+        let fib = (n: Int) -> Int {
+            guard n <= 1 { return n; };
+            return fib(n - 1) + fib(n - 2);
+        };
+        return fib(20);
+        """;
+
+    static final String IS_PRIME = """
+        let isPrime = (n: Int) -> {
+            guard n <= 1 { return false; };
+            let isDivisible = (m: Int) -> Bool {
+                return n % m == 0;
+            };
+            return loop(2, n, isDivisible);
+        };
+
+        let loop = (start: Int, end: Int, f: (Int) -> Bool) -> {
+            guard start >= end { return true; };
+            guard f(start) { return false; };
+            return loop(start + 1, end, f);
+        };
+
+        let count = (n: Int, total: Int) -> Int {
+            guard n == 0 { return total; };
+            return count(n - 1, if isPrime(n) { return total + 1; } else { return total; });
+        };
+
+        return count(2000, 0);
+        """;
+
+    static final String STRINGS = """
+        let repeat = (word: String, n: Int, result: String) -> String {
+            guard n == 0 { return result; };
+            return repeat(word, n - 1, result + word);
+        };
+        return repeat("ascetic ", 2000, "");
+        """;
+
+    static String program(String name) {
+        switch (name) {
+            case "fib": { return FIB; }
+            case "isPrime": { return IS_PRIME; }
+            case "strings": { return STRINGS; }
+            default: { throw new IllegalArgumentException("Unknown workload: " + name); }
+        }
+    }
+
+    /**
+     * @return {@code count} top-level statements mixing declarations, functions, if expressions, strings and comments
+     */
+    static String statements(int count) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < count; i++) { appendStatement(source, i); }
+        return source.toString();
+    }
+
+    /**
+     * @return statements adding up to at least {@code size} characters
+     */
+    static String ofSize(int size) {
+        StringBuilder source = new StringBuilder(size + 128);
+        for (int i = 0; source.length() < size; i++) { appendStatement(source, i); }
+        return source.toString();
+    }
+
+    private static void appendStatement(StringBuilder source, int i) {
+        switch (i % 5) {
+            case 0: { source.append("let value").append(i).append(" = (").append(i).append(" + 2) * 3 - 4 / 5;\n"); break; }
+            case 1: { source.append("let add").append(i).append(" = (a: Int, b: Int) -> Int {\n    return a + b;\n};\n"); break; }
+            case 2: { source.append("let check").append(i).append(" = if ").append(i).append(" >= 10 { return true; } else { return false; };\n"); break; }
+            case 3: { source.append("let text").append(i).append(" = \"statement number ").append(i).append("\";\n"); break; }
+            default: { source.append("// comment before statement ").append(i).append("\n"); break; }
+        }
+    }
+
+    static ProgramNode parse(String source) throws UnexpectedTokenException {
+        var tokens = new Lexer(ArraySource.fromString(source)).tokenizeAll();
+        return new Parser(tokens).build();
+    }
+}
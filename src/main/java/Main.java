@@ -3,66 +3,156 @@ import java.util.*;
 import java.util.stream.*;
 
 import lexer.Lexer;
-import lexer.sources.ArraySource;
-import lexer.sources.Source;
-import lexer.tokens.Token;
+import lexer.sources.MappedSource;
+import lexer.tokens.TokenBuffer;
 import lexer.tokens.TokenType;
+import parser.ParallelParser;
 import parser.Parser;
 import table.scopes.ProgramScope;
 import table.scopes.Scope;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-
+import ast.AstJsonWriter;
 import ast.ProgramNode;
+import ast.flat.FlatTree;
+import ast.flat.FlatTreeCache;
+import codegen.CppGenerator;
+import compiler.Chunk;
+import compiler.Compiler;
 // import analyzer.Analyzer;
 import errors.analyzer.DuplicateIdentifierException;
 import errors.analyzer.UndeclaredIdentifierException;
 import errors.parser.UnexpectedTokenException;
+import interpreter.ClosureCompiler;
 import interpreter.Interpreter;
+import vm.VirtualMachine;
 
 public class Main {
-    public static String readFile(String filePath) throws IOException {
-        BufferedReader br = new BufferedReader(new FileReader(new File(filePath)));
-        String text = br.lines().collect(Collectors.joining("\n"));
-        br.close();
-        return text;
-    }
-
     public static void writeFile(String filePath, String contents) throws IOException {
         FileWriter writer = new FileWriter(filePath);
         writer.write(contents);
         writer.close();
     }
 
-    public static String toJson(Object obj) {
-        return new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().serializeNulls().create().toJson(obj);
+    public static void writeJson(String filePath, ProgramNode AST, boolean compact) throws IOException {
+        AstJsonWriter.write(AST, new File(filePath).toPath(), compact);
     }
 
     public static void generateCode(ProgramNode AST, String outputFilePath) throws IOException {
-        String src = "";
+        String src = new CppGenerator().generate(AST);
 
         writeFile(outputFilePath, src);
     }
 
+    /**
+     * Usage: {@code Main [--stream | --parallel] [--cache] [--compact-ast] [--vm] [--stack-budget=<megabytes>] [--jit-threshold=<calls>] [--keep-tail-frames] [--cpp=<output>] [file]}
+     * <p>
+     * {@code --stream} interprets each top-level statement as soon as it is parsed, without building the whole AST first.
+     * {@code --parallel} lexes and parses chunks of top-level statements on every core.
+     * {@code --cache} keeps the parsed tree in a {@code .ascc} file next to the source and reuses it while the source is unchanged.
+     * A run that reuses it neither lexes nor parses, so it prints no token dump, and it leaves AST.json as it is while that is current.
+     * {@code --compact-ast} writes AST.json without indentation.
+     * {@code --vm} runs the program on the bytecode virtual machine instead of the tree-walking interpreter.
+     * Its call stack lives on the heap, {@code --stack-budget} bounds how much memory it may take by estimate:
+     * the operand stack, the call frames and the variable frames of the running calls, not the values in them.
+     * {@code --jit-threshold} sets how many times the interpreter runs a function before compiling it, negative to never compile.
+     * {@code --keep-tail-frames} runs tail calls as regular calls so that every caller stays on the call stack.
+     * {@code --cpp} transpiles the program into a C++17 source file instead of running it.
+     */
     public static void main(String[] args) throws IOException, UndeclaredIdentifierException, DuplicateIdentifierException, UnexpectedTokenException {
         var filePath = "./src/Test.ascetic";
-        String text = readFile(filePath);
-        Source source = ArraySource.fromString(text);
+        boolean useVirtualMachine = false;
+        boolean stream = false;
+        boolean parallel = false;
+        boolean useCache = false;
+        boolean compactJson = false;
+        boolean eliminateTailCalls = true;
+        long stackBudget = VirtualMachine.DEFAULT_MEMORY_BUDGET;
+        int compileThreshold = ClosureCompiler.DEFAULT_THRESHOLD;
+        String cppFilePath = null;
+        for (String arg: args) {
+            if (arg.equals("--vm")) { useVirtualMachine = true; }
+            else if (arg.equals("--stream")) { stream = true; }
+            else if (arg.equals("--parallel")) { parallel = true; }
+            else if (arg.equals("--cache")) { useCache = true; }
+            else if (arg.equals("--compact-ast")) { compactJson = true; }
+            else if (arg.equals("--keep-tail-frames")) { eliminateTailCalls = false; }
+            else if (arg.startsWith("--jit-threshold=")) { compileThreshold = Integer.parseInt(arg.substring("--jit-threshold=".length())); }
+            else if (arg.startsWith("--cpp=")) { cppFilePath = arg.substring("--cpp=".length()); }
+            else if (arg.startsWith("--stack-budget=")) { stackBudget = Long.parseLong(arg.substring("--stack-budget=".length())) << 20; }
+            else { filePath = arg; }
+        }
+
+        MappedSource source = MappedSource.fromFile(new File(filePath));
 
         Lexer lexer = new Lexer(source);
-        List<Token> tokens = lexer.tokenizeAll();
-        System.out.println(tokens);
 
-        Parser parser = new Parser(tokens);
-        var AST = parser.build();
+        if (stream) {
+            Interpreter interpreter = new Interpreter(new ProgramNode());
+            interpreter.setEliminateTailCalls(eliminateTailCalls);
+            interpreter.setCompileThreshold(compileThreshold);
+            System.out.println("=== Streaming interpreter ====");
+            System.out.println("Output: " + interpreter.run(new Parser(lexer)));
+            return;
+        }
+
+        File cacheFile = FlatTreeCache.cacheFileOf(new File(filePath));
+        byte[] hash = useCache ? FlatTreeCache.hash(new File(filePath)) : null;
+        FlatTree cached = useCache ? FlatTreeCache.load(cacheFile, hash, source.decodeAll()) : null;
 
-        writeFile("./AST.json", toJson(AST));
+        ProgramNode AST;
+        if (cached != null) {
+            AST = cached.toProgram();
+        } else {
+            TokenBuffer tokens;
+            if (parallel) {
+                ParallelParser parser = new ParallelParser(source.decodeAll());
+                AST = parser.build();
+                tokens = parser.getTokens();
+            } else {
+                tokens = lexer.tokenizeAll();
+                System.out.println(tokens);
+
+                Parser parser = new Parser(tokens);
+                AST = parser.build();
+            }
+
+            /* the cache only saves work on the next run, failing to write it is not an error */
+            if (useCache) {
+                try { FlatTreeCache.store(cacheFile, hash, FlatTree.of(AST, tokens)); }
+                catch (IOException exception) { System.err.println("Could not write " + cacheFile + ": " + exception.getMessage()); }
+            }
+        }
+
+        /* a run from the cache leaves an AST.json written from the same tree as it is */
+        File jsonFile = new File("./AST.json");
+        if (cached == null || !FlatTreeCache.isStamped(cacheFile, jsonFile, compactJson)) {
+            writeJson(jsonFile.getPath(), AST, compactJson);
+            if (useCache && cacheFile.isFile()) {
+                try { FlatTreeCache.stamp(cacheFile, jsonFile, compactJson); }
+                catch (IOException exception) { System.err.println("Could not write " + cacheFile + ": " + exception.getMessage()); }
+            }
+        }
         
-        // writeFile("./AST-filled.json", toJson(AST));
+        // writeJson("./AST-filled.json", AST, compactJson);
+
+        if (cppFilePath != null) {
+            generateCode(AST, cppFilePath);
+            return;
+        }
+
+        if (useVirtualMachine) {
+            Compiler compiler = new Compiler();
+            compiler.setEliminateTailCalls(eliminateTailCalls);
+            Chunk program = compiler.compile(AST);
+            VirtualMachine virtualMachine = new VirtualMachine(stackBudget);
+            System.out.println("=== Running virtual machine ====");
+            System.out.println("Output: " + virtualMachine.run(program));
+            return;
+        }
 
-        ProgramScope programScope = new ProgramScope(filePath);
-        Interpreter interpreter = new Interpreter(AST, programScope);
+        Interpreter interpreter = new Interpreter(AST);
+        interpreter.setEliminateTailCalls(eliminateTailCalls);
+        interpreter.setCompileThreshold(compileThreshold);
         System.out.println("=== Running interpreter ====");
         System.out.println("Output: " + interpreter.run());
     }
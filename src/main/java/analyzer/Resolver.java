@@ -0,0 +1,279 @@
+package analyzer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.*;
+import ast.exprs.*;
+import ast.stmts.*;
+
+/**
+ * Static resolution pass that replaces runtime name lookups with frame addressing.
+ * <p>
+ * Every declaration is given a slot in the frame of its enclosing program, function, or code block,
+ * and every reference is given the number of frames to hop outwards along with the slot to read.
+ * Code blocks that declare nothing do not get a frame of their own.
+ * <p>
+ * A reference only sees declarations of its own function that textually precede it,
+ * while declarations of enclosing functions (or the program) are visible regardless of order
+ * since the function body runs after its surroundings have been evaluated.
+ * <p>
+ * Function calls whose result is returned as is by the enclosing function are marked as tail calls.
+ * <p>
+ * A streamed program is resolved one top-level statement at a time, so the program frame grows as it goes.
+ * Functions then refer to program declarations that have not been seen yet by allocating their slots early.
+ */
+public class Resolver {
+    private static class FrameLayout {
+        final Map<String, Integer> slots = new HashMap<>();
+        final Set<String> declared = new HashSet<>();
+        final FrameLayout parent;
+        final int functionDepth;
+
+        FrameLayout(FrameLayout parent, int functionDepth) {
+            this.parent = parent;
+            this.functionDepth = functionDepth;
+        }
+
+        int allocate(String name) {
+            return slots.computeIfAbsent(name, key -> slots.size());
+        }
+    }
+
+    private FrameLayout currentFrame;
+    private FrameLayout programFrame;
+    private int functionDepth = 0;
+
+    /* set once statements are resolved one by one, when later program declarations cannot be hoisted */
+    private boolean isIncremental = false;
+
+    public void resolve(ProgramNode program) {
+        programFrame = currentFrame = new FrameLayout(null, functionDepth);
+        hoistDeclarations(program.children);
+
+        for (StatementNode statement: program.children) { resolve(statement); }
+
+        program.frameSize = currentFrame.slots.size();
+    }
+
+    /**
+     * Resolves a top-level statement that follows the ones already resolved for the program,
+     * {@code program.frameSize} is updated to the slots allocated so far.
+     */
+    public void resolveNext(ProgramNode program, StatementNode statement) {
+        if (programFrame == null) { programFrame = new FrameLayout(null, 0); }
+        isIncremental = true;
+        currentFrame = programFrame;
+
+        hoistDeclarations(List.of(statement));
+        resolve(statement);
+
+        program.frameSize = programFrame.slots.size();
+    }
+
+    private void resolve(StatementNode statement) {
+        if (statement instanceof CommentStatement) { return; }
+
+        if (statement instanceof ExpressionStatement expr) {
+            resolve(expr.expression);
+            return;
+        }
+
+        if (statement instanceof ReturnStatement ret) {
+            resolve(ret.returnExpression);
+            return;
+        }
+
+        if (statement instanceof GuardStatement guard) {
+            resolve(guard.clause);
+            resolve(guard.body);
+            return;
+        }
+
+        if (statement instanceof VariableDeclaration varDecl) {
+            resolve(varDecl.assignmentExpression.right);
+            declare(varDecl.identifier);
+            return;
+        }
+
+        throw new IllegalStateException("Missing resolution for statement: " + statement.getClass());
+    }
+
+    private void resolve(ExpressionNode expression) {
+        if (expression instanceof LiteralExpression) { return; }
+
+        if (expression instanceof IdentifierExpression identifier) {
+            resolveReference(identifier);
+            return;
+        }
+
+        if (expression instanceof OperationExpression operation) {
+            resolve(operation.left);
+            resolve(operation.right);
+            return;
+        }
+
+        if (expression instanceof GroupedExpression grouped) {
+            resolve(grouped.expression);
+            return;
+        }
+
+        if (expression instanceof PrefixExpression prefixed) {
+            resolve(prefixed.expression);
+            return;
+        }
+
+        if (expression instanceof PostfixExpression postfixed) {
+            resolve(postfixed.expression);
+            return;
+        }
+
+        if (expression instanceof CodeBlockExpression codeBlock) {
+            resolveCodeBlock(codeBlock);
+            return;
+        }
+
+        if (expression instanceof IfExpression ifExpression) {
+            for (ExpressionNode condition: ifExpression.conditions) { resolve(condition); }
+            for (CodeBlockExpression block: ifExpression.blocks) { resolveCodeBlock(block); }
+            return;
+        }
+
+        if (expression instanceof FunctionExpression function) {
+            resolveFunction(function);
+            return;
+        }
+
+        if (expression instanceof FunctionCallExpression functionCall) {
+            resolve(functionCall.functionIdentifier);
+            for (ExpressionNode param: functionCall.params) { resolve(param); }
+            return;
+        }
+
+        throw new IllegalStateException("Missing resolution for expression: " + expression.getClass());
+    }
+
+    private void resolveCodeBlock(CodeBlockExpression codeBlock) {
+        boolean declaresAnything = codeBlock.children.stream().anyMatch(statement -> statement instanceof VariableDeclaration);
+        if (!declaresAnything) {
+            codeBlock.frameSize = 0;
+            for (StatementNode statement: codeBlock.children) { resolve(statement); }
+            return;
+        }
+
+        currentFrame = new FrameLayout(currentFrame, functionDepth);
+        hoistDeclarations(codeBlock.children);
+
+        for (StatementNode statement: codeBlock.children) { resolve(statement); }
+
+        codeBlock.frameSize = currentFrame.slots.size();
+        currentFrame = currentFrame.parent;
+    }
+
+    /**
+     * The parameters and the top-level declarations of the body share a single frame,
+     * the body block itself does not get one.
+     */
+    private void resolveFunction(FunctionExpression function) {
+        /* a function reused from an earlier parse may be given other slots, its compiled body would be stale */
+        function.compiled = null;
+        function.invocationCount = 0;
+
+        functionDepth++;
+        currentFrame = new FrameLayout(currentFrame, functionDepth);
+
+        for (IdentifierExpression param: function.params) {
+            currentFrame.allocate(identifierName(param));
+            declare(param);
+        }
+        hoistDeclarations(function.block.children);
+
+        function.block.frameSize = 0;
+        for (StatementNode statement: function.block.children) { resolve(statement); }
+
+        function.frameSize = currentFrame.slots.size();
+        currentFrame = currentFrame.parent;
+        functionDepth--;
+
+        markTailCalls(function.block);
+    }
+
+    /**
+     * The value of a code block in tail position is the value of its {@code return}
+     * or of the body of a taken {@code guard}, so both are in tail position as well.
+     */
+    private void markTailCalls(CodeBlockExpression codeBlock) {
+        for (StatementNode statement: codeBlock.children) {
+            if (statement instanceof ReturnStatement ret) {
+                markTailCalls(ret.returnExpression);
+                return;
+            }
+
+            if (statement instanceof GuardStatement guard) {
+                markTailCalls(guard.body);
+            }
+        }
+    }
+
+    private void markTailCalls(ExpressionNode expression) {
+        if (expression instanceof FunctionCallExpression functionCall) {
+            functionCall.isTailCall = true;
+        } else if (expression instanceof GroupedExpression grouped) {
+            markTailCalls(grouped.expression);
+        } else if (expression instanceof CodeBlockExpression codeBlock) {
+            markTailCalls(codeBlock);
+        } else if (expression instanceof IfExpression ifExpression) {
+            for (CodeBlockExpression block: ifExpression.blocks) { markTailCalls(block); }
+        }
+    }
+
+    private void hoistDeclarations(List<StatementNode> statements) {
+        for (StatementNode statement: statements) {
+            if (statement instanceof VariableDeclaration varDecl) {
+                currentFrame.allocate(identifierName(varDecl.identifier));
+            }
+        }
+    }
+
+    private void declare(IdentifierExpression identifier) {
+        String name = identifierName(identifier);
+        identifier.depth = 0;
+        identifier.slot = currentFrame.slots.get(name);
+        currentFrame.declared.add(name);
+    }
+
+    /** Unresolvable references are left with a negative depth and reported when evaluated. */
+    private void resolveReference(IdentifierExpression identifier) {
+        String name = identifierName(identifier);
+        int depth = 0;
+
+        for (FrameLayout frame = currentFrame; frame != null; frame = frame.parent, depth++) {
+            Integer slot = frame.slots.get(name);
+            if (slot == null) { continue; }
+
+            boolean isVisible = frame.functionDepth < functionDepth || frame.declared.contains(name);
+            if (isVisible) {
+                identifier.depth = depth;
+                identifier.slot = slot;
+                return;
+            }
+        }
+
+        /* functions run after their surroundings, a later top-level statement may still declare it */
+        if (isIncremental && functionDepth > 0) {
+            identifier.depth = depth - 1;
+            identifier.slot = programFrame.allocate(name);
+            return;
+        }
+
+        identifier.depth = -1;
+        identifier.slot = -1;
+    }
+
+    private static String identifierName(IdentifierExpression identifier) {
+        return identifier.identifier.text();
+    }
+}
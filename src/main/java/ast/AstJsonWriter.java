@@ -0,0 +1,451 @@
+package ast;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import ast.annotations.TypeAnnotation;
+import ast.exprs.*;
+import ast.stmts.*;
+import ast.types.FunctionType;
+import ast.types.PrimitiveType;
+import ast.types.TypeSignature;
+import lexer.tokens.Token;
+
+/**
+ * Streams an AST out as JSON while visiting it, without building the document in memory first.
+ * <p>
+ * Every node is an object of its fields followed by those of its superclasses, with nulls written out and transient fields left out,
+ * so the pretty output is the same as that of {@code new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().serializeNulls()}.
+ * The compact output has no whitespace.
+ */
+public final class AstJsonWriter implements AstVisitor<IOException> {
+    private final Writer out;
+    private final boolean compact;
+    /* writes tokens as Token.toString(), for error messages */
+    private final boolean diagnostic;
+
+    /* written to out in whole blocks, so a Writer without a buffer of its own works as well */
+    private final char[] buffer = new char[1 << 13];
+    private int position = 0;
+
+    private int depth = 0;
+    /* true until the first field or element of the innermost object or array */
+    private boolean first = true;
+
+    public AstJsonWriter(Writer out, boolean compact) {
+        this(out, compact, false);
+    }
+
+    private AstJsonWriter(Writer out, boolean compact, boolean diagnostic) {
+        this.out = out;
+        this.compact = compact;
+        this.diagnostic = diagnostic;
+    }
+
+    public static void write(JsonPrintable node, Path path, boolean compact) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            new AstJsonWriter(out, compact).write(node);
+        }
+    }
+
+    public static String toJson(JsonPrintable node, boolean compact) {
+        return toString(new StringWriter(), node, compact, false);
+    }
+
+    /**
+     * @return the node on one line as compact JSON, except that tokens are written as {@link Token#toString()} with their text and locations,
+     * eg. {@code {"identifier":Token { IDENTIFIER, 'b', [[0, 7; 7], [0, 8; 8]] },"typeAnnotation":null,...}}. Not valid JSON, meant for error messages.
+     */
+    public static String toDiagnosticString(JsonPrintable node) {
+        return toString(new StringWriter(), node, true, true);
+    }
+
+    private static String toString(StringWriter text, JsonPrintable node, boolean compact, boolean diagnostic) {
+        try { new AstJsonWriter(text, compact, diagnostic).write(node); }
+        catch (IOException exception) { throw new UncheckedIOException("StringWriter does not throw", exception); }
+        return text.toString();
+    }
+
+    /** Writes a node or type signature and flushes it to the underlying writer, which is left open. */
+    public void write(JsonPrintable node) throws IOException {
+        if (node instanceof ProgramNode program) { visitProgram(program); }
+        else if (node instanceof StatementNode statement) { visit(statement); }
+        else if (node instanceof ExpressionNode expression) { visit(expression); }
+        else if (node instanceof TypeAnnotation typeAnnotation) { visitTypeAnnotation(typeAnnotation); }
+        else if (node instanceof TypeSignature type) { type(type); }
+        else { throw new IllegalStateException("Missing JSON for: " + node.getClass()); }
+
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void visitProgram(ProgramNode program) throws IOException {
+        beginObject();
+        statements("children", program.children);
+        field("frameSize", program.frameSize);
+        endNode(program);
+    }
+
+    @Override
+    public void visitComment(CommentStatement comment) throws IOException {
+        beginObject();
+        token("comment", comment.comment);
+        endNode(comment);
+    }
+
+    @Override
+    public void visitExpressionStatement(ExpressionStatement statement) throws IOException {
+        beginObject();
+        expression("expression", statement.expression);
+        endNode(statement);
+    }
+
+    @Override
+    public void visitReturn(ReturnStatement ret) throws IOException {
+        beginObject();
+        expression("returnExpression", ret.returnExpression);
+        endNode(ret);
+    }
+
+    @Override
+    public void visitGuard(GuardStatement guard) throws IOException {
+        beginObject();
+        type("actualReturnType", guard.actualReturnType);
+        expression("clause", guard.clause);
+        expression("body", guard.body);
+        endNode(guard);
+    }
+
+    @Override
+    public void visitVariableDeclaration(VariableDeclaration varDecl) throws IOException {
+        beginObject();
+        name("modifiers");
+        beginArray();
+        for (Token modifier: varDecl.modifiers) {
+            element();
+            token(modifier);
+        }
+        endArray();
+        field("declarationType", varDecl.declarationType == null ? null : varDecl.declarationType.name());
+        expression("identifier", varDecl.identifier);
+        expression("assignmentExpression", varDecl.assignmentExpression);
+        endNode(varDecl);
+    }
+
+    @Override
+    public void visitLiteral(LiteralExpression literal) throws IOException {
+        beginObject();
+        token("value", literal.value);
+        endNode(literal);
+    }
+
+    @Override
+    public void visitIdentifier(IdentifierExpression identifier) throws IOException {
+        beginObject();
+        token("identifier", identifier.identifier);
+        name("typeAnnotation");
+        if (identifier.typeAnnotation == null) { append("null"); }
+        else { visitTypeAnnotation(identifier.typeAnnotation); }
+        field("depth", identifier.depth);
+        field("slot", identifier.slot);
+        endNode(identifier);
+    }
+
+    @Override
+    public void visitAssignment(AssignmentExpression assignment) throws IOException {
+        visitOperation(assignment);
+    }
+
+    @Override
+    public void visitOperation(OperationExpression operation) throws IOException {
+        beginObject();
+        token("operator", operation.operator);
+        expression("left", operation.left);
+        expression("right", operation.right);
+        endNode(operation);
+    }
+
+    @Override
+    public void visitGrouped(GroupedExpression grouped) throws IOException {
+        beginObject();
+        expression("expression", grouped.expression);
+        endNode(grouped);
+    }
+
+    @Override
+    public void visitPrefix(PrefixExpression prefixed) throws IOException {
+        beginObject();
+        token("prefix", prefixed.prefix);
+        expression("expression", prefixed.expression);
+        endNode(prefixed);
+    }
+
+    @Override
+    public void visitPostfix(PostfixExpression postfixed) throws IOException {
+        beginObject();
+        token("postfix", postfixed.postfix);
+        expression("expression", postfixed.expression);
+        endNode(postfixed);
+    }
+
+    @Override
+    public void visitCodeBlock(CodeBlockExpression codeBlock) throws IOException {
+        beginObject();
+        statements("children", codeBlock.children);
+        field("frameSize", codeBlock.frameSize);
+        endNode(codeBlock);
+    }
+
+    @Override
+    public void visitIf(IfExpression ifExpression) throws IOException {
+        beginObject();
+        expressions("conditions", ifExpression.conditions);
+        expressions("blocks", ifExpression.blocks);
+        endNode(ifExpression);
+    }
+
+    @Override
+    public void visitFunction(FunctionExpression function) throws IOException {
+        beginObject();
+        expressions("params", function.params);
+        type("annotatedReturnType", function.annotatedReturnType);
+        type("returnType", function.returnType);
+        expression("block", function.block);
+        field("frameSize", function.frameSize);
+        endNode(function);
+    }
+
+    @Override
+    public void visitFunctionCall(FunctionCallExpression functionCall) throws IOException {
+        beginObject();
+        expression("functionIdentifier", functionCall.functionIdentifier);
+        expressions("params", functionCall.params);
+        field("isTailCall", functionCall.isTailCall);
+        endNode(functionCall);
+    }
+
+    @Override
+    public void visitTypeAnnotation(TypeAnnotation typeAnnotation) throws IOException {
+        beginObject();
+        type("typeSignature", typeAnnotation.typeSignature);
+        endNode(typeAnnotation);
+    }
+
+    /* fields of AbstractSyntaxTreeNode, which come after those of the node */
+    private void endNode(AbstractSyntaxTreeNode node) throws IOException {
+        field("nodeType", node.nodeType);
+        field("tokenStart", node.tokenStart);
+        field("tokenEnd", node.tokenEnd);
+        field("isErroneous", node.isErroneous);
+        endObject();
+    }
+
+    private void statements(String name, List<StatementNode> statements) throws IOException {
+        name(name);
+        beginArray();
+        for (StatementNode statement: statements) {
+            element();
+            visit(statement);
+        }
+        endArray();
+    }
+
+    private void expression(String name, ExpressionNode expression) throws IOException {
+        name(name);
+        if (expression == null) { append("null"); }
+        else { visit(expression); }
+    }
+
+    private void expressions(String name, List<? extends ExpressionNode> expressions) throws IOException {
+        name(name);
+        beginArray();
+        for (ExpressionNode expression: expressions) {
+            element();
+            if (expression == null) { append("null"); }
+            else { visit(expression); }
+        }
+        endArray();
+    }
+
+    private void token(String name, Token token) throws IOException {
+        name(name);
+        token(token);
+    }
+
+    private void token(Token token) throws IOException {
+        if (token == null) {
+            append("null");
+            return;
+        }
+
+        if (diagnostic) {
+            append(token.toString());
+            return;
+        }
+
+        beginObject();
+        field("type", token.type == null ? null : token.type.name());
+        name("text");
+        string(token.text());
+        location("start", token.start());
+        location("end", token.end());
+        endObject();
+    }
+
+    private void location(String name, Token.Location location) throws IOException {
+        name(name);
+        beginObject();
+        field("line", location.line);
+        field("column", location.column);
+        field("offset", location.offset);
+        endObject();
+    }
+
+    private void type(String name, TypeSignature type) throws IOException {
+        name(name);
+        type(type);
+    }
+
+    private void type(TypeSignature type) throws IOException {
+        if (type == null) {
+            append("null");
+            return;
+        }
+
+        beginObject();
+        if (type instanceof PrimitiveType primitive) {
+            field("primitiveType", primitive.primitiveType == null ? null : primitive.primitiveType.name());
+        } else if (type instanceof FunctionType function) {
+            name("paramTypes");
+            beginArray();
+            for (TypeSignature paramType: function.paramTypes) {
+                element();
+                type(paramType);
+            }
+            endArray();
+            type("returnType", function.returnType);
+        } else {
+            throw new IllegalStateException("Missing JSON for type: " + type.getClass());
+        }
+        field("nodeType", type.nodeType);
+        field("optional", type.optional);
+        endObject();
+    }
+
+    /* every string besides the text of tokens is a class, enum constant or field name, none of which needs escaping */
+    private void field(String name, String value) throws IOException {
+        name(name);
+        if (value == null) { append("null"); }
+        else { append('"').append(value).append('"'); }
+    }
+
+    private void field(String name, int value) throws IOException {
+        name(name);
+        append(Integer.toString(value));
+    }
+
+    private void field(String name, long value) throws IOException {
+        name(name);
+        append(Long.toString(value));
+    }
+
+    private void field(String name, boolean value) throws IOException {
+        name(name);
+        append(value ? "true" : "false");
+    }
+
+    /* escapes what Gson escapes with HTML escaping disabled */
+    private void string(String text) throws IOException {
+        append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': { append("\\\""); break; }
+                case '\\': { append("\\\\"); break; }
+                case '\t': { append("\\t"); break; }
+                case '\b': { append("\\b"); break; }
+                case '\n': { append("\\n"); break; }
+                case '\r': { append("\\r"); break; }
+                case '\f': { append("\\f"); break; }
+                case '\u2028': { append("\\u2028"); break; }
+                case '\u2029': { append("\\u2029"); break; }
+                default: {
+                    if (c < 0x20) { append(String.format("\\u%04x", (int) c)); }
+                    else { append(c); }
+                }
+            }
+        }
+        append('"');
+    }
+
+    private void name(String name) throws IOException {
+        element();
+        append('"').append(name).append(compact ? "\":" : "\": ");
+    }
+
+    private void element() throws IOException {
+        if (!first) { append(','); }
+        first = false;
+        newline();
+    }
+
+    private void beginObject() throws IOException { begin('{'); }
+    private void endObject() throws IOException { end('}'); }
+    private void beginArray() throws IOException { begin('['); }
+    private void endArray() throws IOException { end(']'); }
+
+    private void begin(char bracket) throws IOException {
+        append(bracket);
+        depth++;
+        first = true;
+    }
+
+    /* an empty object or array closes on the same line */
+    private void end(char bracket) throws IOException {
+        depth--;
+        if (!first) { newline(); }
+        append(bracket);
+        first = false;
+    }
+
+    private void newline() throws IOException {
+        if (compact) { return; }
+        append('\n');
+        for (int i = 0; i < depth; i++) { append("  "); }
+    }
+
+    private AstJsonWriter append(char c) throws IOException {
+        if (position == buffer.length) { drain(); }
+        buffer[position++] = c;
+        return this;
+    }
+
+    private AstJsonWriter append(String text) throws IOException {
+        int length = text.length();
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                out.write(text);
+                return this;
+            }
+        }
+        text.getChars(0, length, buffer, position);
+        position += length;
+        return this;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,61 @@
+package ast;
+
+import ast.annotations.TypeAnnotation;
+import ast.exprs.*;
+import ast.stmts.*;
+
+/**
+ * Visits the nodes of an AST by their concrete class. {@link #visit(StatementNode)} and {@link #visit(ExpressionNode)}
+ * dispatch to the method of the node, each visit method decides which of its children to visit.
+ * @param <E> the checked exception a visit may throw, eg. IOException for a visitor that writes the tree out
+ */
+public interface AstVisitor<E extends Exception> {
+    void visitProgram(ProgramNode program) throws E;
+
+    void visitComment(CommentStatement comment) throws E;
+    void visitExpressionStatement(ExpressionStatement statement) throws E;
+    void visitReturn(ReturnStatement ret) throws E;
+    void visitGuard(GuardStatement guard) throws E;
+    void visitVariableDeclaration(VariableDeclaration varDecl) throws E;
+
+    void visitLiteral(LiteralExpression literal) throws E;
+    void visitIdentifier(IdentifierExpression identifier) throws E;
+    void visitAssignment(AssignmentExpression assignment) throws E;
+    void visitOperation(OperationExpression operation) throws E;
+    void visitGrouped(GroupedExpression grouped) throws E;
+    void visitPrefix(PrefixExpression prefixed) throws E;
+    void visitPostfix(PostfixExpression postfixed) throws E;
+    void visitCodeBlock(CodeBlockExpression codeBlock) throws E;
+    void visitIf(IfExpression ifExpression) throws E;
+    void visitFunction(FunctionExpression function) throws E;
+    void visitFunctionCall(FunctionCallExpression functionCall) throws E;
+
+    void visitTypeAnnotation(TypeAnnotation typeAnnotation) throws E;
+
+    default void visit(StatementNode statement) throws E {
+        if (statement instanceof CommentStatement comment) { visitComment(comment); return; }
+        if (statement instanceof ExpressionStatement expr) { visitExpressionStatement(expr); return; }
+        if (statement instanceof ReturnStatement ret) { visitReturn(ret); return; }
+        if (statement instanceof GuardStatement guard) { visitGuard(guard); return; }
+        if (statement instanceof VariableDeclaration varDecl) { visitVariableDeclaration(varDecl); return; }
+
+        throw new IllegalStateException("Missing visit for statement: " + statement.getClass());
+    }
+
+    default void visit(ExpressionNode expression) throws E {
+        if (expression instanceof LiteralExpression literal) { visitLiteral(literal); return; }
+        if (expression instanceof IdentifierExpression identifier) { visitIdentifier(identifier); return; }
+        /* before OperationExpression, which it extends */
+        if (expression instanceof AssignmentExpression assignment) { visitAssignment(assignment); return; }
+        if (expression instanceof OperationExpression operation) { visitOperation(operation); return; }
+        if (expression instanceof GroupedExpression grouped) { visitGrouped(grouped); return; }
+        if (expression instanceof PrefixExpression prefixed) { visitPrefix(prefixed); return; }
+        if (expression instanceof PostfixExpression postfixed) { visitPostfix(postfixed); return; }
+        if (expression instanceof CodeBlockExpression codeBlock) { visitCodeBlock(codeBlock); return; }
+        if (expression instanceof IfExpression ifExpression) { visitIf(ifExpression); return; }
+        if (expression instanceof FunctionExpression function) { visitFunction(function); return; }
+        if (expression instanceof FunctionCallExpression functionCall) { visitFunctionCall(functionCall); return; }
+
+        throw new IllegalStateException("Missing visit for expression: " + expression.getClass());
+    }
+}
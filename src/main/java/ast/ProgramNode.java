@@ -5,4 +5,5 @@ import java.util.List;
 
 public class ProgramNode extends AbstractSyntaxTreeNode {
     public List<StatementNode> children = new ArrayList<>();
+    public int frameSize;
 }
\ No newline at end of file
@@ -8,4 +8,7 @@ import ast.StatementNode;
 
 public class CodeBlockExpression extends ExpressionNode {
     public List<StatementNode> children = new ArrayList<>();
+
+    /* number of slots declared directly in this block, 0 if it shares its enclosing frame */
+    public int frameSize;
 }
\ No newline at end of file
@@ -8,4 +8,7 @@ import ast.ExpressionNode;
 public class FunctionCallExpression extends ExpressionNode {
     public ExpressionNode functionIdentifier;
     public List<ExpressionNode> params = new ArrayList<>();
+
+    /* set by analyzer.Resolver if the result of the call is returned as is by the enclosing function */
+    public boolean isTailCall;
 }
\ No newline at end of file
@@ -5,10 +5,18 @@ import java.util.List;
 
 import ast.ExpressionNode;
 import ast.types.TypeSignature;
+import interpreter.ClosureCompiler;
 
 public class FunctionExpression extends ExpressionNode {
     public List<IdentifierExpression> params = new ArrayList<>();
     public TypeSignature annotatedReturnType;
     public TypeSignature returnType;
     public CodeBlockExpression block;
+
+    /* number of slots taken by the params and the declarations of the body */
+    public int frameSize;
+
+    /* counted by the interpreter across all closures of this function, which compiles the body once it is hot */
+    public transient int invocationCount;
+    public transient ClosureCompiler.Code compiled;
 }
\ No newline at end of file
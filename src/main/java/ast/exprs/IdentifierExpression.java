@@ -7,4 +7,8 @@ import lexer.tokens.Token;
 public class IdentifierExpression extends ExpressionNode {
     public Token identifier;
     public TypeAnnotation typeAnnotation;
+
+    /* frame addressing filled in by analyzer.Resolver, depth is -1 if unresolved */
+    public int depth = -1;
+    public int slot = -1;
 }
\ No newline at end of file
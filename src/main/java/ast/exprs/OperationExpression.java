@@ -1,10 +1,14 @@
 package ast.exprs;
 
 import ast.ExpressionNode;
+import interpreter.nodes.BinaryNode;
 import lexer.tokens.Token;
 
 public class OperationExpression extends ExpressionNode {
     public Token operator;
     public ExpressionNode left;
     public ExpressionNode right;
+
+    /* specialized by the interpreter on the operand types it observes */
+    public transient BinaryNode node = BinaryNode.UNINITIALIZED;
 }
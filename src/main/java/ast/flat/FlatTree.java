@@ -0,0 +1,526 @@
+package ast.flat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.AbstractSyntaxTreeNode;
+import ast.ExpressionNode;
+import ast.ProgramNode;
+import ast.StatementNode;
+import ast.annotations.TypeAnnotation;
+import ast.exprs.*;
+import ast.stmts.*;
+import ast.types.TypeSignature;
+import errors.parser.UnexpectedTokenException;
+import lexer.tokens.SymbolTable;
+import lexer.tokens.Token;
+import lexer.tokens.TokenBuffer;
+import lexer.tokens.TokenType;
+import parser.Parser;
+
+/**
+ * A compact AST stored as parallel arrays, where a node is an int handle instead of an object.
+ * <p>
+ * A node costs 21 bytes: its kind, its first child, its next sibling, its token range and one int of data.
+ * The data is the index of the token of the node in a buffer of only the kept tokens,
+ * the index of a type signature, or the declaration type of a variable declaration, depending on the kind.
+ * Nodes are allocated in pre-order, so a subtree is a contiguous range of handles and traversals read the arrays in order.
+ * <p>
+ * The children of a node are the nodes of the object AST in field order:
+ * <ul>
+ * <li> a variable declaration has its assignment, whose first child is the declared identifier </li>
+ * <li> an if expression has its conditions and blocks interleaved, an odd number of children ends with the else block </li>
+ * <li> a function has its params followed by its block </li>
+ * <li> an identifier has its type annotation, if any </li>
+ * </ul>
+ * The tree is unresolved, {@link #toProgram()} materializes the object AST for the analyzer and the backends.
+ */
+public final class FlatTree {
+    public enum Kind {
+        PROGRAM,
+        COMMENT, EXPRESSION_STATEMENT, GUARD, RETURN, VARIABLE_DECLARATION,
+        ASSIGNMENT, OPERATION, PREFIX, POSTFIX, GROUPED, LITERAL, IDENTIFIER, CODE_BLOCK, IF, FUNCTION, FUNCTION_CALL,
+        TYPE_ANNOTATION;
+
+        /** @return if the data of the node is the index of its token */
+        public boolean hasToken() {
+            switch (this) {
+                case COMMENT: case ASSIGNMENT: case OPERATION: case PREFIX: case POSTFIX: case LITERAL: case IDENTIFIER: { return true; }
+                default: { return false; }
+            }
+        }
+    }
+
+    public static final int NONE = -1;
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final VariableDeclaration.Type[] DECLARATION_TYPES = VariableDeclaration.Type.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    /* package-private for FlatTreeCache, which writes and maps them as they are */
+    byte[] kinds = new byte[INITIAL_CAPACITY];
+    int[] firstChildren = new int[INITIAL_CAPACITY];
+    int[] nextSiblings = new int[INITIAL_CAPACITY];
+    int[] tokenStarts = new int[INITIAL_CAPACITY];
+    int[] tokenEnds = new int[INITIAL_CAPACITY];
+    int[] data = new int[INITIAL_CAPACITY];
+    int size = 0;
+
+    /* the tokens kept by the nodes, and the type signatures of annotations and return types */
+    final TokenBuffer tokens;
+    final List<TypeSignature> types;
+    /* types are interned, so each distinct one is kept once and keyed by identity */
+    private final Map<TypeSignature, Integer> typeIndices = new HashMap<>();
+
+    /* last top-level statement, to link the next one after it */
+    private int lastStatement = NONE;
+
+    public FlatTree(char[] source, SymbolTable symbolTable) {
+        this.tokens = new TokenBuffer(source, symbolTable);
+        this.types = new ArrayList<>();
+        allocate(Kind.PROGRAM, 0, 0, NONE);
+    }
+
+    /** A tree of finished arrays, read back by {@link FlatTreeCache}. */
+    FlatTree(TokenBuffer tokens, List<TypeSignature> types, byte[] kinds, int[] firstChildren, int[] nextSiblings, int[] tokenStarts, int[] tokenEnds, int[] data) {
+        this.tokens = tokens;
+        this.types = types;
+        for (int i = 0; i < types.size(); i++) { typeIndices.put(types.get(i), i); }
+        this.kinds = kinds;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.tokenStarts = tokenStarts;
+        this.tokenEnds = tokenEnds;
+        this.data = data;
+        this.size = kinds.length;
+        this.lastStatement = lastChild(0);
+    }
+
+    /** @return the flat copy of an object AST */
+    public static FlatTree of(ProgramNode program, TokenBuffer tokens) {
+        FlatTree tree = new FlatTree(tokens.source(), tokens.symbolTable());
+        for (StatementNode statement: program.children) { tree.addStatement(statement); }
+        tree.finish(program.tokenEnd);
+        return tree;
+    }
+
+    /**
+     * Parses the program one top-level statement at a time, so only the objects of the statement being parsed are alive.
+     * With a parser that streams from a lexer, neither the object AST nor the tokens of the whole program are ever held.
+     */
+    public static FlatTree parse(Parser parser) throws UnexpectedTokenException {
+        TokenBuffer parsed = parser.getTokens();
+        FlatTree tree = new FlatTree(parsed.source(), parsed.symbolTable());
+        parser.setIndex(0);
+        for (StatementNode statement = parser.nextStatement(); statement != null; statement = parser.nextStatement()) {
+            tree.addStatement(statement);
+        }
+        tree.finish(parsed.size());
+        return tree;
+    }
+
+    /** Appends a top-level statement to the program. */
+    public void addStatement(StatementNode statement) {
+        int node = add(statement);
+        if (lastStatement == NONE) { firstChildren[0] = node; }
+        else { nextSiblings[lastStatement] = node; }
+        lastStatement = node;
+    }
+
+    /** Ends the program at the token index and shrinks the arrays to the nodes, once no more statements are added. */
+    public void finish(int tokenEnd) {
+        tokenEnds[0] = tokenEnd;
+        kinds = Arrays.copyOf(kinds, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        tokenStarts = Arrays.copyOf(tokenStarts, size);
+        tokenEnds = Arrays.copyOf(tokenEnds, size);
+        data = Arrays.copyOf(data, size);
+        tokens.trimToSize();
+    }
+
+    /* views */
+
+    public int root() { return 0; }
+    public int size() { return size; }
+    public TokenBuffer getTokens() { return tokens; }
+
+    public Kind kind(int node) { return KINDS[kinds[node]]; }
+    public int firstChild(int node) { return firstChildren[node]; }
+    public int nextSibling(int node) { return nextSiblings[node]; }
+    public int tokenStart(int node) { return tokenStarts[node]; }
+    public int tokenEnd(int node) { return tokenEnds[node]; }
+
+    /** @return the node after the subtree of the node, since subtrees are contiguous */
+    public int subtreeEnd(int node) {
+        for (int current = node; current != NONE; current = lastChild(current)) {
+            if (nextSiblings[current] != NONE) { return nextSiblings[current]; }
+            if (firstChildren[current] == NONE) { return current + 1; }
+        }
+        return size;
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) { count++; }
+        return count;
+    }
+
+    /** @return the child at the index, NONE if there are not as many children */
+    public int child(int node, int index) {
+        int child = firstChildren[node];
+        for (int i = 0; i < index && child != NONE; i++) { child = nextSiblings[child]; }
+        return child;
+    }
+
+    private int lastChild(int node) {
+        int child = firstChildren[node];
+        if (child == NONE) { return NONE; }
+        while (nextSiblings[child] != NONE) { child = nextSiblings[child]; }
+        return child;
+    }
+
+    /** @return the type of the token of the node, eg. the operator of an operation, without materializing it */
+    public TokenType tokenType(int node) {
+        return kind(node).hasToken() ? tokens.type(data[node]) : null;
+    }
+
+    /** @return a new {@link Token} for the token of the node, null if its kind has none */
+    public Token token(int node) {
+        return kind(node).hasToken() ? tokens.token(data[node]) : null;
+    }
+
+    /** @return the text of the token of the node, canonical for identifiers */
+    public String text(int node) {
+        if (!kind(node).hasToken()) { return null; }
+        int token = data[node];
+        int symbol = tokens.symbol(token);
+        if (symbol >= 0) { return tokens.symbolTable().name(symbol); }
+        return new String(tokens.source(), tokens.start(token), tokens.end(token) - tokens.start(token));
+    }
+
+    /** @return the type of a type annotation, or the annotated return type of a function, null if there is none */
+    public TypeSignature typeSignature(int node) {
+        Kind kind = kind(node);
+        if (kind != Kind.TYPE_ANNOTATION && kind != Kind.FUNCTION) { return null; }
+        return data[node] == NONE ? null : types.get(data[node]);
+    }
+
+    public VariableDeclaration.Type declarationType(int node) {
+        if (kind(node) != Kind.VARIABLE_DECLARATION || data[node] == NONE) { return null; }
+        return DECLARATION_TYPES[data[node]];
+    }
+
+    /* building */
+
+    private int allocate(Kind kind, int tokenStart, int tokenEnd, int nodeData) {
+        if (size == kinds.length) {
+            int capacity = size << 1;
+            kinds = Arrays.copyOf(kinds, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            tokenStarts = Arrays.copyOf(tokenStarts, capacity);
+            tokenEnds = Arrays.copyOf(tokenEnds, capacity);
+            data = Arrays.copyOf(data, capacity);
+        }
+
+        kinds[size] = (byte) kind.ordinal();
+        firstChildren[size] = NONE;
+        nextSiblings[size] = NONE;
+        tokenStarts[size] = tokenStart;
+        tokenEnds[size] = tokenEnd;
+        data[size] = nodeData;
+        return size++;
+    }
+
+    private int allocate(Kind kind, AbstractSyntaxTreeNode node, int nodeData) {
+        return allocate(kind, node.tokenStart, node.tokenEnd, nodeData);
+    }
+
+    private int keep(Token token) {
+        tokens.add(token.type, token.startOffset, token.endOffset, token.symbol);
+        return tokens.size() - 1;
+    }
+
+    private int keep(TypeSignature type) {
+        if (type == null) { return NONE; }
+        Integer index = typeIndices.get(type);
+        if (index != null) { return index; }
+
+        types.add(type);
+        typeIndices.put(type, types.size() - 1);
+        return types.size() - 1;
+    }
+
+    /* links the children in order, each one is added right after the subtree of the previous one */
+    private final class Children {
+        private final int parent;
+        private int last = NONE;
+
+        Children(int parent) { this.parent = parent; }
+
+        void add(int child) {
+            if (child == NONE) { return; }
+            if (last == NONE) { firstChildren[parent] = child; }
+            else { nextSiblings[last] = child; }
+            last = child;
+        }
+    }
+
+    private int add(StatementNode statement) {
+        if (statement instanceof CommentStatement comment) {
+            return allocate(Kind.COMMENT, comment, keep(comment.comment));
+        }
+
+        if (statement instanceof ExpressionStatement expr) {
+            int node = allocate(Kind.EXPRESSION_STATEMENT, expr, NONE);
+            new Children(node).add(add(expr.expression));
+            return node;
+        }
+
+        if (statement instanceof ReturnStatement ret) {
+            int node = allocate(Kind.RETURN, ret, NONE);
+            new Children(node).add(add(ret.returnExpression));
+            return node;
+        }
+
+        if (statement instanceof GuardStatement guard) {
+            int node = allocate(Kind.GUARD, guard, NONE);
+            Children children = new Children(node);
+            children.add(add(guard.clause));
+            children.add(add(guard.body));
+            return node;
+        }
+
+        if (statement instanceof VariableDeclaration varDecl) {
+            int declarationType = varDecl.declarationType == null ? NONE : varDecl.declarationType.ordinal();
+            int node = allocate(Kind.VARIABLE_DECLARATION, varDecl, declarationType);
+            new Children(node).add(add(varDecl.assignmentExpression));
+            return node;
+        }
+
+        throw new IllegalStateException("Missing flat node for statement: " + statement.getClass());
+    }
+
+    private int add(ExpressionNode expression) {
+        if (expression == null) { return NONE; }
+
+        if (expression instanceof LiteralExpression literal) {
+            return allocate(Kind.LITERAL, literal, keep(literal.value));
+        }
+
+        if (expression instanceof IdentifierExpression identifier) {
+            int node = allocate(Kind.IDENTIFIER, identifier, keep(identifier.identifier));
+            if (identifier.typeAnnotation != null) { new Children(node).add(add(identifier.typeAnnotation)); }
+            return node;
+        }
+
+        if (expression instanceof AssignmentExpression assignment) {
+            int node = allocate(Kind.ASSIGNMENT, assignment, keep(assignment.operator));
+            Children children = new Children(node);
+            children.add(add(assignment.left));
+            children.add(add(assignment.right));
+            return node;
+        }
+
+        if (expression instanceof OperationExpression operation) {
+            int node = allocate(Kind.OPERATION, operation, keep(operation.operator));
+            Children children = new Children(node);
+            children.add(add(operation.left));
+            children.add(add(operation.right));
+            return node;
+        }
+
+        if (expression instanceof GroupedExpression grouped) {
+            int node = allocate(Kind.GROUPED, grouped, NONE);
+            new Children(node).add(add(grouped.expression));
+            return node;
+        }
+
+        if (expression instanceof PrefixExpression prefixed) {
+            int node = allocate(Kind.PREFIX, prefixed, keep(prefixed.prefix));
+            new Children(node).add(add(prefixed.expression));
+            return node;
+        }
+
+        if (expression instanceof PostfixExpression postfixed) {
+            int node = allocate(Kind.POSTFIX, postfixed, keep(postfixed.postfix));
+            new Children(node).add(add(postfixed.expression));
+            return node;
+        }
+
+        if (expression instanceof CodeBlockExpression codeBlock) {
+            int node = allocate(Kind.CODE_BLOCK, codeBlock, NONE);
+            Children children = new Children(node);
+            for (StatementNode statement: codeBlock.children) { children.add(add(statement)); }
+            return node;
+        }
+
+        if (expression instanceof IfExpression ifExpression) {
+            int node = allocate(Kind.IF, ifExpression, NONE);
+            Children children = new Children(node);
+            for (int i = 0; i < ifExpression.blocks.size(); i++) {
+                if (i < ifExpression.conditions.size()) { children.add(add(ifExpression.conditions.get(i))); }
+                children.add(add(ifExpression.blocks.get(i)));
+            }
+            return node;
+        }
+
+        if (expression instanceof FunctionExpression function) {
+            int node = allocate(Kind.FUNCTION, function, keep(function.annotatedReturnType));
+            Children children = new Children(node);
+            for (IdentifierExpression param: function.params) { children.add(add(param)); }
+            children.add(add(function.block));
+            return node;
+        }
+
+        if (expression instanceof FunctionCallExpression functionCall) {
+            int node = allocate(Kind.FUNCTION_CALL, functionCall, NONE);
+            Children children = new Children(node);
+            children.add(add(functionCall.functionIdentifier));
+            for (ExpressionNode param: functionCall.params) { children.add(add(param)); }
+            return node;
+        }
+
+        throw new IllegalStateException("Missing flat node for expression: " + expression.getClass());
+    }
+
+    private int add(TypeAnnotation annotation) {
+        return allocate(Kind.TYPE_ANNOTATION, annotation, keep(annotation.typeSignature));
+    }
+
+    /* materializing */
+
+    /** @return a new object AST of the tree, whose tokens resolve their locations through {@link #getTokens()} */
+    public ProgramNode toProgram() {
+        ProgramNode program = ranged(new ProgramNode(), 0);
+        for (int child = firstChildren[0]; child != NONE; child = nextSiblings[child]) { program.children.add(toStatement(child)); }
+        return program;
+    }
+
+    private <T extends AbstractSyntaxTreeNode> T ranged(T object, int node) {
+        object.tokenStart = tokenStarts[node];
+        object.tokenEnd = tokenEnds[node];
+        return object;
+    }
+
+    private StatementNode toStatement(int node) {
+        int first = firstChildren[node];
+        switch (kind(node)) {
+            case COMMENT: {
+                CommentStatement comment = ranged(new CommentStatement(), node);
+                comment.comment = token(node);
+                return comment;
+            }
+            case EXPRESSION_STATEMENT: {
+                ExpressionStatement expr = ranged(new ExpressionStatement(), node);
+                expr.expression = toExpression(first);
+                return expr;
+            }
+            case RETURN: {
+                ReturnStatement ret = ranged(new ReturnStatement(), node);
+                ret.returnExpression = toExpression(first);
+                return ret;
+            }
+            case GUARD: {
+                GuardStatement guard = ranged(new GuardStatement(), node);
+                guard.clause = toExpression(first);
+                guard.body = (CodeBlockExpression) toExpression(nextSiblings[first]);
+                return guard;
+            }
+            case VARIABLE_DECLARATION: {
+                VariableDeclaration varDecl = ranged(new VariableDeclaration(), node);
+                varDecl.declarationType = declarationType(node);
+                varDecl.assignmentExpression = (AssignmentExpression) toExpression(first);
+                varDecl.identifier = (IdentifierExpression) varDecl.assignmentExpression.left;
+                return varDecl;
+            }
+            default: { throw new IllegalStateException("Not a statement: " + kind(node)); }
+        }
+    }
+
+    private ExpressionNode toExpression(int node) {
+        if (node == NONE) { return null; }
+
+        int first = firstChildren[node];
+        switch (kind(node)) {
+            case LITERAL: {
+                LiteralExpression literal = ranged(new LiteralExpression(), node);
+                literal.value = token(node);
+                return literal;
+            }
+            case IDENTIFIER: {
+                IdentifierExpression identifier = ranged(new IdentifierExpression(), node);
+                identifier.identifier = token(node);
+                if (first != NONE) {
+                    identifier.typeAnnotation = ranged(new TypeAnnotation(), first);
+                    identifier.typeAnnotation.typeSignature = typeSignature(first);
+                }
+                return identifier;
+            }
+            case ASSIGNMENT:
+            case OPERATION: {
+                OperationExpression operation = ranged(kind(node) == Kind.ASSIGNMENT ? new AssignmentExpression() : new OperationExpression(), node);
+                operation.operator = token(node);
+                operation.left = toExpression(first);
+                operation.right = toExpression(nextSiblings[first]);
+                return operation;
+            }
+            case GROUPED: {
+                GroupedExpression grouped = ranged(new GroupedExpression(), node);
+                grouped.expression = toExpression(first);
+                return grouped;
+            }
+            case PREFIX: {
+                PrefixExpression prefixed = ranged(new PrefixExpression(), node);
+                prefixed.prefix = token(node);
+                prefixed.expression = toExpression(first);
+                return prefixed;
+            }
+            case POSTFIX: {
+                PostfixExpression postfixed = ranged(new PostfixExpression(), node);
+                postfixed.postfix = token(node);
+                postfixed.expression = toExpression(first);
+                return postfixed;
+            }
+            case CODE_BLOCK: {
+                CodeBlockExpression codeBlock = ranged(new CodeBlockExpression(), node);
+                for (int child = first; child != NONE; child = nextSiblings[child]) { codeBlock.children.add(toStatement(child)); }
+                return codeBlock;
+            }
+            case IF: {
+                /* conditions and blocks alternate, a block without a condition after it is the else block */
+                IfExpression ifExpression = ranged(new IfExpression(), node);
+                for (int child = first; child != NONE; child = nextSiblings[child]) {
+                    if (nextSiblings[child] == NONE) {
+                        ifExpression.blocks.add((CodeBlockExpression) toExpression(child));
+                        break;
+                    }
+                    ifExpression.conditions.add(toExpression(child));
+                    child = nextSiblings[child];
+                    ifExpression.blocks.add((CodeBlockExpression) toExpression(child));
+                }
+                return ifExpression;
+            }
+            case FUNCTION: {
+                FunctionExpression function = ranged(new FunctionExpression(), node);
+                function.annotatedReturnType = typeSignature(node);
+                for (int child = first; child != NONE; child = nextSiblings[child]) {
+                    if (nextSiblings[child] == NONE) { function.block = (CodeBlockExpression) toExpression(child); }
+                    else { function.params.add((IdentifierExpression) toExpression(child)); }
+                }
+                return function;
+            }
+            case FUNCTION_CALL: {
+                FunctionCallExpression functionCall = ranged(new FunctionCallExpression(), node);
+                functionCall.functionIdentifier = toExpression(first);
+                for (int child = nextSiblings[first]; child != NONE; child = nextSiblings[child]) { functionCall.params.add(toExpression(child)); }
+                return functionCall;
+            }
+            default: { throw new IllegalStateException("Not an expression: " + kind(node)); }
+        }
+    }
+}
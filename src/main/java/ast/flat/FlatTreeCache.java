@@ -0,0 +1,245 @@
+package ast.flat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ast.types.FunctionType;
+import ast.types.PrimitiveType;
+import ast.types.TypeSignature;
+import ast.types.TypeTable;
+import lexer.tokens.SymbolTable;
+import lexer.tokens.TokenBuffer;
+import lexer.tokens.TokenType;
+
+/**
+ * Caches the {@link FlatTree} of a source in a binary {@code .ascc} file next to it, so that an unchanged source is not lexed and parsed again.
+ * <p>
+ * The file starts with a magic number, the format version and the SHA-256 hash of the bytes of the source,
+ * followed by the symbol table, the type signatures, the kept tokens and the node arrays of the tree as they are in memory.
+ * It is read back through a memory mapping, a file of another version or of other source contents is ignored.
+ * <p>
+ * The header also holds a stamp of the JSON file last written from the tree, its size, modification time and format,
+ * so that a run from the cache can tell if that file is still current instead of writing it again.
+ */
+public final class FlatTreeCache {
+    private static final int MAGIC = 0x41534343; // ASCC
+
+    /* bump whenever the layout of the file, the flat tree or the AST the parser builds changes */
+    public static final int VERSION = 2;
+
+    /* after the magic number, the version, the hash and the length of the source */
+    private static final int STAMP_OFFSET = 2 * Integer.BYTES + 32 + Integer.BYTES;
+    private static final int STAMP_SIZE = 2 * Long.BYTES + 1;
+
+    private static final byte PRIMITIVE_TYPE = 0, FUNCTION_TYPE = 1;
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final PrimitiveType.Value[] PRIMITIVE_TYPES = PrimitiveType.Value.values();
+
+    private FlatTreeCache() {}
+
+    /** @return the cache file of the source, {@code name.ascc} for {@code name.ascetic} */
+    public static File cacheFileOf(File source) {
+        String name = source.getName();
+        int extension = name.lastIndexOf('.');
+        String base = extension > 0 ? name.substring(0, extension) : name;
+        return new File(source.getAbsoluteFile().getParentFile(), base + ".ascc");
+    }
+
+    /** @return the SHA-256 hash of the contents of the file */
+    public static byte[] hash(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("Every Java platform implements SHA-256", exception);
+        }
+    }
+
+    /**
+     * @param source the characters of the source the tree was parsed from, its tokens point into them
+     * @return the cached tree of the source with the hash, null if the cache file is missing, stale or unreadable
+     */
+    public static FlatTree load(File cacheFile, byte[] hash, char[] source) {
+        if (!cacheFile.isFile()) { return null; }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) { return null; }
+
+            byte[] cachedHash = new byte[hash.length];
+            in.get(cachedHash);
+            if (!Arrays.equals(hash, cachedHash) || in.getInt() != source.length) { return null; }
+
+            in.position(STAMP_OFFSET + STAMP_SIZE);
+            return read(in, source);
+        } catch (IOException | RuntimeException exception) {
+            /* a truncated or corrupted file is as good as a missing one, the source is parsed again */
+            return null;
+        }
+    }
+
+    /**
+     * Writes the tree to a temporary file that then replaces the cache file,
+     * so that a run reading the cache at the same time never sees a partial file.
+     */
+    public static void store(File cacheFile, byte[] hash, FlatTree tree) throws IOException {
+        Path target = cacheFile.toPath();
+        Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(), cacheFile.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(hash);
+                out.writeInt(tree.tokens.source().length);
+                /* no JSON has been written from the tree yet */
+                out.write(new byte[STAMP_SIZE]);
+                write(out, tree);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Records the JSON file as written from the cached tree, call it after writing the file. */
+    public static void stamp(File cacheFile, File json, boolean compact) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(stampOf(json, compact), STAMP_OFFSET);
+        }
+    }
+
+    /** @return if the JSON file is unchanged since {@link #stamp} recorded it, in the same format */
+    public static boolean isStamped(File cacheFile, File json, boolean compact) {
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer stamp = ByteBuffer.allocate(STAMP_SIZE);
+            while (stamp.hasRemaining() && channel.read(stamp, STAMP_OFFSET + stamp.position()) > 0) {}
+            return stamp.flip().equals(stampOf(json, compact));
+        } catch (IOException exception) {
+            /* a missing JSON file is never current */
+            return false;
+        }
+    }
+
+    private static ByteBuffer stampOf(File json, boolean compact) throws IOException {
+        ByteBuffer stamp = ByteBuffer.allocate(STAMP_SIZE);
+        stamp.putLong(Files.size(json.toPath()));
+        stamp.putLong(Files.getLastModifiedTime(json.toPath()).toMillis());
+        stamp.put((byte) (compact ? 1 : 0));
+        return stamp.flip();
+    }
+
+    private static void write(DataOutputStream out, FlatTree tree) throws IOException {
+        SymbolTable symbols = tree.tokens.symbolTable();
+        out.writeInt(symbols.size());
+        for (int id = 0; id < symbols.size(); id++) {
+            String name = symbols.name(id);
+            out.writeInt(name.length());
+            out.writeChars(name);
+        }
+
+        out.writeInt(tree.types.size());
+        for (TypeSignature type: tree.types) { write(out, type); }
+
+        TokenBuffer tokens = tree.tokens;
+        out.writeInt(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) { out.writeByte(tokens.type(i).ordinal()); }
+        for (int i = 0; i < tokens.size(); i++) { out.writeInt(tokens.start(i)); }
+        for (int i = 0; i < tokens.size(); i++) { out.writeInt(tokens.end(i)); }
+        for (int i = 0; i < tokens.size(); i++) { out.writeInt(tokens.symbol(i)); }
+
+        out.writeInt(tree.size);
+        out.write(tree.kinds, 0, tree.size);
+        for (int[] array: new int[][] { tree.firstChildren, tree.nextSiblings, tree.tokenStarts, tree.tokenEnds, tree.data }) {
+            for (int i = 0; i < tree.size; i++) { out.writeInt(array[i]); }
+        }
+    }
+
+    private static void write(DataOutputStream out, TypeSignature type) throws IOException {
+        if (type instanceof PrimitiveType primitive) {
+            out.writeByte(PRIMITIVE_TYPE);
+            out.writeBoolean(primitive.optional);
+            out.writeByte(primitive.primitiveType.ordinal());
+            return;
+        }
+
+        if (type instanceof FunctionType function) {
+            out.writeByte(FUNCTION_TYPE);
+            out.writeBoolean(function.optional);
+            out.writeInt(function.paramTypes.size());
+            for (TypeSignature paramType: function.paramTypes) { write(out, paramType); }
+            write(out, function.returnType);
+            return;
+        }
+
+        throw new IllegalStateException("Missing cache encoding for type: " + type.getClass());
+    }
+
+    private static FlatTree read(ByteBuffer in, char[] source) {
+        SymbolTable symbols = new SymbolTable();
+        int symbolCount = in.getInt();
+        for (int id = 0; id < symbolCount; id++) {
+            char[] name = new char[in.getInt()];
+            in.asCharBuffer().get(name);
+            in.position(in.position() + name.length * Character.BYTES);
+            symbols.intern(name, 0, name.length);
+        }
+
+        int typeCount = in.getInt();
+        List<TypeSignature> types = new ArrayList<>(typeCount);
+        for (int i = 0; i < typeCount; i++) { types.add(readType(in)); }
+
+        int tokenCount = in.getInt();
+        byte[] tokenTypes = bytes(in, tokenCount);
+        int[] starts = ints(in, tokenCount), ends = ints(in, tokenCount), tokenSymbols = ints(in, tokenCount);
+        TokenBuffer tokens = new TokenBuffer(source, symbols, tokenCount);
+        for (int i = 0; i < tokenCount; i++) { tokens.add(TOKEN_TYPES[tokenTypes[i]], starts[i], ends[i], tokenSymbols[i]); }
+
+        int size = in.getInt();
+        byte[] kinds = bytes(in, size);
+        return new FlatTree(tokens, types, kinds, ints(in, size), ints(in, size), ints(in, size), ints(in, size), ints(in, size));
+    }
+
+    private static TypeSignature readType(ByteBuffer in) {
+        byte tag = in.get();
+        boolean optional = in.get() != 0;
+
+        if (tag == PRIMITIVE_TYPE) { return TypeTable.primitive(PRIMITIVE_TYPES[in.get()], optional); }
+        if (tag == FUNCTION_TYPE) {
+            int paramCount = in.getInt();
+            List<TypeSignature> paramTypes = new ArrayList<>(paramCount);
+            for (int i = 0; i < paramCount; i++) { paramTypes.add(readType(in)); }
+            return TypeTable.function(paramTypes, readType(in), optional);
+        }
+
+        throw new IllegalStateException("Unknown type tag in cache: " + tag);
+    }
+
+    private static byte[] bytes(ByteBuffer in, int count) {
+        byte[] array = new byte[count];
+        in.get(array);
+        return array;
+    }
+
+    /* reads the ints in bulk from a view of the mapping instead of one at a time */
+    private static int[] ints(ByteBuffer in, int count) {
+        int[] array = new int[count];
+        in.asIntBuffer().get(array);
+        in.position(in.position() + count * Integer.BYTES);
+        return array;
+    }
+}
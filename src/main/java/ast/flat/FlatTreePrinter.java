@@ -0,0 +1,106 @@
+package ast.flat;
+
+import java.io.IOException;
+
+import ast.types.FunctionType;
+import ast.types.PrimitiveType;
+import ast.types.TypeSignature;
+
+/**
+ * Writes a {@link FlatTree} as compact JSON straight from its arrays, one object per node with its children nested in it.
+ * <p>
+ * eg. {@code {"kind":"LITERAL","tokenStart":3,"tokenEnd":4,"tokenType":"INTEGER_LITERAL","text":"1"}}
+ */
+public final class FlatTreePrinter {
+    private final FlatTree tree;
+    private final Appendable out;
+
+    private FlatTreePrinter(FlatTree tree, Appendable out) {
+        this.tree = tree;
+        this.out = out;
+    }
+
+    public static void print(FlatTree tree, Appendable out) throws IOException {
+        new FlatTreePrinter(tree, out).print(tree.root());
+    }
+
+    public static String toJson(FlatTree tree) {
+        StringBuilder json = new StringBuilder(tree.size() * 64);
+        try { print(tree, json); }
+        catch (IOException exception) { throw new IllegalStateException("StringBuilder does not throw", exception); }
+        return json.toString();
+    }
+
+    private void print(int node) throws IOException {
+        FlatTree.Kind kind = tree.kind(node);
+        out.append("{\"kind\":\"").append(kind.name())
+            .append("\",\"tokenStart\":").append(Integer.toString(tree.tokenStart(node)))
+            .append(",\"tokenEnd\":").append(Integer.toString(tree.tokenEnd(node)));
+
+        if (kind.hasToken()) {
+            out.append(",\"tokenType\":\"").append(tree.tokenType(node).name()).append("\",\"text\":");
+            string(tree.text(node));
+        }
+
+        TypeSignature type = tree.typeSignature(node);
+        if (type != null) {
+            out.append(",\"type\":");
+            string(typeName(type));
+        }
+
+        if (kind == FlatTree.Kind.VARIABLE_DECLARATION && tree.declarationType(node) != null) {
+            out.append(",\"declarationType\":\"").append(tree.declarationType(node).name()).append('"');
+        }
+
+        int child = tree.firstChild(node);
+        if (child != FlatTree.NONE) {
+            out.append(",\"children\":[");
+            for (; child != FlatTree.NONE; child = tree.nextSibling(child)) {
+                print(child);
+                if (tree.nextSibling(child) != FlatTree.NONE) { out.append(','); }
+            }
+            out.append(']');
+        }
+
+        out.append('}');
+    }
+
+    /** @return the type as it is written in source, eg. {@code (Int, Bool?) -> Int} */
+    static String typeName(TypeSignature type) {
+        String name;
+        if (type instanceof PrimitiveType primitive) {
+            name = String.valueOf(primitive.primitiveType);
+        } else if (type instanceof FunctionType function) {
+            StringBuilder builder = new StringBuilder("(");
+            for (int i = 0; i < function.paramTypes.size(); i++) {
+                if (i > 0) { builder.append(", "); }
+                builder.append(typeName(function.paramTypes.get(i)));
+            }
+            name = builder.append(") -> ").append(typeName(function.returnType)).toString();
+            if (type.optional) { name = "(" + name + ")"; }
+        } else {
+            name = type.getClass().getSimpleName();
+        }
+
+        return type.optional ? name + "?" : name;
+    }
+
+    private void string(String text) throws IOException {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': { out.append("\\\""); break; }
+                case '\\': { out.append("\\\\"); break; }
+                case '\n': { out.append("\\n"); break; }
+                case '\r': { out.append("\\r"); break; }
+                case '\t': { out.append("\\t"); break; }
+                default: {
+                    if (c < 0x20) { out.append(String.format("\\u%04x", (int) c)); }
+                    else { out.append(c); }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
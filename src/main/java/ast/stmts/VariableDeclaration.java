@@ -14,7 +14,7 @@ public class VariableDeclaration extends StatementNode {
         var;
     
         public static Type fromToken(Token token) {
-            switch (String.valueOf(token.text)) {
+            switch (token.text()) {
                 case "let": { return let; }
                 case "var": { return var; }
                 default: { return null; }
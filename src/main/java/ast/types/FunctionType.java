@@ -1,9 +1,15 @@
 package ast.types;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class FunctionType extends TypeSignature {
-    public List<TypeSignature> paramTypes = new ArrayList<>();
-    public TypeSignature returnType;
-}
\ No newline at end of file
+    /* unmodifiable, of interned types */
+    public final List<TypeSignature> paramTypes;
+    public final TypeSignature returnType;
+
+    FunctionType(List<TypeSignature> paramTypes, TypeSignature returnType, boolean optional) {
+        super(optional);
+        this.paramTypes = paramTypes;
+        this.returnType = returnType;
+    }
+}
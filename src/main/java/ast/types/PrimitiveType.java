@@ -12,14 +12,14 @@ public class PrimitiveType extends TypeSignature {
                 case FLOAT_LITERAL: { return Float; }
                 case STRING_LITERAL: { return String; }
                 case BOOLEAN_LITERAL: {
-                    String booleanLiteral = java.lang.String.valueOf(token.text);
+                    String booleanLiteral = token.text();
                     switch (booleanLiteral) {
                         case "true", "false": { return Bool; }
                         default: { return null; }
                     }
                 }
                 case PRIMITIVE_TYPE: {
-                    String keyword = java.lang.String.valueOf(token.text);
+                    String keyword = token.text();
                     switch (keyword) {
                         case "Bool": { return Bool; }
                         case "Int": { return Int; }
@@ -36,7 +36,12 @@ public class PrimitiveType extends TypeSignature {
         }
     }
 
-    public Value primitiveType;
+    public final Value primitiveType;
+
+    PrimitiveType(Value primitiveType, boolean optional) {
+        super(optional);
+        this.primitiveType = primitiveType;
+    }
 
     @Override
     public boolean allowsPrefix(Token prefix) {
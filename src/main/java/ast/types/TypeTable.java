@@ -0,0 +1,121 @@
+package ast.types;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash-conses types: every structure has a single instance, made the first time it is asked for,
+ * so types compare with {@code ==} and can key maps.
+ * <p>
+ * The table is shared by the whole process, types from separate parses, eg. the chunks of a parallel parse or a cached tree, are the same instances.
+ * Function types are looked up by the identities of their parameter and return types, which are interned already.
+ * They are held weakly, so that the types of code that was edited away in a long-running process are collected:
+ * a function type stays the same instance for as long as anything refers to it, and its entry is dropped after it is collected.
+ */
+public final class TypeTable {
+    private static final PrimitiveType.Value[] VALUES = PrimitiveType.Value.values();
+
+    /* by value ordinal, then 0 for the plain and 1 for the optional type */
+    private static final PrimitiveType[][] primitives = new PrimitiveType[VALUES.length][2];
+    static {
+        for (PrimitiveType.Value value: VALUES) {
+            primitives[value.ordinal()][0] = new PrimitiveType(value, false);
+            primitives[value.ordinal()][1] = new PrimitiveType(value, true);
+        }
+    }
+
+    /* parsers of separate chunks intern into it at the same time */
+    private static final ConcurrentHashMap<FunctionKey, FunctionEntry> functions = new ConcurrentHashMap<>();
+    /* entries whose type was collected, removed on the next interning */
+    private static final ReferenceQueue<FunctionType> collected = new ReferenceQueue<>();
+
+    private TypeTable() {}
+
+    public static PrimitiveType primitive(PrimitiveType.Value value) {
+        return primitive(value, false);
+    }
+
+    public static PrimitiveType primitive(PrimitiveType.Value value, boolean optional) {
+        return primitives[value.ordinal()][optional ? 1 : 0];
+    }
+
+    public static FunctionType function(List<TypeSignature> paramTypes, TypeSignature returnType) {
+        return function(paramTypes, returnType, false);
+    }
+
+    /** @param paramTypes interned types, copied so that the caller may reuse the list */
+    public static FunctionType function(List<TypeSignature> paramTypes, TypeSignature returnType, boolean optional) {
+        expungeCollected();
+
+        FunctionKey key = new FunctionKey(List.copyOf(paramTypes), returnType, optional);
+        while (true) {
+            FunctionEntry entry = functions.get(key);
+            FunctionType type = entry == null ? null : entry.get();
+            if (type != null) { return type; }
+
+            /* another thread may intern the same type in between, then the loop returns its instance */
+            type = new FunctionType(key.paramTypes, key.returnType, key.optional);
+            FunctionEntry interned = new FunctionEntry(type, key);
+            if (entry == null ? functions.putIfAbsent(key, interned) == null : functions.replace(key, entry, interned)) { return type; }
+        }
+    }
+
+    /** @return the number of function types in the table, collected ones included until they are expunged */
+    static int functionCount() {
+        expungeCollected();
+        return functions.size();
+    }
+
+    private static void expungeCollected() {
+        for (Object reference = collected.poll(); reference != null; reference = collected.poll()) {
+            FunctionEntry entry = (FunctionEntry) reference;
+            functions.remove(entry.key, entry);
+        }
+    }
+
+    /* the key holds the parameter and return types, so they live as long as the function type does */
+    private static final class FunctionEntry extends WeakReference<FunctionType> {
+        final FunctionKey key;
+
+        FunctionEntry(FunctionType type, FunctionKey key) {
+            super(type, collected);
+            this.key = key;
+        }
+    }
+
+    /** @return the optional type of the type, eg. {@code Int?} for {@code Int}, the type itself if it is optional already */
+    public static TypeSignature optional(TypeSignature type) {
+        if (type.optional) { return type; }
+        if (type instanceof PrimitiveType primitive) { return primitive(primitive.primitiveType, true); }
+        if (type instanceof FunctionType function) { return function(function.paramTypes, function.returnType, true); }
+
+        throw new IllegalStateException("Missing interning for type: " + type.getClass());
+    }
+
+    /* compares its types by identity, which their equals and hashCode are */
+    private static final class FunctionKey {
+        final List<TypeSignature> paramTypes;
+        final TypeSignature returnType;
+        final boolean optional;
+        private final int hash;
+
+        FunctionKey(List<TypeSignature> paramTypes, TypeSignature returnType, boolean optional) {
+            this.paramTypes = paramTypes;
+            this.returnType = returnType;
+            this.optional = optional;
+            this.hash = 31 * (31 * paramTypes.hashCode() + System.identityHashCode(returnType)) + (optional ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof FunctionKey key && optional == key.optional && returnType == key.returnType && paramTypes.equals(key.paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package codegen;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+
+import analyzer.Resolver;
+import ast.*;
+import ast.exprs.*;
+import ast.stmts.*;
+import interpreter.Operations;
+import interpreter.builtins.Builtin;
+
+/**
+ * Transpiles a {@link ProgramNode} into a standalone C++17 program that prints what {@link interpreter.Interpreter#run} returns.
+ * <p>
+ * Values are a {@code std::variant} and frames are reference counted arrays of slots addressed by {@link Resolver} depth and slot,
+ * the same layout the interpreter uses. A code block becomes an immediately invoked lambda so that
+ * {@code return} and a taken {@code guard} exit it with their value. A function becomes a non-capturing lambda
+ * that receives its call frame, the frame it closes over is kept by the runtime function object instead.
+ * <p>
+ * Operands and call arguments are emitted as method calls on their left operand or callee,
+ * which C++17 evaluates before the arguments, so side effects and errors happen in the interpreter's order.
+ * <p>
+ * A call the {@link Resolver} marks as a tail call returns its callee and call frame in place of its result,
+ * and the enclosing call runs it in a loop, like {@code TailCall} in the interpreter, so tail recursion takes no native stack.
+ */
+public class CppGenerator {
+    private static final String PRELUDE = """
+        #include <cmath>
+        #include <cstdint>
+        #include <cstdio>
+        #include <cstdlib>
+        #include <iostream>
+        #include <memory>
+        #include <stdexcept>
+        #include <string>
+        #include <variant>
+        #include <vector>
+
+        namespace ascetic {
+
+        struct Undefined {};
+        struct Void {};
+        inline bool operator==(Undefined, Undefined) { return true; }
+        inline bool operator!=(Undefined, Undefined) { return false; }
+        inline bool operator==(Void, Void) { return true; }
+        inline bool operator!=(Void, Void) { return false; }
+        struct Function;
+        struct Frame;
+
+        /* returned by a tail call in place of its result, never seen by an operation, see Callee::call */
+        struct TailCall {
+            std::shared_ptr<Function> function;
+            std::shared_ptr<Frame> frame;
+        };
+        inline bool operator==(const TailCall&, const TailCall&) { return false; }
+        inline bool operator!=(const TailCall&, const TailCall&) { return true; }
+
+        using Value = std::variant<Undefined, Void, bool, int32_t, float, std::string, std::shared_ptr<Function>, TailCall>;
+        using FramePtr = std::shared_ptr<Frame>;
+
+        /* closures keep their frame alive, so a function stored in the frame it closes over is never reclaimed */
+        struct Frame {
+            FramePtr parent;
+            std::vector<Value> slots;
+            Frame(FramePtr parent, size_t size) : parent(std::move(parent)), slots(size) {}
+        };
+
+        struct Function {
+            std::vector<std::string> names;
+            std::vector<size_t> slots;
+            size_t frameSize;
+            FramePtr closure;
+            Value (*body)(const FramePtr&);
+        };
+
+        [[noreturn]] inline void fail(const std::string& message) { throw std::runtime_error(message); }
+
+        inline int32_t wrap(int64_t value) { return static_cast<int32_t>(static_cast<uint32_t>(value)); }
+
+        inline Value load(const FramePtr& frame, int depth, size_t slot, const char* name) {
+            Frame* current = frame.get();
+            for (; depth > 0; depth--) { current = current->parent.get(); }
+            const Value& value = current->slots[slot];
+            if (std::holds_alternative<Undefined>(value)) { fail(std::string("Undeclared identifier: ") + name); }
+            return value;
+        }
+
+        inline Value undeclared(const char* name) { fail(std::string("Undeclared identifier: ") + name); }
+
+        inline void define(const FramePtr& frame, size_t slot, Value value, const char* name) {
+            if (!std::holds_alternative<Undefined>(frame->slots[slot])) { fail(std::string("Duplicate identifier: ") + name); }
+            frame->slots[slot] = std::move(value);
+        }
+
+        inline Value makeFunction(FramePtr closure, size_t frameSize, std::vector<size_t> slots, std::vector<std::string> names, Value (*body)(const FramePtr&)) {
+            return std::make_shared<Function>(Function{std::move(names), std::move(slots), frameSize, std::move(closure), body});
+        }
+
+        struct Callee {
+            std::shared_ptr<Function> function;
+
+            Callee(const Value& value, size_t argumentCount, const char* site) {
+                auto* callable = std::get_if<std::shared_ptr<Function>>(&value);
+                if (!callable) { fail(std::string(site) + " is not a function."); }
+                if ((*callable)->slots.size() != argumentCount) {
+                    fail(std::string(site) + " expects " + std::to_string((*callable)->slots.size()) + " arguments. " +
+                        std::to_string(argumentCount) + " arguments were provided.");
+                }
+                function = *callable;
+            }
+
+            FramePtr enter(std::vector<Value> args) const {
+                auto frame = std::make_shared<Frame>(function->closure, function->frameSize);
+                for (size_t i = 0; i < args.size(); i++) { define(frame, function->slots[i], std::move(args[i]), function->names[i].c_str()); }
+                return frame;
+            }
+
+            /* runs the tail calls the body returns in a loop instead of recursing, the frame of each is released before the next one runs */
+            Value call(std::vector<Value> args) const {
+                Value result = function->body(enter(std::move(args)));
+                while (auto* tailCall = std::get_if<TailCall>(&result)) {
+                    TailCall next = std::move(*tailCall);
+                    result = next.function->body(next.frame);
+                }
+                return result;
+            }
+
+            /* the frame is made right away, so arguments are defined at the same point as in a call */
+            Value tailCall(std::vector<Value> args) const {
+                return TailCall{function, enter(std::move(args))};
+            }
+        };
+
+        inline bool clause(const Value& value, const char* message) {
+            if (auto* b = std::get_if<bool>(&value)) { return *b; }
+            fail(message);
+        }
+
+        struct Left {
+            Value value;
+
+            void check(const Value& right, const char* op) const {
+                if (value.index() != right.index()) { fail(std::string("Cannot evaluate: ") + op + " on different types"); }
+            }
+
+            [[noreturn]] void undefined(const char* op) const { fail(std::string("Operator ") + op + " not defined on operands"); }
+
+            Value plus(const Value& right) const {
+                check(right, "+");
+                if (auto* a = std::get_if<int32_t>(&value)) { return wrap(int64_t(*a) + std::get<int32_t>(right)); }
+                if (auto* a = std::get_if<float>(&value)) { return *a + std::get<float>(right); }
+                if (auto* a = std::get_if<std::string>(&value)) { return *a + std::get<std::string>(right); }
+                undefined("+");
+            }
+
+            Value minus(const Value& right) const {
+                check(right, "-");
+                if (auto* a = std::get_if<int32_t>(&value)) { return wrap(int64_t(*a) - std::get<int32_t>(right)); }
+                if (auto* a = std::get_if<float>(&value)) { return *a - std::get<float>(right); }
+                undefined("-");
+            }
+
+            Value multiply(const Value& right) const {
+                check(right, "*");
+                if (auto* a = std::get_if<int32_t>(&value)) { return wrap(int64_t(*a) * std::get<int32_t>(right)); }
+                if (auto* a = std::get_if<float>(&value)) { return *a * std::get<float>(right); }
+                undefined("*");
+            }
+
+            Value divide(const Value& right) const {
+                check(right, "/");
+                if (auto* a = std::get_if<int32_t>(&value)) {
+                    int32_t b = std::get<int32_t>(right);
+                    if (b == 0) { fail("/ by zero"); }
+                    return b == -1 ? wrap(-int64_t(*a)) : *a / b;
+                }
+                if (auto* a = std::get_if<float>(&value)) { return *a / std::get<float>(right); }
+                undefined("/");
+            }
+
+            Value modulo(const Value& right) const {
+                check(right, "%");
+                if (auto* a = std::get_if<int32_t>(&value)) {
+                    int32_t b = std::get<int32_t>(right);
+                    if (b == 0) { fail("/ by zero"); }
+                    return b == -1 ? 0 : *a % b;
+                }
+                undefined("%");
+            }
+
+            template <typename Compare>
+            Value compare(const Value& right, const char* op, Compare compare) const {
+                check(right, op);
+                if (auto* a = std::get_if<int32_t>(&value)) { return compare(*a, std::get<int32_t>(right)); }
+                if (auto* a = std::get_if<float>(&value)) { return compare(*a, std::get<float>(right)); }
+                undefined(op);
+            }
+
+            Value lessThan(const Value& right) const { return compare(right, "<", [](auto a, auto b) { return a < b; }); }
+            Value lessThanOrEqualsTo(const Value& right) const { return compare(right, "<=", [](auto a, auto b) { return a <= b; }); }
+            Value greaterThan(const Value& right) const { return compare(right, ">", [](auto a, auto b) { return a > b; }); }
+            Value greaterThanOrEqualsTo(const Value& right) const { return compare(right, ">=", [](auto a, auto b) { return a >= b; }); }
+
+            Value equalsTo(const Value& right) const {
+                check(right, "==");
+                if (std::holds_alternative<Void>(value) || std::holds_alternative<std::shared_ptr<Function>>(value)) { undefined("=="); }
+                return value == right;
+            }
+
+            Value notEqualsTo(const Value& right) const {
+                check(right, "!=");
+                if (std::holds_alternative<Void>(value) || std::holds_alternative<std::shared_ptr<Function>>(value)) { undefined("!="); }
+                return value != right;
+            }
+
+            Value logicalAnd(const Value& right) const {
+                check(right, "&&");
+                if (auto* a = std::get_if<bool>(&value)) { return *a && std::get<bool>(right); }
+                undefined("&&");
+            }
+
+            Value logicalOr(const Value& right) const {
+                check(right, "||");
+                if (auto* a = std::get_if<bool>(&value)) { return *a || std::get<bool>(right); }
+                undefined("||");
+            }
+        };
+
+        inline Value negate(const Value& value) {
+            if (auto* a = std::get_if<int32_t>(&value)) { return wrap(-int64_t(*a)); }
+            if (auto* a = std::get_if<float>(&value)) { return -*a; }
+            fail("Cannot evaluate: -");
+        }
+
+        inline Value logicalNot(const Value& value) {
+            if (auto* a = std::get_if<bool>(&value)) { return !*a; }
+            fail("Cannot evaluate: !");
+        }
+
+        /* Float.toString: the shortest digits that read back as the same float, plain within [1e-3, 1e7) */
+        inline std::string javaFloat(float value) {
+            if (std::isnan(value)) { return "NaN"; }
+            if (std::isinf(value)) { return value > 0 ? "Infinity" : "-Infinity"; }
+            if (value == 0) { return std::signbit(value) ? "-0.0" : "0.0"; }
+
+            char buffer[32];
+            for (int precision = 0; precision < 9; precision++) {
+                std::snprintf(buffer, sizeof buffer, "%.*e", precision, value);
+                if (std::strtof(buffer, nullptr) == value) { break; }
+            }
+
+            std::string text(buffer);
+            std::string sign = text[0] == '-' ? "-" : "";
+            if (!sign.empty()) { text = text.substr(1); }
+
+            size_t e = text.find('e');
+            int exponent = std::atoi(text.c_str() + e + 1);
+            std::string digits = text.substr(0, e);
+            if (digits.size() > 1) { digits.erase(1, 1); }
+            while (digits.size() > 1 && digits.back() == '0') { digits.pop_back(); }
+
+            float magnitude = std::fabs(value);
+            if (magnitude >= 1e-3f && magnitude < 1e7f) {
+                if (exponent < 0) { return sign + "0." + std::string(-exponent - 1, '0') + digits; }
+                while ((int) digits.size() <= exponent + 1) { digits.push_back('0'); }
+                return sign + digits.substr(0, exponent + 1) + "." + digits.substr(exponent + 1);
+            }
+
+            std::string fraction = digits.size() > 1 ? digits.substr(1) : "0";
+            return sign + digits.substr(0, 1) + "." + fraction + "E" + std::to_string(exponent);
+        }
+
+        inline std::string toString(const Value& value) {
+            if (std::holds_alternative<Void>(value)) { return "Void()"; }
+            if (auto* b = std::get_if<bool>(&value)) { return std::string("Bool(") + (*b ? "true" : "false") + ")"; }
+            if (auto* i = std::get_if<int32_t>(&value)) { return "Int(" + std::to_string(*i) + ")"; }
+            if (auto* f = std::get_if<float>(&value)) { return "Float(" + javaFloat(*f) + ")"; }
+            if (auto* s = std::get_if<std::string>(&value)) { return "String(" + *s + ")"; }
+            if (auto* function = std::get_if<std::shared_ptr<Function>>(&value)) {
+                std::string names;
+                for (const std::string& name: (*function)->names) { names += (names.empty() ? "" : ", ") + name; }
+                return "Function([" + names + "] -> ?)";
+            }
+            return "";
+        }
+
+        }
+
+        """;
+
+    private final StringBuilder out = new StringBuilder();
+    private int indentation = 0;
+
+    /* name of the C++ variable holding the innermost frame */
+    private String frame;
+    private int frameCount = 0;
+
+    public String generate(ProgramNode program) {
+        new Resolver().resolve(program);
+
+        out.append(PRELUDE);
+        line("int main() {");
+        indentation++;
+        line("using namespace ascetic;");
+        line("try {");
+        indentation++;
+
+        frame = newFrame();
+        line("auto " + frame + " = std::make_shared<Frame>(nullptr, " + program.frameSize + ");");
+        line("Value result = [&]() -> Value {");
+        indentation++;
+        for (StatementNode statement: program.children) { generate(statement); }
+        line("return Undefined{};");
+        indentation--;
+        line("}();");
+        line("if (!std::holds_alternative<Undefined>(result)) { std::cout << toString(result) << std::endl; }");
+
+        indentation--;
+        line("} catch (const std::exception& e) {");
+        line("    std::cerr << e.what() << std::endl;");
+        line("    return 1;");
+        line("}");
+        line("return 0;");
+        indentation--;
+        line("}");
+
+        return out.toString();
+    }
+
+    private void generate(StatementNode statement) {
+        if (statement instanceof CommentStatement) { return; }
+
+        if (statement instanceof ExpressionStatement expr) {
+            line("(void) " + expression(expr.expression) + ";");
+            return;
+        }
+
+        if (statement instanceof ReturnStatement ret) {
+            line("return " + expression(ret.returnExpression) + ";");
+            return;
+        }
+
+        if (statement instanceof GuardStatement guard) {
+            String message = quote("Guard statement clause does not evaluate to a boolean");
+            line("if (clause(" + expression(guard.clause) + ", " + message + ")) { return " + codeBlock(guard.body) + "; }");
+            return;
+        }
+
+        if (statement instanceof VariableDeclaration varDecl) {
+            String value = expression(varDecl.assignmentExpression.right);
+            line("define(" + frame + ", " + varDecl.identifier.slot + ", " + value + ", " + quote(name(varDecl.identifier)) + ");");
+            return;
+        }
+
+        throw new IllegalStateException("Missing generation for statement: " + statement.getClass());
+    }
+
+    private String expression(ExpressionNode expression) {
+        if (expression instanceof LiteralExpression literal) {
+            return literal(Operations.literal(literal));
+        }
+
+        if (expression instanceof IdentifierExpression identifier) {
+            if (identifier.depth < 0) { return "undeclared(" + quote(name(identifier)) + ")"; }
+            return "load(" + frame + ", " + identifier.depth + ", " + identifier.slot + ", " + quote(name(identifier)) + ")";
+        }
+
+        if (expression instanceof OperationExpression operation) {
+            return "Left{" + expression(operation.left) + "}." + operator(operation) + "(" + expression(operation.right) + ")";
+        }
+
+        if (expression instanceof GroupedExpression grouped) {
+            return "(" + expression(grouped.expression) + ")";
+        }
+
+        if (expression instanceof PrefixExpression prefixed) {
+            switch (prefixed.prefix.type) {
+                case BANG: { return "logicalNot(" + expression(prefixed.expression) + ")"; }
+                case MINUS: { return "negate(" + expression(prefixed.expression) + ")"; }
+                default: { throw new IllegalStateException("Missing generation for prefix type: " + prefixed.prefix.type); }
+            }
+        }
+
+        if (expression instanceof CodeBlockExpression codeBlock) {
+            return codeBlock(codeBlock);
+        }
+
+        if (expression instanceof IfExpression ifExpression) {
+            return ifExpression(ifExpression);
+        }
+
+        if (expression instanceof FunctionExpression function) {
+            return function(function);
+        }
+
+        if (expression instanceof FunctionCallExpression functionCall) {
+            String site = functionCall.functionIdentifier instanceof IdentifierExpression identifier ? name(identifier) : "expression";
+            String args = functionCall.params.stream().map(this::expression).collect(Collectors.joining(", "));
+            String call = functionCall.isTailCall ? "tailCall" : "call";
+            return "Callee(" + expression(functionCall.functionIdentifier) + ", " + functionCall.params.size() + ", " + quote(site) + ")." + call + "({" + args + "})";
+        }
+
+        throw new IllegalStateException("Missing generation for expression: " + expression.getClass());
+    }
+
+    /**
+     * Emits the statements of the block into an immediately invoked lambda and returns the invocation.
+     */
+    private String codeBlock(CodeBlockExpression codeBlock) {
+        String outerFrame = frame;
+        StringBuilder block = new StringBuilder("[&]() -> Value {\n");
+
+        nested(block, () -> {
+            if (codeBlock.frameSize > 0) {
+                frame = newFrame();
+                line("auto " + frame + " = std::make_shared<Frame>(" + outerFrame + ", " + codeBlock.frameSize + ");");
+            }
+            for (StatementNode statement: codeBlock.children) { generate(statement); }
+            line("return Void{};");
+        });
+
+        frame = outerFrame;
+        return block.append(indent()).append("}()").toString();
+    }
+
+    private String ifExpression(IfExpression ifExpression) {
+        StringBuilder block = new StringBuilder("[&]() -> Value {\n");
+
+        nested(block, () -> {
+            String message = quote("If expression clause does not evaluate to a boolean");
+            for (int i = 0; i < ifExpression.conditions.size(); i++) {
+                String condition = expression(ifExpression.conditions.get(i));
+                line("if (clause(" + condition + ", " + message + ")) { return " + codeBlock(ifExpression.blocks.get(i)) + "; }");
+            }
+
+            boolean hasElse = ifExpression.blocks.size() > ifExpression.conditions.size();
+            line("return " + (hasElse ? codeBlock(ifExpression.blocks.get(ifExpression.conditions.size())) : "Void{}") + ";");
+        });
+
+        return block.append(indent()).append("}()").toString();
+    }
+
+    /**
+     * The body runs directly in the call frame, see {@link Resolver}.
+     */
+    private String function(FunctionExpression function) {
+        String outerFrame = frame;
+        String slots = function.params.stream().map(param -> String.valueOf(param.slot)).collect(Collectors.joining(", "));
+        String names = function.params.stream().map(param -> quote(name(param))).collect(Collectors.joining(", "));
+
+        frame = newFrame();
+        StringBuilder block = new StringBuilder("makeFunction(" + outerFrame + ", " + function.frameSize + ", {" + slots + "}, {" + names + "}, ");
+        block.append("[](const FramePtr& ").append(frame).append(") -> Value {\n");
+
+        nested(block, () -> {
+            for (StatementNode statement: function.block.children) { generate(statement); }
+            line("return Void{};");
+        });
+
+        frame = outerFrame;
+        return block.append(indent()).append("})").toString();
+    }
+
+    /**
+     * Lines emitted by {@code body} go into {@code block} one level deeper instead of the output.
+     */
+    private void nested(StringBuilder block, Runnable body) {
+        int mark = out.length();
+        indentation++;
+        body.run();
+        indentation--;
+
+        block.append(out, mark, out.length());
+        out.setLength(mark);
+    }
+
+    private String operator(OperationExpression operation) {
+        switch (operation.operator.type) {
+            case PLUS: { return "plus"; }
+            case MINUS: { return "minus"; }
+            case MULTIPLY: { return "multiply"; }
+            case DIVIDE: { return "divide"; }
+            case MODULO: { return "modulo"; }
+            case LESS_THAN: { return "lessThan"; }
+            case LESS_THAN_OR_EQUALS_TO: { return "lessThanOrEqualsTo"; }
+            case GREATER_THAN: { return "greaterThan"; }
+            case GREATER_THAN_OR_EQUALS_TO: { return "greaterThanOrEqualsTo"; }
+            case EQUALS_TO: { return "equalsTo"; }
+            case NOT_EQUALS_TO: { return "notEqualsTo"; }
+            case AND: { return "logicalAnd"; }
+            case OR: { return "logicalOr"; }
+
+            default: { throw new IllegalStateException("Missing generation for operator type: " + operation.operator.type); }
+        }
+    }
+
+    private static String literal(Builtin.Any value) {
+        if (value instanceof Builtin.Bool bool) { return "Value(" + bool.value + ")"; }
+        if (value instanceof Builtin.Int i) { return "Value(int32_t(" + i.value + "))"; }
+        if (value instanceof Builtin.Float f) { return "Value(float(" + java.lang.Float.toHexString(f.value) + "f))"; }
+        if (value instanceof Builtin.String s) { return "Value(std::string(" + quote(s.value) + ", " + s.value.getBytes(StandardCharsets.UTF_8).length + "))"; }
+
+        throw new IllegalStateException("Missing generation for literal: " + value);
+    }
+
+    /**
+     * Non-printable and non-ASCII bytes become octal escapes, which unlike hex escapes cannot swallow the characters after them.
+     */
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (byte b: text.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xff;
+            if (c == '"' || c == '\\') { quoted.append('\\').append((char) c); }
+            else if (c >= 0x20 && c < 0x7f && c != '?') { quoted.append((char) c); }
+            else { quoted.append(String.format("\\%03o", c)); }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String name(IdentifierExpression identifier) {
+        return identifier.identifier.text();
+    }
+
+    private String newFrame() {
+        return "f" + frameCount++;
+    }
+
+    private String indent() {
+        return "    ".repeat(indentation);
+    }
+
+    private void line(String text) {
+        out.append(indent()).append(text).append('\n');
+    }
+}
@@ -0,0 +1,68 @@
+package compiler;
+
+import java.util.List;
+
+import ast.AbstractSyntaxTreeNode;
+import ast.exprs.IdentifierExpression;
+import interpreter.builtins.Builtin;
+
+/**
+ * Compiled body of the program or of a single function expression.
+ */
+public final class Chunk {
+    public final String name;
+    public final int[] code;
+    public final Builtin.Any[] constants;
+    public final Chunk[] functions;
+    public final AbstractSyntaxTreeNode[] nodes;
+
+    /* slots of the frame the chunk runs in, the params take the first slots of a function */
+    public final int frameSize;
+    public final List<IdentifierExpression> params;
+
+    /* the most values the chunk keeps on the operand stack at once */
+    public final int maxStackSize;
+
+    public Chunk(String name, int[] code, Builtin.Any[] constants, Chunk[] functions, AbstractSyntaxTreeNode[] nodes, int frameSize, List<IdentifierExpression> params, int maxStackSize) {
+        this.name = name;
+        this.code = code;
+        this.constants = constants;
+        this.functions = functions;
+        this.nodes = nodes;
+        this.frameSize = frameSize;
+        this.params = params;
+        this.maxStackSize = maxStackSize;
+    }
+
+    public int arity() {
+        return params.size();
+    }
+
+    /** @return a human readable listing of the instructions */
+    public String disassemble() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("== ").append(name).append(" ==\n");
+
+        for (int ip = 0; ip < code.length; ip += 1 + OpCode.operandCount(code[ip])) {
+            builder.append(String.format("%04d %s", ip, OpCode.nameOf(code[ip])));
+            for (int i = 1; i <= OpCode.operandCount(code[ip]); i++) {
+                builder.append(' ').append(code[ip + i]);
+            }
+            if (code[ip] == OpCode.CONSTANT) {
+                builder.append(" ; ").append(constants[code[ip + 1]]);
+            }
+            builder.append('\n');
+        }
+
+        for (Chunk function: functions) {
+            builder.append('\n').append(function.disassemble());
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return disassemble();
+    }
+}
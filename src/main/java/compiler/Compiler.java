@@ -0,0 +1,278 @@
+package compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import analyzer.Resolver;
+import ast.*;
+import ast.exprs.*;
+import ast.stmts.*;
+import interpreter.Operations;
+import interpreter.builtins.Builtin;
+
+/**
+ * Lowers a {@link ProgramNode} into {@link Chunk}s for {@link vm.VirtualMachine}.
+ * <p>
+ * A code block leaves exactly one value on the stack.
+ * {@code return} and a taken {@code guard} jump to the exit of the innermost code block with their value,
+ * except in a function body where they return to the caller, and at the program level where they halt.
+ */
+public class Compiler {
+    private static class ChunkBuilder {
+        int[] code = new int[64];
+        int size = 0;
+        int stackSize = 0;
+        int maxStackSize = 0;
+        final List<Builtin.Any> constants = new ArrayList<>();
+        final List<Chunk> functions = new ArrayList<>();
+        final List<AbstractSyntaxTreeNode> nodes = new ArrayList<>();
+
+        void emit(int value) {
+            if (size == code.length) { code = Arrays.copyOf(code, size * 2); }
+            code[size++] = value;
+        }
+
+        Chunk build(String name, int frameSize, List<IdentifierExpression> params) {
+            return new Chunk(
+                name,
+                Arrays.copyOf(code, size),
+                constants.toArray(Builtin.Any[]::new),
+                functions.toArray(Chunk[]::new),
+                nodes.toArray(AbstractSyntaxTreeNode[]::new),
+                frameSize,
+                params,
+                maxStackSize
+            );
+        }
+    }
+
+    private ChunkBuilder current;
+
+    /* compile tail calls as regular calls to keep every caller on the call stack when debugging */
+    private boolean eliminateTailCalls = true;
+
+    public void setEliminateTailCalls(boolean eliminateTailCalls) {
+        this.eliminateTailCalls = eliminateTailCalls;
+    }
+
+    public Chunk compile(ProgramNode program) {
+        new Resolver().resolve(program);
+        current = new ChunkBuilder();
+
+        boolean halted = compileStatements(program.children, () -> emit(OpCode.HALT));
+        if (!halted) { emit(OpCode.EXIT); }
+
+        return current.build("program", program.frameSize, List.of());
+    }
+
+    private void emit(int opCode, int... operands) {
+        current.emit(opCode);
+        for (int operand: operands) { current.emit(operand); }
+
+        boolean isCall = opCode == OpCode.CALL || opCode == OpCode.TAIL_CALL;
+        current.stackSize += OpCode.stackEffect(opCode) - (isCall ? operands[0] : 0);
+        current.maxStackSize = Math.max(current.maxStackSize, current.stackSize);
+    }
+
+    /** @return the position of the jump target operand to patch */
+    private int emitJump(int opCode, int... operands) {
+        int[] jumpOperands = new int[operands.length + 1];
+        System.arraycopy(operands, 0, jumpOperands, 1, operands.length);
+        emit(opCode, jumpOperands);
+        return current.size - operands.length - 1;
+    }
+
+    private void patchJump(int targetPosition) {
+        current.code[targetPosition] = current.size;
+    }
+
+    private int node(AbstractSyntaxTreeNode node) {
+        current.nodes.add(node);
+        return current.nodes.size() - 1;
+    }
+
+    /**
+     * @param exit emits the instructions that leave the enclosing block with the value on top of the stack
+     * @return if the statements unconditionally exit
+     */
+    private boolean compileStatements(List<StatementNode> statements, Runnable exit) {
+        for (StatementNode statement: statements) {
+            if (statement instanceof ReturnStatement ret) {
+                compile(ret.returnExpression);
+                exit.run();
+                return true;
+            }
+
+            if (statement instanceof GuardStatement guard) {
+                compile(guard.clause);
+                int skip = emitJump(OpCode.JUMP_IF_FALSE, node(guard));
+                int stackSize = current.stackSize;
+                compileCodeBlock(guard.body);
+                exit.run();
+                current.stackSize = stackSize;
+                patchJump(skip);
+                continue;
+            }
+
+            compile(statement);
+        }
+
+        return false;
+    }
+
+    private void compile(StatementNode statement) {
+        if (statement instanceof CommentStatement) { return; }
+
+        if (statement instanceof ExpressionStatement expr) {
+            compile(expr.expression);
+            emit(OpCode.POP);
+            return;
+        }
+
+        if (statement instanceof VariableDeclaration varDecl) {
+            compile(varDecl.assignmentExpression.right);
+            emit(OpCode.DEFINE, varDecl.identifier.slot, node(varDecl.identifier));
+            return;
+        }
+
+        throw new IllegalStateException("Missing compilation for statement: " + statement.getClass());
+    }
+
+    private void compile(ExpressionNode expression) {
+        if (expression instanceof LiteralExpression literal) {
+            current.constants.add(Operations.literal(literal));
+            emit(OpCode.CONSTANT, current.constants.size() - 1);
+            return;
+        }
+
+        if (expression instanceof IdentifierExpression identifier) {
+            if (identifier.depth < 0) { emit(OpCode.UNDECLARED, node(identifier)); }
+            else if (identifier.depth == 0) { emit(OpCode.LOAD_LOCAL, identifier.slot, node(identifier)); }
+            else { emit(OpCode.LOAD, identifier.depth, identifier.slot, node(identifier)); }
+            return;
+        }
+
+        if (expression instanceof OperationExpression operation) {
+            compile(operation.left);
+            compile(operation.right);
+            emit(binaryOpCode(operation), node(operation));
+            return;
+        }
+
+        if (expression instanceof GroupedExpression grouped) {
+            compile(grouped.expression);
+            return;
+        }
+
+        if (expression instanceof PrefixExpression prefixed) {
+            compile(prefixed.expression);
+            emit(OpCode.PREFIX, node(prefixed));
+            return;
+        }
+
+        if (expression instanceof CodeBlockExpression codeBlock) {
+            compileCodeBlock(codeBlock);
+            return;
+        }
+
+        if (expression instanceof IfExpression ifExpression) {
+            compileIfExpression(ifExpression);
+            return;
+        }
+
+        if (expression instanceof FunctionExpression function) {
+            current.functions.add(compileFunction(function));
+            emit(OpCode.CLOSURE, current.functions.size() - 1);
+            return;
+        }
+
+        if (expression instanceof FunctionCallExpression functionCall) {
+            compile(functionCall.functionIdentifier);
+            for (ExpressionNode param: functionCall.params) { compile(param); }
+            int opCode = functionCall.isTailCall && eliminateTailCalls ? OpCode.TAIL_CALL : OpCode.CALL;
+            emit(opCode, functionCall.params.size(), node(functionCall));
+            return;
+        }
+
+        throw new IllegalStateException("Missing compilation for expression: " + expression.getClass());
+    }
+
+    private int binaryOpCode(OperationExpression operation) {
+        switch (operation.operator.type) {
+            case PLUS: { return OpCode.ADD; }
+            case MINUS: { return OpCode.SUBTRACT; }
+            case MULTIPLY: { return OpCode.MULTIPLY; }
+            case DIVIDE: { return OpCode.DIVIDE; }
+            case MODULO: { return OpCode.MODULO; }
+            case LESS_THAN: { return OpCode.LESS_THAN; }
+            case LESS_THAN_OR_EQUALS_TO: { return OpCode.LESS_THAN_OR_EQUALS_TO; }
+            case GREATER_THAN: { return OpCode.GREATER_THAN; }
+            case GREATER_THAN_OR_EQUALS_TO: { return OpCode.GREATER_THAN_OR_EQUALS_TO; }
+            case EQUALS_TO: { return OpCode.EQUALS_TO; }
+            case NOT_EQUALS_TO: { return OpCode.NOT_EQUALS_TO; }
+            case AND: { return OpCode.AND; }
+            case OR: { return OpCode.OR; }
+            default: { return OpCode.BINARY; }
+        }
+    }
+
+    private void compileCodeBlock(CodeBlockExpression codeBlock) {
+        int stackSize = current.stackSize;
+        boolean hasFrame = codeBlock.frameSize > 0;
+        if (hasFrame) { emit(OpCode.ENTER, codeBlock.frameSize); }
+
+        List<Integer> exits = new ArrayList<>();
+        boolean returned = compileStatements(codeBlock.children, () -> exits.add(emitJump(OpCode.JUMP)));
+
+        if (returned) {
+            /* the final exit would only jump over itself */
+            current.size -= 2;
+            exits.remove(exits.size() - 1);
+        } else {
+            emit(OpCode.VOID);
+        }
+
+        for (int exit: exits) { patchJump(exit); }
+        current.stackSize = stackSize + 1;
+        if (hasFrame) { emit(OpCode.LEAVE); }
+    }
+
+    private void compileIfExpression(IfExpression ifExpression) {
+        int stackSize = current.stackSize;
+        List<Integer> ends = new ArrayList<>();
+
+        for (int i = 0; i < ifExpression.conditions.size(); i++) {
+            compile(ifExpression.conditions.get(i));
+            int next = emitJump(OpCode.JUMP_IF_FALSE, node(ifExpression.conditions.get(i)));
+            compileCodeBlock(ifExpression.blocks.get(i));
+            ends.add(emitJump(OpCode.JUMP));
+            current.stackSize = stackSize;
+            patchJump(next);
+        }
+
+        if (ifExpression.conditions.size() < ifExpression.blocks.size()) {
+            compileCodeBlock(ifExpression.blocks.get(ifExpression.conditions.size()));
+        } else {
+            emit(OpCode.VOID);
+        }
+
+        for (int end: ends) { patchJump(end); }
+    }
+
+    /**
+     * The body runs directly in the call frame, so it returns instead of jumping to its own exit.
+     */
+    private Chunk compileFunction(FunctionExpression function) {
+        ChunkBuilder enclosing = current;
+        current = new ChunkBuilder();
+
+        boolean returned = compileStatements(function.block.children, () -> emit(OpCode.RETURN));
+        if (!returned) { emit(OpCode.VOID); emit(OpCode.RETURN); }
+
+        List<String> paramNames = function.params.stream().map(param -> param.identifier.text()).toList();
+        Chunk chunk = current.build("function" + paramNames, function.frameSize, function.params);
+        current = enclosing;
+        return chunk;
+    }
+}
@@ -0,0 +1,115 @@
+package compiler;
+
+/**
+ * Instruction set of the stack machine in {@link vm.VirtualMachine}.
+ * <p>
+ * Every instruction is an opcode followed by a fixed number of int operands in {@link Chunk#code}.
+ * Operands named {@code node} index into {@link Chunk#nodes} and are only used for diagnostics.
+ */
+public final class OpCode {
+    private OpCode() {}
+
+    /* CONSTANT index: push constants[index] */
+    public static final int CONSTANT = 0;
+    /* VOID: push Void() */
+    public static final int VOID = 1;
+    /* POP: discard the top of the stack */
+    public static final int POP = 2;
+
+    /* LOAD_LOCAL slot node: push a slot of the current frame */
+    public static final int LOAD_LOCAL = 3;
+    /* LOAD depth slot node: push a slot of the frame depth hops outwards */
+    public static final int LOAD = 4;
+    /* UNDECLARED node: throw for a reference the resolver could not find */
+    public static final int UNDECLARED = 5;
+    /* DEFINE slot node: pop into an empty slot of the current frame */
+    public static final int DEFINE = 6;
+
+    /* binary operators, operand node: pop right, pop left, push result */
+    public static final int ADD = 7;
+    public static final int SUBTRACT = 8;
+    public static final int MULTIPLY = 9;
+    public static final int DIVIDE = 10;
+    public static final int MODULO = 11;
+    public static final int LESS_THAN = 12;
+    public static final int LESS_THAN_OR_EQUALS_TO = 13;
+    public static final int GREATER_THAN = 14;
+    public static final int GREATER_THAN_OR_EQUALS_TO = 15;
+    public static final int EQUALS_TO = 16;
+    public static final int NOT_EQUALS_TO = 17;
+    public static final int AND = 18;
+    public static final int OR = 19;
+    /* any other binary operator, operand node */
+    public static final int BINARY = 20;
+    /* PREFIX node: apply a prefix operator to the top of the stack */
+    public static final int PREFIX = 21;
+
+    /* JUMP target */
+    public static final int JUMP = 22;
+    /* JUMP_IF_FALSE target node: pop a Bool, jump if it is false */
+    public static final int JUMP_IF_FALSE = 23;
+
+    /* ENTER frameSize: push a code block frame */
+    public static final int ENTER = 24;
+    /* LEAVE: pop a code block frame */
+    public static final int LEAVE = 25;
+
+    /* CLOSURE index: push a function closing over the current frame */
+    public static final int CLOSURE = 26;
+    /* CALL argumentCount node: call the function below the arguments */
+    public static final int CALL = 27;
+    /* RETURN: pop the result and return to the caller */
+    public static final int RETURN = 28;
+
+    /* HALT: stop with the top of the stack as the program result */
+    public static final int HALT = 29;
+    /* EXIT: stop without a program result */
+    public static final int EXIT = 30;
+
+    /* TAIL_CALL argumentCount node: replace the current call with a call to the function below the arguments */
+    public static final int TAIL_CALL = 31;
+
+    static final String[] names = new String[] {
+        "CONSTANT", "VOID", "POP",
+        "LOAD_LOCAL", "LOAD", "UNDECLARED", "DEFINE",
+        "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "MODULO",
+        "LESS_THAN", "LESS_THAN_OR_EQUALS_TO", "GREATER_THAN", "GREATER_THAN_OR_EQUALS_TO", "EQUALS_TO", "NOT_EQUALS_TO",
+        "AND", "OR", "BINARY", "PREFIX",
+        "JUMP", "JUMP_IF_FALSE",
+        "ENTER", "LEAVE",
+        "CLOSURE", "CALL", "RETURN",
+        "HALT", "EXIT",
+        "TAIL_CALL",
+    };
+
+    static final int[] operandCounts = new int[] {
+        1, 0, 0,
+        2, 3, 1, 2,
+        1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1,
+        1, 2,
+        1, 0,
+        1, 2, 0,
+        0, 0,
+        2,
+    };
+
+    /* change in stack size, CALL and TAIL_CALL additionally pop their arguments */
+    static final int[] stackEffects = new int[] {
+        1, 1, -1,
+        1, 1, 1, -1,
+        -1, -1, -1, -1, -1,
+        -1, -1, -1, -1, -1, -1,
+        -1, -1, -1, 0,
+        0, -1,
+        0, 0,
+        1, 0, -1,
+        -1, 0,
+        0,
+    };
+
+    public static String nameOf(int opCode) { return names[opCode]; }
+    public static int operandCount(int opCode) { return operandCounts[opCode]; }
+    public static int stackEffect(int opCode) { return stackEffects[opCode]; }
+}
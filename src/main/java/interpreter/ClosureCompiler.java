@@ -0,0 +1,321 @@
+package interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.ExpressionNode;
+import ast.StatementNode;
+import ast.exprs.*;
+import ast.stmts.*;
+import errors.analyzer.DuplicateIdentifierException;
+import errors.analyzer.UndeclaredIdentifierException;
+import interpreter.builtins.Builtin;
+
+/**
+ * Second tier of the {@link Interpreter}: translates the body of a hot function into a tree of Java lambdas.
+ * <p>
+ * Every node is dispatched on once, at compile time, instead of on every evaluation,
+ * and each lambda is a class of its own that the JVM can inline and optimize for the operands it sees.
+ * Integer arithmetic and comparisons get their own lambdas that skip the {@link interpreter.nodes.BinaryNode}s.
+ * <p>
+ * Compiled code follows the conventions of {@link Interpreter#interpret}: a statement evaluates to null
+ * unless it exits its code block, in which case it evaluates to the value of the block.
+ */
+public final class ClosureCompiler {
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    @FunctionalInterface
+    public interface Code {
+        Builtin.Any execute(Interpreter interpreter, Frame frame) throws UndeclaredIdentifierException, DuplicateIdentifierException;
+    }
+
+    private static final class UnsupportedNodeException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedNodeException(Object node) {
+            super("Cannot compile: " + node.getClass().getSimpleName(), null, false, false);
+        }
+    }
+
+    private ClosureCompiler() {}
+
+    /**
+     * Counts an invocation of the function and compiles it once it has been invoked {@code threshold} times.
+     *
+     * @return the compiled body of the function, null while it is still interpreted
+     */
+    static Code compiled(FunctionExpression function, int threshold) {
+        if (function.compiled != null || threshold < 0) { return function.compiled; }
+        if (++function.invocationCount < threshold) { return null; }
+
+        try {
+            function.compiled = compileBlock(function.block);
+        } catch (UnsupportedNodeException e) {
+            /* never try again */
+            function.invocationCount = Integer.MIN_VALUE;
+        }
+        return function.compiled;
+    }
+
+    private static Code compileBlock(CodeBlockExpression codeBlock) throws UnsupportedNodeException {
+        List<Code> compiled = new ArrayList<>();
+        for (StatementNode statement: codeBlock.children) {
+            if (statement instanceof CommentStatement) { continue; }
+            compiled.add(compile(statement));
+        }
+        Code[] statements = compiled.toArray(Code[]::new);
+
+        if (codeBlock.frameSize == 0) {
+            return (interpreter, frame) -> {
+                for (Code statement: statements) {
+                    Builtin.Any result = statement.execute(interpreter, frame);
+                    if (result != null) { return result; }
+                }
+                return Builtin.Void.value();
+            };
+        }
+
+        int frameSize = codeBlock.frameSize;
+        return (interpreter, frame) -> {
+            Frame blockFrame = frame.child(frameSize);
+            for (Code statement: statements) {
+                Builtin.Any result = statement.execute(interpreter, blockFrame);
+                if (result != null) { return result; }
+            }
+            return Builtin.Void.value();
+        };
+    }
+
+    private static Code compile(StatementNode statement) throws UnsupportedNodeException {
+        if (statement instanceof ExpressionStatement expr) {
+            Code expression = compile(expr.expression);
+            return (interpreter, frame) -> {
+                expression.execute(interpreter, frame);
+                return null;
+            };
+        }
+
+        if (statement instanceof ReturnStatement ret) {
+            return compile(ret.returnExpression);
+        }
+
+        if (statement instanceof GuardStatement guard) {
+            Code clause = compile(guard.clause);
+            Code body = compileBlock(guard.body);
+            return (interpreter, frame) -> {
+                Builtin.Any clauseResult = clause.execute(interpreter, frame);
+                if (clauseResult == Builtin.Bool.TRUE) { return body.execute(interpreter, frame); }
+                if (clauseResult == Builtin.Bool.FALSE) { return null; }
+                throw new RuntimeException("Guard statement clause does not evaluate to a boolean: " + guard);
+            };
+        }
+
+        if (statement instanceof VariableDeclaration varDecl) {
+            IdentifierExpression identifier = varDecl.identifier;
+            Code value = compile(varDecl.assignmentExpression.right);
+            return (interpreter, frame) -> {
+                frame.define(identifier, value.execute(interpreter, frame));
+                return null;
+            };
+        }
+
+        throw new UnsupportedNodeException(statement);
+    }
+
+    private static Code compile(ExpressionNode expression) throws UnsupportedNodeException {
+        if (expression instanceof LiteralExpression literal) {
+            Builtin.Any value = Operations.literal(literal);
+            return (interpreter, frame) -> value;
+        }
+
+        if (expression instanceof IdentifierExpression identifier) {
+            return compileIdentifier(identifier);
+        }
+
+        if (expression instanceof OperationExpression operation) {
+            return compileOperation(operation);
+        }
+
+        if (expression instanceof GroupedExpression grouped) {
+            return compile(grouped.expression);
+        }
+
+        if (expression instanceof PrefixExpression prefixed) {
+            Code operand = compile(prefixed.expression);
+            return (interpreter, frame) -> Operations.prefix(prefixed.prefix, operand.execute(interpreter, frame));
+        }
+
+        if (expression instanceof CodeBlockExpression codeBlock) {
+            return compileBlock(codeBlock);
+        }
+
+        if (expression instanceof IfExpression ifExpression) {
+            return compileIfExpression(ifExpression);
+        }
+
+        if (expression instanceof FunctionExpression function) {
+            return (interpreter, frame) -> Builtin.Function.of(function, frame);
+        }
+
+        if (expression instanceof FunctionCallExpression functionCall) {
+            return compileFunctionCall(functionCall);
+        }
+
+        throw new UnsupportedNodeException(expression);
+    }
+
+    private static Code compileIdentifier(IdentifierExpression identifier) {
+        int slot = identifier.slot;
+
+        switch (identifier.depth) {
+            case -1: {
+                return (interpreter, frame) -> { throw new UndeclaredIdentifierException(identifier); };
+            }
+
+            case 0: {
+                return (interpreter, frame) -> {
+                    Builtin.Any value = frame.slots[slot];
+                    if (value == null) { throw new UndeclaredIdentifierException(identifier); }
+                    return value;
+                };
+            }
+
+            case 1: {
+                return (interpreter, frame) -> {
+                    Builtin.Any value = frame.parent.slots[slot];
+                    if (value == null) { throw new UndeclaredIdentifierException(identifier); }
+                    return value;
+                };
+            }
+
+            default: {
+                return (interpreter, frame) -> frame.load(identifier);
+            }
+        }
+    }
+
+    private static Code compileOperation(OperationExpression operation) throws UnsupportedNodeException {
+        Code left = compile(operation.left);
+        Code right = compile(operation.right);
+
+        switch (operation.operator.type) {
+            case PLUS: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Int.of(a.value + b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case MINUS: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Int.of(a.value - b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case MULTIPLY: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Int.of(a.value * b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case LESS_THAN: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Bool.of(a.value < b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case LESS_THAN_OR_EQUALS_TO: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Bool.of(a.value <= b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case GREATER_THAN: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Bool.of(a.value > b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case GREATER_THAN_OR_EQUALS_TO: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Bool.of(a.value >= b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            case EQUALS_TO: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    if (l instanceof Builtin.Int a && r instanceof Builtin.Int b) { return Builtin.Bool.of(a.value == b.value); }
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+
+            default: {
+                return (interpreter, frame) -> {
+                    Builtin.Any l = left.execute(interpreter, frame), r = right.execute(interpreter, frame);
+                    return operation.node.execute(operation, l, r);
+                };
+            }
+        }
+    }
+
+    private static Code compileIfExpression(IfExpression ifExpression) throws UnsupportedNodeException {
+        Code[] conditions = new Code[ifExpression.conditions.size()];
+        for (int i = 0; i < conditions.length; i++) { conditions[i] = compile(ifExpression.conditions.get(i)); }
+
+        Code[] blocks = new Code[ifExpression.blocks.size()];
+        for (int i = 0; i < blocks.length; i++) { blocks[i] = compileBlock(ifExpression.blocks.get(i)); }
+
+        return (interpreter, frame) -> {
+            for (int i = 0; i < conditions.length; i++) {
+                Builtin.Any clauseResult = conditions[i].execute(interpreter, frame);
+                if (clauseResult == Builtin.Bool.TRUE) { return blocks[i].execute(interpreter, frame); }
+                if (clauseResult != Builtin.Bool.FALSE) {
+                    throw new RuntimeException("If expression clause does not evaluate to a boolean: " + ifExpression.conditions.get(i));
+                }
+            }
+
+            if (conditions.length < blocks.length) { return blocks[conditions.length].execute(interpreter, frame); }
+            return Builtin.Void.value();
+        };
+    }
+
+    private static Code compileFunctionCall(FunctionCallExpression functionCall) throws UnsupportedNodeException {
+        Code callee = compile(functionCall.functionIdentifier);
+        Code[] params = new Code[functionCall.params.size()];
+        for (int i = 0; i < params.length; i++) { params[i] = compile(functionCall.params.get(i)); }
+        boolean isTailCall = functionCall.isTailCall;
+
+        return (interpreter, frame) -> {
+            Builtin.Any value = callee.execute(interpreter, frame);
+
+            if (!(value instanceof Builtin.Function function)) {
+                throw new RuntimeException(functionCall.functionIdentifier + " is not a function.");
+            }
+
+            if (function.arity() != params.length) {
+                throw new RuntimeException(functionCall.functionIdentifier + " expects " + function.arity() + " arguments. " +
+                    params.length + " arguments were provided at call site: " + functionCall);
+            }
+
+            var args = new ArrayList<Builtin.Any>(params.length);
+            for (Code param: params) { args.add(param.execute(interpreter, frame)); }
+
+            if (isTailCall && interpreter.eliminatesTailCalls()) { return new TailCall(function, args); }
+            return interpreter.invoke(function, args);
+        };
+    }
+}
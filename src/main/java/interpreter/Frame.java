@@ -0,0 +1,64 @@
+package interpreter;
+
+import java.util.Arrays;
+
+import ast.exprs.IdentifierExpression;
+import errors.analyzer.DuplicateIdentifierException;
+import errors.analyzer.UndeclaredIdentifierException;
+import interpreter.builtins.Builtin;
+import table.scopes.Scope;
+
+/**
+ * Activation record of a program, function call, or code block.
+ * <p>
+ * Frames are only referenced by the frames nested in them and by the {@link Builtin.Function}s that capture them,
+ * so a frame can be collected as soon as its call returns unless a closure escaped with it.
+ */
+public final class Frame {
+    /* only replaced when the frame of a streamed program grows */
+    public Builtin.Any[] slots;
+    public final Frame parent;
+
+    /* mirror of this frame in the scope tree, null unless the interpreter was asked to record scopes */
+    public final Scope scope;
+
+    public Frame(Frame parent, int frameSize, Scope scope) {
+        this.slots = new Builtin.Any[frameSize];
+        this.parent = parent;
+        this.scope = scope;
+    }
+
+    /** Makes room for the slots allocated by statements resolved after the frame was created. */
+    public void grow(int frameSize) {
+        if (frameSize > slots.length) { slots = Arrays.copyOf(slots, Math.max(frameSize, slots.length << 1)); }
+    }
+
+    public Frame child(int frameSize) {
+        return new Frame(this, frameSize, scope == null ? null : scope.addAnonymousCodeBlock());
+    }
+
+    /**
+     * @param identifier a reference resolved by analyzer.Resolver
+     * @return the value stored {@code identifier.depth} frames outwards
+     */
+    public Builtin.Any load(IdentifierExpression identifier) throws UndeclaredIdentifierException {
+        if (identifier.depth < 0) { throw new UndeclaredIdentifierException(identifier); }
+
+        Frame frame = this;
+        for (int depth = identifier.depth; depth > 0; depth--) { frame = frame.parent; }
+
+        Builtin.Any value = frame.slots[identifier.slot];
+        if (value == null) { throw new UndeclaredIdentifierException(identifier); }
+        return value;
+    }
+
+    /**
+     * @param identifier a declaration resolved by analyzer.Resolver
+     */
+    public void define(IdentifierExpression identifier, Builtin.Any value) throws DuplicateIdentifierException {
+        if (slots[identifier.slot] != null) { throw new DuplicateIdentifierException(identifier); }
+        slots[identifier.slot] = value;
+
+        if (scope != null) { scope.declareAndDefineValue(identifier, value); }
+    }
+}
@@ -1,14 +1,15 @@
 package interpreter;
 
+import analyzer.Resolver;
 import errors.analyzer.DuplicateIdentifierException;
 import errors.analyzer.UndeclaredIdentifierException;
+import errors.parser.UnexpectedTokenException;
 import interpreter.builtins.Builtin;
+import parser.Parser;
 import table.scopes.ProgramScope;
-import table.scopes.Scope;
-import table.symbols.compiled.CompiledFunctionSymbol;
-import table.symbols.compiled.CompiledSymbol;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import ast.*;
 import ast.exprs.*;
@@ -17,12 +18,40 @@ import ast.stmts.*;
 public class Interpreter {
     private ProgramNode AST; 
     private ProgramScope programScope;
-    public Scope currentScope;
+    private Resolver resolver = new Resolver();
+    public Frame currentFrame;
 
+    /* tail calls reuse the invocation of their caller, disable to keep every call on the Java stack when debugging */
+    private boolean eliminateTailCalls = true;
+
+    /* functions invoked this many times are compiled by the ClosureCompiler, negative to always interpret */
+    private int compileThreshold = ClosureCompiler.DEFAULT_THRESHOLD;
+
+    public Interpreter(ProgramNode AST) {
+        this(AST, null);
+    }
+
+    /**
+     * @param programScope if not null, every frame is mirrored into this scope tree for debugging and the REPL
+     */
     public Interpreter(ProgramNode AST, ProgramScope programScope) {
         this.AST = AST;
         this.programScope = programScope;
-        this.currentScope = programScope;
+
+        resolver.resolve(AST);
+        this.currentFrame = new Frame(null, AST.frameSize, programScope);
+    }
+
+    public void setEliminateTailCalls(boolean eliminateTailCalls) {
+        this.eliminateTailCalls = eliminateTailCalls;
+    }
+
+    boolean eliminatesTailCalls() {
+        return eliminateTailCalls;
+    }
+
+    public void setCompileThreshold(int compileThreshold) {
+        this.compileThreshold = compileThreshold;
     }
 
     public String run() throws UndeclaredIdentifierException, DuplicateIdentifierException {
@@ -37,6 +66,25 @@ public class Interpreter {
         return "";
     }
 
+    /**
+     * Runs each top-level statement as soon as the parser produces it, instead of parsing the whole program first.
+     * The statements are not added to the AST of the interpreter, so they can be collected once they ran.
+     */
+    public String run(Parser parser) throws UnexpectedTokenException, UndeclaredIdentifierException, DuplicateIdentifierException {
+        for (StatementNode statement = parser.nextStatement(); statement != null; statement = parser.nextStatement()) {
+            resolver.resolveNext(AST, statement);
+            currentFrame.grow(AST.frameSize);
+
+            Builtin.Any result = interpret(statement);
+            if (statement instanceof ReturnStatement 
+                || statement instanceof GuardStatement && result != null) {
+                return result.toString();
+            }
+        }
+
+        return "";
+    }
+
     public Builtin.Any interpret(StatementNode statement) throws UndeclaredIdentifierException, DuplicateIdentifierException {
         if (statement instanceof CommentStatement) {
             return Builtin.Void.value();
@@ -61,7 +109,7 @@ public class Interpreter {
 
         if (statement instanceof VariableDeclaration varDecl) {
             var value = evaluate(varDecl.assignmentExpression.right);
-            currentScope.declareAndDefineValue(varDecl.identifier, value);
+            currentFrame.define(varDecl.identifier, value);
             return value;
         }
 
@@ -74,8 +122,7 @@ public class Interpreter {
         }
 
         if (expression instanceof IdentifierExpression identifier) {
-            CompiledSymbol symbol = (CompiledSymbol) currentScope.find(identifier);
-            return symbol.value;
+            return currentFrame.load(identifier);
         }
 
         if (expression instanceof OperationExpression operation) {
@@ -95,9 +142,11 @@ public class Interpreter {
         }
 
         if (expression instanceof CodeBlockExpression codeBlock) {
-            currentScope = currentScope.addAnonymousCodeBlock();
+            if (codeBlock.frameSize == 0) { return evaluateCodeBlock(codeBlock); }
+
+            currentFrame = currentFrame.child(codeBlock.frameSize);
             Builtin.Any result = evaluateCodeBlock(codeBlock);
-            currentScope = currentScope.parent;
+            currentFrame = currentFrame.parent;
             return result;
         }
 
@@ -117,128 +166,18 @@ public class Interpreter {
     }
 
     private Builtin.Any evaluateLiteral(LiteralExpression literal) {
-        switch (literal.value.type) {
-            case BOOLEAN_LITERAL: { return Builtin.Bool.of(literal); }
-            case INTEGER_LITERAL: { return Builtin.Int.of(literal); }
-            case FLOAT_LITERAL: { return Builtin.Float.of(literal); }
-            case STRING_LITERAL: { return Builtin.String.of(literal); } 
-
-            default: { throw new IllegalStateException("Missing eval for literal type: " + literal.value.type); }
-        }
+        return Operations.literal(literal);
     }
 
     private Builtin.Any evaluatePrefixed(PrefixExpression prefixed) throws UndeclaredIdentifierException, DuplicateIdentifierException {
         var result = evaluate(prefixed.expression);
-
-        switch (prefixed.prefix.type) {
-            case BANG: {
-                if (result instanceof Builtin.Bool bool) { return bool.negate(); }
-                throw new RuntimeException("Cannot evaluate: " + prefixed.prefix.type + result);
-            }
-
-            case MINUS: {
-                if (result instanceof Builtin.Int i) { return i.negate(); }
-                if (result instanceof Builtin.Float f) { return f.negate(); }
-                throw new RuntimeException("Cannot evaluate: " + prefixed.prefix.type + result);
-            }
-
-            default: { throw new IllegalStateException("Missing eval for prefix type: " + prefixed.prefix.type); }
-        }
+        return Operations.prefix(prefixed.prefix, result);
     }
 
     private Builtin.Any evaluateOperation(OperationExpression operation) throws UndeclaredIdentifierException, DuplicateIdentifierException {
         var left = evaluate(operation.left);
         var right = evaluate(operation.right);
-
-        if (!left.getClass().equals(right.getClass())) {
-            throw new RuntimeException("Cannot evaluate: " + left.getClass() + " " + operation.operator + " " + right.getClass());
-        }
-
-        switch (operation.operator.type) {
-            case PLUS: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.plus((Builtin.Int) right); } 
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.plus((Builtin.Float) right); }
-                if (left instanceof Builtin.String leftString) { return leftString.concat((Builtin.String) right); }
-                break;
-            } 
-            
-            case MINUS: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.minus((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.minus((Builtin.Float) right); }
-                break;
-            }
-
-            case MULTIPLY: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.multiply((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.multiply((Builtin.Float) right); }
-                break;
-            }
-            
-            case DIVIDE: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.divide((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.divide((Builtin.Float) right); }
-                break;
-            }
-            
-            case MODULO: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.modulo((Builtin.Int) right); }
-                break;
-            }
-            
-            case LESS_THAN: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.lessThan((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.lessThan((Builtin.Float) right); }
-                break;
-            }
-            
-            case LESS_THAN_OR_EQUALS_TO: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.lessThanOrEqualsTo((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.lessThanOrEqualsTo((Builtin.Float) right); }
-                break;
-            }
-            
-            case GREATER_THAN: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.greaterThan((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.greaterThan((Builtin.Float) right); }
-                break;
-            }
-            
-            case GREATER_THAN_OR_EQUALS_TO: {
-                if (left instanceof Builtin.Int leftInt) { return leftInt.greaterThanOrEqualsTo((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.greaterThanOrEqualsTo((Builtin.Float) right); }
-                break;
-            }
-
-            case AND: {
-                if (left instanceof Builtin.Bool leftBool) { return leftBool.and((Builtin.Bool) right); }
-                break;
-            }
-
-            case OR: {
-                if (left instanceof Builtin.Bool leftBool) { return leftBool.or((Builtin.Bool) right); }
-                break;
-            }
-
-            case EQUALS_TO: {
-                if (left instanceof Builtin.Bool leftBool) { return leftBool.equalsTo((Builtin.Bool) right); }
-                if (left instanceof Builtin.Int leftInt) { return leftInt.equalsTo((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.equalsTo((Builtin.Float) right); }
-                if (left instanceof Builtin.String leftString) { return leftString.equalsTo((Builtin.String) right); }
-                break;
-            }
-
-            case NOT_EQUALS_TO: {
-                if (left instanceof Builtin.Bool leftBool) { return leftBool.notEqualsTo((Builtin.Bool) right); }
-                if (left instanceof Builtin.Int leftInt) { return leftInt.notEqualsTo((Builtin.Int) right); }
-                if (left instanceof Builtin.Float leftFloat) { return leftFloat.notEqualsTo((Builtin.Float) right); }
-                if (left instanceof Builtin.String leftString) { return leftString.notEqualsTo((Builtin.String) right); }
-                break;
-            }
-
-            default: { throw new IllegalStateException("Missing eval for operator type: " + operation.operator.type); }
-        }
-
-        throw new UnsupportedOperationException("Operator " + operation.operator.type + " not defined on " + left.getClass());
+        return operation.node.execute(operation, left, right);
     }
 
     /** 
@@ -278,7 +217,7 @@ public class Interpreter {
     }
 
     private Builtin.Any evaluateFunction(FunctionExpression function) throws UndeclaredIdentifierException, DuplicateIdentifierException {
-        return Builtin.Function.of(function, this.currentScope.addAnonymousCodeBlock());
+        return Builtin.Function.of(function, this.currentFrame);
     }
 
     private Builtin.Any evaluateFunctionCall(FunctionCallExpression functionCall) throws UndeclaredIdentifierException, DuplicateIdentifierException {
@@ -298,24 +237,42 @@ public class Interpreter {
             args.add(evaluate(param));
         }
 
-        Scope previousScope = this.currentScope;
-
-        if (functionCall.functionIdentifier instanceof IdentifierExpression identifier) {
-            CompiledFunctionSymbol symbol = (CompiledFunctionSymbol) currentScope.find(identifier);
-            this.currentScope = symbol.effectiveScope;
-        } else {
-            this.currentScope = function.scope;
+        if (functionCall.isTailCall && eliminateTailCalls) {
+            return new TailCall(function, args);
         }
 
-        this.currentScope = this.currentScope.addAnonymousCodeBlock();
+        return invoke(function, args);
+    }
+
+    /**
+     * Runs the function, then keeps running the tail calls it returns in its place.
+     * Functions that have been invoked often enough run their compiled body instead of being interpreted.
+     */
+    Builtin.Any invoke(Builtin.Function function, List<Builtin.Any> args) throws UndeclaredIdentifierException, DuplicateIdentifierException {
+        Frame previousFrame = this.currentFrame;
+        Builtin.Any result;
 
-        for (int i = 0; i < args.size(); i++) {
-            this.currentScope.declareAndDefineValue(function.params.get(i), args.get(i));
+        while (true) {
+            Frame frame = function.closure.child(function.frameSize);
+
+            for (int i = 0; i < args.size(); i++) {
+                frame.define(function.params.get(i), args.get(i));
+            }
+
+            ClosureCompiler.Code compiled = ClosureCompiler.compiled(function.definition, compileThreshold);
+            if (compiled != null) {
+                result = compiled.execute(this, frame);
+            } else {
+                this.currentFrame = frame;
+                result = evaluateCodeBlock(function.block);
+            }
+            if (!(result instanceof TailCall tailCall)) { break; }
+
+            function = tailCall.function;
+            args = tailCall.args;
         }
-        
-        Builtin.Any result = evaluateCodeBlock(function.block);
-        this.currentScope = previousScope;
 
+        this.currentFrame = previousFrame;
         return result;
     }
 }
@@ -0,0 +1,132 @@
+package interpreter;
+
+import ast.exprs.LiteralExpression;
+import interpreter.builtins.Builtin;
+import lexer.tokens.Token;
+
+/**
+ * Semantics of literals and of the prefix and binary operators, shared by every execution engine.
+ */
+public final class Operations {
+    private Operations() {}
+
+    public static Builtin.Any literal(LiteralExpression literal) {
+        switch (literal.value.type) {
+            case BOOLEAN_LITERAL: { return Builtin.Bool.of(literal); }
+            case INTEGER_LITERAL: { return Builtin.Int.of(literal); }
+            case FLOAT_LITERAL: { return Builtin.Float.of(literal); }
+            case STRING_LITERAL: { return Builtin.String.of(literal); } 
+
+            default: { throw new IllegalStateException("Missing eval for literal type: " + literal.value.type); }
+        }
+    }
+
+    public static Builtin.Any prefix(Token prefix, Builtin.Any result) {
+        switch (prefix.type) {
+            case BANG: {
+                if (result instanceof Builtin.Bool bool) { return bool.negate(); }
+                throw new RuntimeException("Cannot evaluate: " + prefix.type + result);
+            }
+
+            case MINUS: {
+                if (result instanceof Builtin.Int i) { return i.negate(); }
+                if (result instanceof Builtin.Float f) { return f.negate(); }
+                throw new RuntimeException("Cannot evaluate: " + prefix.type + result);
+            }
+
+            default: { throw new IllegalStateException("Missing eval for prefix type: " + prefix.type); }
+        }
+    }
+
+    public static Builtin.Any binary(Token operator, Builtin.Any left, Builtin.Any right) {
+        if (!left.getClass().equals(right.getClass())) {
+            throw new RuntimeException("Cannot evaluate: " + left.getClass() + " " + operator + " " + right.getClass());
+        }
+
+        switch (operator.type) {
+            case PLUS: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.plus((Builtin.Int) right); } 
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.plus((Builtin.Float) right); }
+                if (left instanceof Builtin.String leftString) { return leftString.concat((Builtin.String) right); }
+                break;
+            } 
+            
+            case MINUS: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.minus((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.minus((Builtin.Float) right); }
+                break;
+            }
+
+            case MULTIPLY: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.multiply((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.multiply((Builtin.Float) right); }
+                break;
+            }
+            
+            case DIVIDE: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.divide((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.divide((Builtin.Float) right); }
+                break;
+            }
+            
+            case MODULO: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.modulo((Builtin.Int) right); }
+                break;
+            }
+            
+            case LESS_THAN: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.lessThan((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.lessThan((Builtin.Float) right); }
+                break;
+            }
+            
+            case LESS_THAN_OR_EQUALS_TO: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.lessThanOrEqualsTo((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.lessThanOrEqualsTo((Builtin.Float) right); }
+                break;
+            }
+            
+            case GREATER_THAN: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.greaterThan((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.greaterThan((Builtin.Float) right); }
+                break;
+            }
+            
+            case GREATER_THAN_OR_EQUALS_TO: {
+                if (left instanceof Builtin.Int leftInt) { return leftInt.greaterThanOrEqualsTo((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.greaterThanOrEqualsTo((Builtin.Float) right); }
+                break;
+            }
+
+            case AND: {
+                if (left instanceof Builtin.Bool leftBool) { return leftBool.and((Builtin.Bool) right); }
+                break;
+            }
+
+            case OR: {
+                if (left instanceof Builtin.Bool leftBool) { return leftBool.or((Builtin.Bool) right); }
+                break;
+            }
+
+            case EQUALS_TO: {
+                if (left instanceof Builtin.Bool leftBool) { return leftBool.equalsTo((Builtin.Bool) right); }
+                if (left instanceof Builtin.Int leftInt) { return leftInt.equalsTo((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.equalsTo((Builtin.Float) right); }
+                if (left instanceof Builtin.String leftString) { return leftString.equalsTo((Builtin.String) right); }
+                break;
+            }
+
+            case NOT_EQUALS_TO: {
+                if (left instanceof Builtin.Bool leftBool) { return leftBool.notEqualsTo((Builtin.Bool) right); }
+                if (left instanceof Builtin.Int leftInt) { return leftInt.notEqualsTo((Builtin.Int) right); }
+                if (left instanceof Builtin.Float leftFloat) { return leftFloat.notEqualsTo((Builtin.Float) right); }
+                if (left instanceof Builtin.String leftString) { return leftString.notEqualsTo((Builtin.String) right); }
+                break;
+            }
+
+            default: { throw new IllegalStateException("Missing eval for operator type: " + operator.type); }
+        }
+
+        throw new UnsupportedOperationException("Operator " + operator.type + " not defined on " + left.getClass());
+    }
+}
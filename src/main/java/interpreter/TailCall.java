@@ -0,0 +1,19 @@
+package interpreter;
+
+import java.util.List;
+
+import interpreter.builtins.Builtin;
+
+/**
+ * Pending call returned by a tail call in place of its result.
+ * It travels up to the function invocation that encloses the call, which then runs it in a loop instead of recursing.
+ */
+final class TailCall extends Builtin.Any {
+    final Builtin.Function function;
+    final List<Builtin.Any> args;
+
+    TailCall(Builtin.Function function, List<Builtin.Any> args) {
+        this.function = function;
+        this.args = args;
+    }
+}
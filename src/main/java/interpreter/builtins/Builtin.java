@@ -3,8 +3,7 @@ package interpreter.builtins;
 import java.util.List;
 
 import ast.exprs.*;
-import interpreter.Interpreter;
-import table.scopes.Scope;
+import interpreter.Frame;
 
 public class Builtin {
     public static abstract class Any {}
@@ -27,13 +26,17 @@ public class Builtin {
         public static final Bool TRUE = new Bool(true);
         public static final Bool FALSE = new Bool(false);
 
-        public final Boolean value;
-        private Bool(Boolean value) {
+        public final boolean value;
+        private Bool(boolean value) {
             this.value = value;
         }
 
+        public static Bool of(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
         public static Bool of(LiteralExpression literal) {
-            var text = java.lang.String.valueOf(literal.value.text);
+            var text = literal.value.text();
             var value = Boolean.parseBoolean(text);
             return value ? TRUE : FALSE;
         }
@@ -52,18 +55,31 @@ public class Builtin {
     }
     
     public static class Int extends Any {
-        public final Integer value;
-        private Int(Integer value) {
+        private static final int CACHE_LOW = -128;
+        private static final int CACHE_HIGH = 1023;
+        private static final Int[] cache = new Int[CACHE_HIGH - CACHE_LOW + 1];
+        static {
+            for (int i = 0; i < cache.length; i++) { cache[i] = new Int(CACHE_LOW + i); }
+        }
+
+        public final int value;
+        private Int(int value) {
             this.value = value;
         }
 
+        /** @return a shared instance for small values, which make up most loop counters and indices */
+        public static Int of(int value) {
+            if (value >= CACHE_LOW && value <= CACHE_HIGH) { return cache[value - CACHE_LOW]; }
+            return new Int(value);
+        }
+
         public static Int of(LiteralExpression literal) {
-            var text = java.lang.String.valueOf(literal.value.text);
+            var text = literal.value.text();
             var value = Integer.parseInt(text);
-            return new Int(value);
+            return Int.of(value);
         }
 
-        public Int negate() { return new Int(-this.value); }
+        public Int negate() { return Int.of(-this.value); }
 
         public Bool lessThan(Int other) { return this.value < other.value ? Bool.TRUE : Bool.FALSE; }
         public Bool lessThanOrEqualsTo(Int other) { return this.value <= other.value ? Bool.TRUE : Bool.FALSE; }
@@ -72,17 +88,23 @@ public class Builtin {
         public Bool equalsTo(Int other) { return this.value == other.value ? Bool.TRUE : Bool.FALSE; }
         public Bool notEqualsTo(Int other) { return this.value != other.value ? Bool.TRUE : Bool.FALSE; }
 
-        public Int plus(Int other) { return new Int(this.value + other.value); }
-        public Int minus(Int other) { return new Int(this.value - other.value); }
-        public Int multiply(Int other) { return new Int(this.value * other.value); }
-        public Int divide(Int other) { return new Int(this.value / other.value); }
-        public Int modulo(Int other) { return new Int(this.value % other.value); }
+        public Int plus(Int other) { return Int.of(this.value + other.value); }
+        public Int minus(Int other) { return Int.of(this.value - other.value); }
+        public Int multiply(Int other) { return Int.of(this.value * other.value); }
+        public Int divide(Int other) { return Int.of(this.value / other.value); }
+        public Int modulo(Int other) { return Int.of(this.value % other.value); }
 
-        public boolean equals(Builtin.Any other) {
+        @Override
+        public boolean equals(Object other) {
             return other instanceof Builtin.Int otherInt 
                 && this.value == otherInt.value;
         }
 
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(value);
+        }
+
         @Override
         public java.lang.String toString() {
             return "Int(" + value + ")";
@@ -90,13 +112,17 @@ public class Builtin {
     }
 
     public static class Float extends Any {
-        public final java.lang.Float value;
-        private Float(java.lang.Float value) {
+        public final float value;
+        private Float(float value) {
             this.value = value;
         }
 
+        public static Float of(float value) {
+            return new Float(value);
+        }
+
         public static Float of(LiteralExpression literal) {
-            var text = java.lang.String.valueOf(literal.value.text);
+            var text = literal.value.text();
             var value = java.lang.Float.parseFloat(text);
             return new Float(value);
         }
@@ -115,9 +141,15 @@ public class Builtin {
         public Float multiply(Float other) { return new Float(this.value * other.value); }
         public Float divide(Float other) { return new Float(this.value / other.value); }
 
-        public boolean equals(Builtin.Any other) {
-            return other instanceof Builtin.Float otherInt 
-                && this.value == otherInt.value;
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Builtin.Float otherFloat 
+                && java.lang.Float.compare(this.value, otherFloat.value) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return java.lang.Float.hashCode(value);
         }
 
         @Override
@@ -133,7 +165,7 @@ public class Builtin {
         }
 
         public static String of(LiteralExpression literal) {
-            var text = java.lang.String.valueOf(literal.value.text);
+            var text = literal.value.text();
 
             /* TODO: formatted strings */
             var value = text
@@ -148,9 +180,15 @@ public class Builtin {
         public Bool equalsTo(String other) { return this.value.equals(other.value) ? Bool.TRUE : Bool.FALSE; }
         public Bool notEqualsTo(String other) { return !this.value.equals(other.value) ? Bool.TRUE : Bool.FALSE; }
 
-        public boolean equals(Builtin.Any other) {
-            return other instanceof Builtin.String otherInt 
-                && this.value.equals(otherInt.value);
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Builtin.String otherString 
+                && this.value.equals(otherString.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
         }
 
         @Override
@@ -160,31 +198,37 @@ public class Builtin {
     }
 
     public static class Function extends Any {
-        public Scope scope;
+        public Frame closure;
+        public FunctionExpression definition;
         public List<IdentifierExpression> params;
         public CodeBlockExpression block;
+        public int frameSize;
 
-        private Function(List<IdentifierExpression> params, CodeBlockExpression block, Scope scope) {
+        private Function(FunctionExpression definition, List<IdentifierExpression> params, CodeBlockExpression block, int frameSize, Frame closure) {
+            this.definition = definition;
             this.params = params;
             this.block = block;
-            this.scope = scope;
+            this.frameSize = frameSize;
+            this.closure = closure;
         }
 
         public int arity() {
             return params.size();
         }
 
-        public static Function of(FunctionExpression function, Scope effectiveScope) {
+        public static Function of(FunctionExpression function, Frame closure) {
             return new Function(
+                function,
                 function.params,
                 function.block,
-                effectiveScope
+                function.frameSize,
+                closure
             );
         }
 
         @Override
         public java.lang.String toString() {
-            return "Function(" + params.stream().map(id -> java.lang.String.valueOf(id.identifier.text)).toList() + " -> ?)";
+            return "Function(" + params.stream().map(id -> id.identifier.text()).toList() + " -> ?)";
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package interpreter.nodes;
+
+import ast.exprs.OperationExpression;
+import interpreter.Operations;
+import interpreter.builtins.Builtin;
+
+/**
+ * Executable form of an {@link OperationExpression} that specializes itself on the operand types it observes.
+ * <p>
+ * Every operation starts out {@link #UNINITIALIZED}. Its first execution replaces {@link OperationExpression#node}
+ * with a node specialized for the operator and the operand types, eg. {@link IntAdd}.
+ * A specialized node that later receives other operand types rewrites the operation to {@link #GENERIC} for good.
+ */
+public abstract class BinaryNode {
+    public static final BinaryNode UNINITIALIZED = new Uninitialized();
+    public static final BinaryNode GENERIC = new Generic();
+
+    public abstract Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right);
+
+    protected static Builtin.Any generalize(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+        operation.node = GENERIC;
+        return GENERIC.execute(operation, left, right);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+    private static final class Uninitialized extends BinaryNode {
+        @Override
+        public Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            BinaryNode specialized = specialize(operation, left, right);
+            operation.node = specialized;
+            return specialized.execute(operation, left, right);
+        }
+
+        private static BinaryNode specialize(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            if (!left.getClass().equals(right.getClass())) { return GENERIC; }
+
+            if (left instanceof Builtin.Int) {
+                switch (operation.operator.type) {
+                    case PLUS: { return new IntAdd(); }
+                    case MINUS: { return new IntSubtract(); }
+                    case MULTIPLY: { return new IntMultiply(); }
+                    case DIVIDE: { return new IntDivide(); }
+                    case MODULO: { return new IntModulo(); }
+                    case LESS_THAN: { return new IntLessThan(); }
+                    case LESS_THAN_OR_EQUALS_TO: { return new IntLessThanOrEqualsTo(); }
+                    case GREATER_THAN: { return new IntGreaterThan(); }
+                    case GREATER_THAN_OR_EQUALS_TO: { return new IntGreaterThanOrEqualsTo(); }
+                    case EQUALS_TO: { return new IntEqualsTo(); }
+                    case NOT_EQUALS_TO: { return new IntNotEqualsTo(); }
+                    default: { return GENERIC; }
+                }
+            }
+
+            if (left instanceof Builtin.Float) {
+                switch (operation.operator.type) {
+                    case PLUS: { return new FloatAdd(); }
+                    case MINUS: { return new FloatSubtract(); }
+                    case MULTIPLY: { return new FloatMultiply(); }
+                    case DIVIDE: { return new FloatDivide(); }
+                    case LESS_THAN: { return new FloatLessThan(); }
+                    case LESS_THAN_OR_EQUALS_TO: { return new FloatLessThanOrEqualsTo(); }
+                    case GREATER_THAN: { return new FloatGreaterThan(); }
+                    case GREATER_THAN_OR_EQUALS_TO: { return new FloatGreaterThanOrEqualsTo(); }
+                    case EQUALS_TO: { return new FloatEqualsTo(); }
+                    case NOT_EQUALS_TO: { return new FloatNotEqualsTo(); }
+                    default: { return GENERIC; }
+                }
+            }
+
+            if (left instanceof Builtin.Bool) {
+                switch (operation.operator.type) {
+                    case AND: { return new BoolAnd(); }
+                    case OR: { return new BoolOr(); }
+                    case EQUALS_TO: { return new BoolEqualsTo(); }
+                    case NOT_EQUALS_TO: { return new BoolNotEqualsTo(); }
+                    default: { return GENERIC; }
+                }
+            }
+
+            if (left instanceof Builtin.String) {
+                switch (operation.operator.type) {
+                    case PLUS: { return new StringConcat(); }
+                    case EQUALS_TO: { return new StringEqualsTo(); }
+                    case NOT_EQUALS_TO: { return new StringNotEqualsTo(); }
+                    default: { return GENERIC; }
+                }
+            }
+
+            return GENERIC;
+        }
+    }
+
+    private static final class Generic extends BinaryNode {
+        @Override
+        public Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            return Operations.binary(operation.operator, left, right);
+        }
+    }
+
+    public static abstract class IntNode extends BinaryNode {
+        protected abstract Builtin.Any apply(Builtin.Int left, Builtin.Int right);
+
+        @Override
+        public final Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { return apply(leftInt, rightInt); }
+            return generalize(operation, left, right);
+        }
+    }
+
+    public static abstract class FloatNode extends BinaryNode {
+        protected abstract Builtin.Any apply(Builtin.Float left, Builtin.Float right);
+
+        @Override
+        public final Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            if (left instanceof Builtin.Float leftFloat && right instanceof Builtin.Float rightFloat) { return apply(leftFloat, rightFloat); }
+            return generalize(operation, left, right);
+        }
+    }
+
+    public static abstract class BoolNode extends BinaryNode {
+        protected abstract Builtin.Any apply(Builtin.Bool left, Builtin.Bool right);
+
+        @Override
+        public final Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            if (left instanceof Builtin.Bool leftBool && right instanceof Builtin.Bool rightBool) { return apply(leftBool, rightBool); }
+            return generalize(operation, left, right);
+        }
+    }
+
+    public static abstract class StringNode extends BinaryNode {
+        protected abstract Builtin.Any apply(Builtin.String left, Builtin.String right);
+
+        @Override
+        public final Builtin.Any execute(OperationExpression operation, Builtin.Any left, Builtin.Any right) {
+            if (left instanceof Builtin.String leftString && right instanceof Builtin.String rightString) { return apply(leftString, rightString); }
+            return generalize(operation, left, right);
+        }
+    }
+
+    public static final class IntAdd extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.plus(right); } }
+    public static final class IntSubtract extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.minus(right); } }
+    public static final class IntMultiply extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.multiply(right); } }
+    public static final class IntDivide extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.divide(right); } }
+    public static final class IntModulo extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.modulo(right); } }
+    public static final class IntLessThan extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.lessThan(right); } }
+    public static final class IntLessThanOrEqualsTo extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.lessThanOrEqualsTo(right); } }
+    public static final class IntGreaterThan extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.greaterThan(right); } }
+    public static final class IntGreaterThanOrEqualsTo extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.greaterThanOrEqualsTo(right); } }
+    public static final class IntEqualsTo extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.equalsTo(right); } }
+    public static final class IntNotEqualsTo extends IntNode { protected Builtin.Any apply(Builtin.Int left, Builtin.Int right) { return left.notEqualsTo(right); } }
+
+    public static final class FloatAdd extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.plus(right); } }
+    public static final class FloatSubtract extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.minus(right); } }
+    public static final class FloatMultiply extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.multiply(right); } }
+    public static final class FloatDivide extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.divide(right); } }
+    public static final class FloatLessThan extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.lessThan(right); } }
+    public static final class FloatLessThanOrEqualsTo extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.lessThanOrEqualsTo(right); } }
+    public static final class FloatGreaterThan extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.greaterThan(right); } }
+    public static final class FloatGreaterThanOrEqualsTo extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.greaterThanOrEqualsTo(right); } }
+    public static final class FloatEqualsTo extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.equalsTo(right); } }
+    public static final class FloatNotEqualsTo extends FloatNode { protected Builtin.Any apply(Builtin.Float left, Builtin.Float right) { return left.notEqualsTo(right); } }
+
+    public static final class BoolAnd extends BoolNode { protected Builtin.Any apply(Builtin.Bool left, Builtin.Bool right) { return left.and(right); } }
+    public static final class BoolOr extends BoolNode { protected Builtin.Any apply(Builtin.Bool left, Builtin.Bool right) { return left.or(right); } }
+    public static final class BoolEqualsTo extends BoolNode { protected Builtin.Any apply(Builtin.Bool left, Builtin.Bool right) { return left.equalsTo(right); } }
+    public static final class BoolNotEqualsTo extends BoolNode { protected Builtin.Any apply(Builtin.Bool left, Builtin.Bool right) { return left.notEqualsTo(right); } }
+
+    public static final class StringConcat extends StringNode { protected Builtin.Any apply(Builtin.String left, Builtin.String right) { return left.concat(right); } }
+    public static final class StringEqualsTo extends StringNode { protected Builtin.Any apply(Builtin.String left, Builtin.String right) { return left.equalsTo(right); } }
+    public static final class StringNotEqualsTo extends StringNode { protected Builtin.Any apply(Builtin.String left, Builtin.String right) { return left.notEqualsTo(right); } }
+}
@@ -0,0 +1,32 @@
+package lexer;
+
+/**
+ * Character classes of the lexer, answered from a lookup table for ASCII
+ * and only from the Unicode-aware {@link Character} methods for other characters.
+ * Classes are bit flags, so a table entry can be tested against several of them at once.
+ */
+public final class CharacterClasses {
+    public static final int WHITESPACE = 1;
+    public static final int IDENTIFIER_START = 1 << 1;
+    public static final int IDENTIFIER_PART = 1 << 2;
+    public static final int DIGIT = 1 << 3;
+
+    private static final byte[] ascii = new byte[128];
+    static {
+        /* built from the Unicode path, so that both agree on every ASCII character */
+        for (char c = 0; c < ascii.length; c++) { ascii[c] = (byte) unicodeClasses(c); }
+    }
+
+    public static boolean is(char c, int characterClass) {
+        return ((c < 128 ? ascii[c] : unicodeClasses(c)) & characterClass) != 0;
+    }
+
+    private static int unicodeClasses(char c) {
+        int classes = 0;
+        if (Character.isWhitespace(c)) { classes |= WHITESPACE; }
+        if (Character.isLetter(c) || c == '_') { classes |= IDENTIFIER_START; }
+        if (Character.isLetterOrDigit(c) || c == '_') { classes |= IDENTIFIER_PART; }
+        if (Character.isDigit(c)) { classes |= DIGIT; }
+        return classes;
+    }
+}
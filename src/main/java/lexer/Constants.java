@@ -30,6 +30,68 @@ public final class Constants {
         }
     }};
 
+    /**
+     * Classifies the range of the source without building a String, as a switch on the length and the first character.
+     * Every entry of {@link #keywords} needs a case here, the commented out cases are reserved for future keywords.
+     * @return the keyword type of the range, IDENTIFIER if it is not a keyword
+     */
+    public static TokenType keyword(char[] source, int start, int end) {
+        switch (end - start) {
+            case 2:
+                switch (source[start]) {
+                    case 'i': return matches(source, start, "if", TokenType.IF);
+                    // case 'a': return matches(source, start, "as", TokenType.CAST);
+                }
+                break;
+
+            case 3:
+                switch (source[start]) {
+                    case 'l': return matches(source, start, "let", TokenType.LET);
+                    case 'I': return matches(source, start, "Int", TokenType.PRIMITIVE_TYPE);
+                    // case 'v': return matches(source, start, "var", TokenType.VARIABLE_DECLARATOR);
+                }
+                break;
+
+            case 4:
+                switch (source[start]) {
+                    case 'e': return matches(source, start, "else", TokenType.ELSE);
+                    case 't': return matches(source, start, "true", TokenType.BOOLEAN_LITERAL);
+                    case 'B': return matches(source, start, "Bool", TokenType.PRIMITIVE_TYPE);
+                    case 'V': return matches(source, start, "Void", TokenType.PRIMITIVE_TYPE);
+                    // "enum" shares the first character with "else", compare the second one once it is added
+                }
+                break;
+
+            case 5:
+                switch (source[start]) {
+                    case 'g': return matches(source, start, "guard", TokenType.GUARD);
+                    case 'f': return matches(source, start, "false", TokenType.BOOLEAN_LITERAL);
+                    case 'F': return matches(source, start, "Float", TokenType.PRIMITIVE_TYPE);
+                }
+                break;
+
+            case 6:
+                switch (source[start]) {
+                    case 'r': return matches(source, start, "return", TokenType.RETURN);
+                    case 'S': return matches(source, start, "String", TokenType.PRIMITIVE_TYPE);
+                    // case 's': "struct" and "static" differ in their third character
+                }
+                break;
+
+            // case 8: "mutating" and "operator"
+        }
+
+        return TokenType.IDENTIFIER;
+    }
+
+    /* the length and the first character are already known to match */
+    private static TokenType matches(char[] source, int start, String keyword, TokenType type) {
+        for (int i = 1; i < keyword.length(); i++) {
+            if (source[start + i] != keyword.charAt(i)) { return TokenType.IDENTIFIER; }
+        }
+        return type;
+    }
+
 //     static final String[] c_keywords = new String[] {
 //         "auto", "break", "case", "char", "const", "continue", "default", "do", "double",
 //         "else", "enum", "extern", "float", "for", "goto", "if", "int", "long", "register",
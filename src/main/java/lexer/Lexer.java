@@ -1,45 +1,84 @@
 package lexer;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import lexer.sources.Source;
+import lexer.tokens.SymbolTable;
 import lexer.tokens.Token;
+import lexer.tokens.TokenBuffer;
 import lexer.tokens.TokenType;
 
 public class Lexer {
     private Source source;
+
+    /* buffer of the source, the tokens point into it */
+    private char[] chars;
+
+    /* names of the identifiers lexed so far */
+    private SymbolTable symbols;
     
     public Lexer(Source source) {
+        this(source, new SymbolTable());
+    }
+
+    /** @param symbols shared with other lexer runs of the same compilation, so that equal names get equal IDs */
+    public Lexer(Source source, SymbolTable symbols) {
         this.source = source;
+        this.chars = source.getChars();
+        this.symbols = symbols;
     }
 
-    public List<Token> tokenizeAll() {
+    /* offset of the token being scanned, and the ID of its name if it is an identifier */
+    private int start;
+    private int symbol;
+
+    public TokenBuffer tokenizeAll() {
         source.restart();
-        return new ArrayList<Token>() {{
-            for (Token token = next();; token = next()) {
-                add(token);
-                if (token.is(TokenType.END)) break;
-            }
-        }};
+        /* one token per ~4 characters of source avoids most regrowth */
+        TokenBuffer tokens = new TokenBuffer(chars, symbols, chars.length / 4 + 1);
+        for (TokenType type = scan();; type = scan()) {
+            tokens.add(type, start, source.getOffset(), symbol);
+            if (type == TokenType.END) break;
+        }
+        return tokens;
+    }
+
+    /**
+     * Lexes a single token into the buffer, for parsers that pull tokens as they need them.
+     * @return the type of the token, END once the source is exhausted
+     */
+    public TokenType tokenizeNext(TokenBuffer tokens) {
+        TokenType type = scan();
+        tokens.add(type, start, source.getOffset(), symbol);
+        return type;
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
     }
 
     public static int trimLeft(char[] str, int cursor) {
         int len = str.length;
-        for(; cursor < len && Character.isWhitespace(str[cursor]); cursor++) {}
+        for(; cursor < len && CharacterClasses.is(str[cursor], CharacterClasses.WHITESPACE); cursor++) {}
         return cursor;
     }
 
     public static boolean isIdentifierOrKeywordStart(char c) {
-        return Character.isLetter(c) || c == '_';
+        return CharacterClasses.is(c, CharacterClasses.IDENTIFIER_START);
     }
 
     public static boolean isIdentifierOrKeywordContinuation(char c) {
-        return Character.isLetterOrDigit(c) || c == '_';
+        return CharacterClasses.is(c, CharacterClasses.IDENTIFIER_PART);
+    }
+
+    public static boolean isDigit(char c) {
+        return CharacterClasses.is(c, CharacterClasses.DIGIT);
     }
 
     public static boolean isNumberStart(char currChar, char peekedChar) {
-        return Character.isDigit(currChar) || currChar == '.' && Character.isDigit(peekedChar);
+        return isDigit(currChar) || currChar == '.' && isDigit(peekedChar);
     }
 
     public boolean isEOF() {
@@ -59,144 +98,136 @@ public class Lexer {
     }
 
     public Token next() {
-        Token token = new Token();
-        token.type = TokenType.END;
-        token.text = new char[] {};
-        token.start = source.skipWhitespace();
-        token.end = token.start;
-        
-        if (isEOF()) return token;
-
-        token.type = TokenType.INVALID;
-        char currChar = consume();
+        TokenType type = scan();
+        if (symbol < 0) { return new Token(type, chars, start, source.getOffset()); }
+        return new Token(type, chars, start, source.getOffset(), symbol, symbols.name(symbol));
+    }
 
-        if (isIdentifierOrKeywordStart(currChar)) { tokenizeIdentifierOrKeyword(currChar, token, token.start); } 
-        else if (isNumberStart(currChar, peek())) { tokenizeNumber(currChar, token); } 
-        else { tokenizeOther(currChar, token); }
+    /** Scans the next token without materializing it, its range is from {@code start} to the offset of the source */
+    private TokenType scan() {
+        symbol = -1;
+        start = source.skipWhitespace();
+        if (isEOF()) return TokenType.END;
 
-        token.end = source.getIndex();
-        token.text = source.copyOfRange(token.start, token.end).getChars();
+        char currChar = consume();
 
-        return token;
+        if (isIdentifierOrKeywordStart(currChar)) { return tokenizeIdentifierOrKeyword(currChar, start); } 
+        else if (isNumberStart(currChar, peek())) { return tokenizeNumber(currChar); } 
+        else { return tokenizeOther(currChar); }
     }
 
     /**
-     * Tokenizes numbers as defined in grammar.md
+     * Tokenizes identifiers and keywords as defined in grammar.md
      * @param currChar the last consumed character
-     * @param token inout, only token.type is altered
-     * @param cursorStart the index of the last consumed character
-     * @return modified token
+     * @param start the offset of the last consumed character
+     * @return the type of the token
      */
-    private void tokenizeIdentifierOrKeyword(char currChar, Token token, Token.Location cursorStart) {
-        while (!isEOF() && isIdentifierOrKeywordContinuation(peek())) { consume(); }
-        char[] tokenChars = source.copyFrom(cursorStart).getChars();
-        token.type = Constants.keywords.getOrDefault(String.valueOf(tokenChars), TokenType.IDENTIFIER);
+    private TokenType tokenizeIdentifierOrKeyword(char currChar, int start) {
+        int end = source.skipWhile(CharacterClasses.IDENTIFIER_PART);
+        TokenType type = Constants.keyword(chars, start, end);
+        if (type == TokenType.IDENTIFIER) { symbol = symbols.intern(chars, start, end); }
+        return type;
     }
 
     /**
      * Tokenizes numbers as defined in grammar.md
      * @param currChar the last consumed character
-     * @param token inout, only token.type is altered
-     * @return modified token
+     * @return the type of the token
      */
-    private void tokenizeNumber(char currChar, Token token) {
-        boolean encounteredPeriod = currChar == '.';
-        token.type = encounteredPeriod ? TokenType.FLOAT_LITERAL : TokenType.INTEGER_LITERAL;
+    private TokenType tokenizeNumber(char currChar) {
+        source.skipWhile(CharacterClasses.DIGIT);
+        if (currChar == '.') { return TokenType.FLOAT_LITERAL; }
 
-        while (!isEOF()) {
-            boolean isFirstPeriod = !encounteredPeriod && peek() == '.';
-            if (!Character.isDigit(peek()) && !isFirstPeriod) { return; }
-            
-            if (isFirstPeriod) {
-                if (!Character.isDigit(peek(2))) { return; }
-
-                encounteredPeriod = true;
-                token.type = TokenType.FLOAT_LITERAL;
-                currChar = consume();
-            }
+        /* a period only continues the number if a digit follows it */
+        if (peek() != '.' || !isDigit(peek(2))) { return TokenType.INTEGER_LITERAL; }
 
-            currChar = consume();
-        }
+        consume();
+        source.skipWhile(CharacterClasses.DIGIT);
+        return TokenType.FLOAT_LITERAL;
     }
 
     /**
      * Tokenizes predefined symbols that are not keywords, identifiers, or numbers
      * @param currChar the last consumed character
-     * @param token inout, only token.type is altered if any symbol is matched
-     * @return modified token
+     * @return the type of the token, INVALID if no symbol is matched
      */
-    private void tokenizeOther(char currChar, Token token) {
+    private TokenType tokenizeOther(char currChar) {
+        TokenType type = TokenType.INVALID;
+
         switch (currChar) {
-            case ',': token.type = TokenType.COMMA; break;
-            case '.': token.type = TokenType.PERIOD; break;
-            case ';': token.type = TokenType.SEMICOLON; break;
-            case ':': token.type = TokenType.COLON; break;
+            case ',': type = TokenType.COMMA; break;
+            case '.': type = TokenType.PERIOD; break;
+            case ';': type = TokenType.SEMICOLON; break;
+            case ':': type = TokenType.COLON; break;
 
             case '/':
-                token.type = TokenType.COMMENT;
+                type = TokenType.COMMENT;
                 if (peek() == '/') {
-                    while (!isEOF() && peek() != '\n') { consume(); }
+                    source.skipUntil('\n');
                     break;
                 } else if (peek() == '*') {
                     consume();
-                    while (!isEOF() && !(currChar == '*' && peek() == '/')) { currChar = consume(); }
-                    if (isEOF()) { token.type = TokenType.INVALID; break; }
-                    consume();
+                    while (true) {
+                        source.skipUntil('*');
+                        if (isEOF()) { type = TokenType.INVALID; break; }
+                        consume();
+                        if (peek() == '/') { consume(); break; }
+                    }
                     break;
                 }
 
-                token.type = TokenType.DIVIDE;
+                type = TokenType.DIVIDE;
             break;
 
             case '-':
-                token.type = TokenType.MINUS;
-                if (peek() == '>') { consume(); token.type = TokenType.ARROW; }
+                type = TokenType.MINUS;
+                if (peek() == '>') { consume(); type = TokenType.ARROW; }
             break;
 
             case '+':
-                token.type = TokenType.PLUS;
+                type = TokenType.PLUS;
             break;
 
             case '*':
-                token.type = TokenType.MULTIPLY;
+                type = TokenType.MULTIPLY;
             break;
 
             case '%':
-                token.type = TokenType.MODULO;
+                type = TokenType.MODULO;
             break;
 
             case '=': 
-                token.type = TokenType.ASSIGNMENT;
-                if (peek() == '=') { consume(); token.type = TokenType.EQUALS_TO; }
+                type = TokenType.ASSIGNMENT;
+                if (peek() == '=') { consume(); type = TokenType.EQUALS_TO; }
             break;
             
             case '<':
-                token.type = TokenType.LESS_THAN;
-                if (peek() == '=') { consume(); token.type = TokenType.LESS_THAN_OR_EQUALS_TO; }
+                type = TokenType.LESS_THAN;
+                if (peek() == '=') { consume(); type = TokenType.LESS_THAN_OR_EQUALS_TO; }
             break;
 
             case '>':
-                token.type = TokenType.GREATER_THAN;
-                if (peek() == '=') { consume(); token.type = TokenType.GREATER_THAN_OR_EQUALS_TO; }
+                type = TokenType.GREATER_THAN;
+                if (peek() == '=') { consume(); type = TokenType.GREATER_THAN_OR_EQUALS_TO; }
             break;
 
             case '!':
-                token.type = TokenType.BANG;
-                if (peek() == '=') { consume(); token.type = TokenType.NOT_EQUALS_TO; }
+                type = TokenType.BANG;
+                if (peek() == '=') { consume(); type = TokenType.NOT_EQUALS_TO; }
             break;
 
             case '&':
-                if (peek() == '&') { consume(); token.type = TokenType.AND; }
+                if (peek() == '&') { consume(); type = TokenType.AND; }
             break;
 
             case '|':
-                if (peek() == '|') { consume(); token.type = TokenType.OR; }
+                if (peek() == '|') { consume(); type = TokenType.OR; }
             break;
 
             case '?':
-                token.type = TokenType.QUESTION_MARK;
-                if (peek() == '?') { consume(); token.type = TokenType.COALESCE; }
-                else if (peek() == '.') { consume(); token.type = TokenType.OPTIONAL_MEMBER; }
+                type = TokenType.QUESTION_MARK;
+                if (peek() == '?') { consume(); type = TokenType.COALESCE; }
+                else if (peek() == '.') { consume(); type = TokenType.OPTIONAL_MEMBER; }
             break;
 
             case '"':
@@ -204,20 +235,22 @@ public class Lexer {
                     char nextChar = consume();
                     if (nextChar == '\\') { consume(); } 
                     else if (nextChar == '"') {
-                        token.type = TokenType.STRING_LITERAL;
+                        type = TokenType.STRING_LITERAL;
                         break;
                     }
                 }
             break;
 
-            case '(': token.type = TokenType.OPEN_PAREN; break;
-            case ')': token.type = TokenType.CLOSED_PAREN; break;
+            case '(': type = TokenType.OPEN_PAREN; break;
+            case ')': type = TokenType.CLOSED_PAREN; break;
 
-            case '{': token.type = TokenType.OPEN_CURLY; break;
-            case '}': token.type = TokenType.CLOSED_CURLY; break;
+            case '{': type = TokenType.OPEN_CURLY; break;
+            case '}': type = TokenType.CLOSED_CURLY; break;
 
-            case '[': token.type = TokenType.OPEN_BRACKET; break;
-            case ']': token.type = TokenType.CLOSED_BRACKET; break;
+            case '[': type = TokenType.OPEN_BRACKET; break;
+            case ']': type = TokenType.CLOSED_BRACKET; break;
         }
+
+        return type;
     }
-}
\ No newline at end of file
+}
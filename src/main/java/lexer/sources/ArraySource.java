@@ -7,16 +7,19 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
+import lexer.CharacterClasses;
 import lexer.tokens.Token;
 
 public class ArraySource extends Source {
     private char[] source;
-    private long cursor = 0;
-    private long line = 0;
-    private long column = 0;
+    private int cursor = 0;
+
+    /* the source is the range from begin to end for the lexer, tokens may point into a larger buffer */
+    private int begin, end;
 
     private ArraySource(char[] chars) {
         this.source = chars;
+        this.end = chars.length;
     }
 
     public static ArraySource fromString(String str) {
@@ -27,6 +30,14 @@ public class ArraySource extends Source {
         return new ArraySource(chars);
     }
 
+    /** A source of the characters from start to end of a larger buffer, whose tokens keep their offsets in the whole buffer. */
+    public static ArraySource fromRange(char[] chars, int start, int end) {
+        ArraySource source = new ArraySource(chars);
+        source.begin = source.cursor = start;
+        source.end = end;
+        return source;
+    }
+
     public static ArraySource fromFile(File file) throws IOException {
         BufferedReader br = new BufferedReader(new FileReader(file));
         String text = br.lines().collect(Collectors.joining("\n"));
@@ -36,53 +47,64 @@ public class ArraySource extends Source {
 
     @Override
     public void restart() {
-        cursor = 0;
+        cursor = begin;
+    }
+
+    /** Moves the cursor, to lex from the middle of the source. */
+    public void seek(int offset) {
+        cursor = offset;
     }
     
     @Override
     public Token.Location getIndex() {
-        return new Token.Location(line, column, cursor);
+        return Token.Location.of(source, cursor);
+    }
+
+    @Override
+    public int getOffset() {
+        return cursor;
     }
 
     @Override
     public boolean isEOF() {
-        return cursor >= source.length;
+        return cursor >= end;
     }
 
     @Override
     public char peek() {
         if (isEOF()) { return '\0'; }
-        return source[Math.toIntExact(cursor)];
+        return source[cursor];
     }
 
     public char peek(long n) {
-        if (cursor + n - 1 >= source.length) { return '\0'; }
-        return source[Math.toIntExact(cursor + n - 1)];
+        if (cursor + n - 1 >= end) { return '\0'; }
+        return source[cursor + (int) n - 1];
     }
 
     @Override
     public char consume() {
-        int position = Math.toIntExact(cursor);
-        cursor++;
-        column++;
-        return source[position];
+        return source[cursor++];
+    }
+
+    @Override
+    public int skipWhitespace() {
+        return skipWhile(CharacterClasses.WHITESPACE);
+    }
+
+    @Override
+    public int skipWhile(int characterClass) {
+        char[] source = this.source;
+        int cursor = this.cursor, end = this.end;
+        while (cursor < end && CharacterClasses.is(source[cursor], characterClass)) { cursor++; }
+        return this.cursor = cursor;
     }
 
     @Override
-    public Token.Location skipWhitespace() {
-        for (; cursor < source.length; cursor++) {
-            char currentChar = source[Math.toIntExact(cursor)];
-            if (!Character.isWhitespace(currentChar)) { break; }
-
-            boolean isNewLine = (currentChar == '\r' || currentChar == '\n');
-            if (isNewLine) {
-                line++;
-                column = 0;
-            } else {
-                column++;
-            }
-        }
-        return new Token.Location(line, column, cursor);
+    public int skipUntil(char c) {
+        char[] source = this.source;
+        int cursor = this.cursor, end = this.end;
+        while (cursor < end && source[cursor] != c) { cursor++; }
+        return this.cursor = cursor;
     }
 
     @Override
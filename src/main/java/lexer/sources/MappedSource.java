@@ -0,0 +1,218 @@
+package lexer.sources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import lexer.CharacterClasses;
+import lexer.tokens.Token;
+
+/**
+ * A UTF-8 file mapped into memory instead of read through the heap.
+ * <p>
+ * The characters are decoded from the mapping into one exactly sized buffer in chunks, as the lexer reaches them,
+ * so lexing starts before the file is decoded and no intermediate String or line list is ever built.
+ * Tokens point into that buffer like with {@link ArraySource}.
+ * Line breaks are normalized while decoding, {@code \r\n} and a lone {@code \r} become {@code \n},
+ * like reading the lines of the file and joining them with {@code \n} did.
+ */
+public class MappedSource extends Source {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final MappedByteBuffer bytes;
+    private final char[] source;
+    private final CharsetDecoder decoder;
+    private final boolean isAscii;
+    /* decoded in chunks of bytes, then copied over to the source with line breaks normalized */
+    private final CharBuffer chunk;
+
+    /* characters before this offset have been decoded */
+    private int decoded = 0;
+    private int cursor = 0;
+    /* the last decoded character was a \r, so a \n right after it belongs to the same line break */
+    private boolean afterCarriageReturn = false;
+
+    private MappedSource(MappedByteBuffer bytes, int length, boolean isAscii) {
+        this.bytes = bytes;
+        this.source = new char[length];
+        this.isAscii = isAscii;
+        this.chunk = isAscii ? null : CharBuffer.allocate(CHUNK_SIZE);
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        bytes.limit(0);
+    }
+
+    public static MappedSource fromFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) { throw new IOException("File is too large to map: " + file + " (" + size + " bytes)"); }
+
+            /* the mapping stays valid after the channel is closed */
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            /*
+             * every byte that does not continue a sequence starts a character, 4 byte sequences take a surrogate pair,
+             * and the \n of a \r\n is dropped
+             */
+            int length = 0;
+            boolean isAscii = true;
+            for (int i = 0; i < size; i++) {
+                byte b = bytes.get(i);
+                if (b == '\n' && i > 0 && bytes.get(i - 1) == '\r') { continue; }
+                if (b >= 0) { length++; continue; }
+
+                isAscii = false;
+                if ((b & 0xC0) != 0x80) { length += (b & 0xF8) == 0xF0 ? 2 : 1; }
+            }
+
+            return new MappedSource(bytes, length, isAscii);
+        }
+    }
+
+    /** Decodes at least up to and including the offset, if it is in the source. */
+    private void ensureDecoded(int offset) {
+        while (offset >= decoded && decoded < source.length) { decodeChunk(); }
+    }
+
+    private void decodeChunk() {
+        int start = bytes.limit();
+        int end = Math.min(bytes.capacity(), start + CHUNK_SIZE);
+        bytes.limit(end);
+
+        if (isAscii) {
+            for (int i = start; i < end; i++) { append((char) bytes.get(i)); }
+            return;
+        }
+
+        if (start == end) { throw new IllegalStateException("Malformed UTF-8, the file ended in the middle of a character"); }
+
+        /* a sequence split by the chunk boundary is left in the buffer for the next chunk, a chunk of bytes never decodes to more chars */
+        chunk.clear();
+        CoderResult result = decoder.decode(bytes, chunk, end == bytes.capacity());
+        if (result.isError()) {
+            throw new IllegalStateException("Malformed UTF-8 at byte " + bytes.position(), toException(result));
+        }
+        for (int i = 0; i < chunk.position(); i++) { append(chunk.get(i)); }
+    }
+
+    private void append(char c) {
+        if (c == '\n' && afterCarriageReturn) {
+            afterCarriageReturn = false;
+            return;
+        }
+
+        afterCarriageReturn = c == '\r';
+        source[decoded++] = afterCarriageReturn ? '\n' : c;
+    }
+
+    private static CharacterCodingException toException(CoderResult result) {
+        try { result.throwException(); }
+        catch (CharacterCodingException exception) { return exception; }
+        return null;
+    }
+
+    @Override
+    public void restart() {
+        cursor = 0;
+    }
+
+    @Override
+    public Token.Location getIndex() {
+        ensureDecoded(cursor);
+        return Token.Location.of(source, cursor);
+    }
+
+    @Override
+    public int getOffset() {
+        return cursor;
+    }
+
+    @Override
+    public boolean isEOF() {
+        return cursor >= source.length;
+    }
+
+    @Override
+    public char peek() {
+        if (isEOF()) { return '\0'; }
+        if (cursor >= decoded) { ensureDecoded(cursor); }
+        return source[cursor];
+    }
+
+    @Override
+    public char peek(long n) {
+        if (cursor + n - 1 >= source.length) { return '\0'; }
+        int offset = Math.toIntExact(cursor + n - 1);
+        if (offset >= decoded) { ensureDecoded(offset); }
+        return source[offset];
+    }
+
+    @Override
+    public char consume() {
+        if (cursor >= decoded) { ensureDecoded(cursor); }
+        return source[cursor++];
+    }
+
+    @Override
+    public int skipWhitespace() {
+        return skipWhile(CharacterClasses.WHITESPACE);
+    }
+
+    @Override
+    public int skipWhile(int characterClass) {
+        for (; cursor < source.length; cursor++) {
+            if (cursor >= decoded) { ensureDecoded(cursor); }
+            if (!CharacterClasses.is(source[cursor], characterClass)) { break; }
+        }
+        return cursor;
+    }
+
+    @Override
+    public int skipUntil(char c) {
+        for (; cursor < source.length; cursor++) {
+            if (cursor >= decoded) { ensureDecoded(cursor); }
+            if (source[cursor] == c) { break; }
+        }
+        return cursor;
+    }
+
+    @Override
+    public Source copyOfRange(Token.Location start, Token.Location end) {
+        ensureDecoded(Math.toIntExact(end.offset));
+        return ArraySource.fromCharArray(Arrays.copyOfRange(source, Math.toIntExact(start.offset), Math.toIntExact(end.offset)));
+    }
+
+    @Override
+    public Source copyFrom(Token.Location start) {
+        ensureDecoded(cursor);
+        return ArraySource.fromCharArray(Arrays.copyOfRange(source, Math.toIntExact(start.offset), cursor));
+    }
+
+    @Override
+    public String getText() {
+        ensureDecoded(source.length);
+        return String.valueOf(source);
+    }
+
+    /** Decodes the rest of the file, for readers that need the whole buffer up front. */
+    public char[] decodeAll() {
+        ensureDecoded(source.length);
+        return source;
+    }
+
+    /** The buffer is only filled up to where the source has been read, until {@link #getText()} or {@link #decodeAll()} decodes the rest. */
+    @Override
+    public char[] getChars() {
+        return source;
+    }
+}
@@ -1,5 +1,6 @@
 package lexer.sources;
 
+import lexer.CharacterClasses;
 import lexer.tokens.Token;
 
 public abstract class Source {
@@ -9,6 +10,9 @@ public abstract class Source {
     /** @return current location in the source */
     public abstract Token.Location getIndex();
 
+    /** @return current offset in the source, unlike {@link #getIndex()} without allocating */
+    public abstract int getOffset();
+
     /** @return if the source has no more characters */
     public abstract boolean isEOF();
 
@@ -25,8 +29,24 @@ public abstract class Source {
     /** @return the next character while incrementing the index */
     public abstract char consume();
 
-    /** @return location of next non-whitespace character */
-    public abstract Token.Location skipWhitespace();
+    /** @return offset of next non-whitespace character */
+    public abstract int skipWhitespace();
+
+    /**
+     * Consumes the run of characters that belong to the class, sources override it to scan their buffer directly.
+     * @param characterClass the flags of {@link CharacterClasses}
+     * @return offset of the first character outside of the run
+     */
+    public int skipWhile(int characterClass) {
+        while (!isEOF() && CharacterClasses.is(peek(), characterClass)) { consume(); }
+        return getOffset();
+    }
+
+    /** @return offset of the next occurrence of the character, or of the end of the source, which is not consumed */
+    public int skipUntil(char c) {
+        while (!isEOF() && peek() != c) { consume(); }
+        return getOffset();
+    }
 
     /**
      * @param start the initial location of the range to be copied, inclusive
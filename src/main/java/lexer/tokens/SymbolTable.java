@@ -0,0 +1,86 @@
+package lexer.tokens;
+
+import java.util.Arrays;
+
+/**
+ * Interns the identifiers of a compilation. Every distinct name gets an int ID when it is lexed,
+ * and one canonical String that every token of that name shares, so its hash is only computed once.
+ * <p>
+ * Names are looked up straight from a range of the source, a String is only built the first time a name is seen.
+ */
+public final class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /* open addressing over the IDs plus one, 0 marks an empty bucket */
+    private int[] buckets = new int[INITIAL_CAPACITY * 2];
+
+    /** @return the ID of the name in the range of the source, a new one if it was not seen before */
+    public int intern(char[] source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) { hash = 31 * hash + source[i]; }
+
+        int mask = buckets.length - 1;
+        for (int bucket = mix(hash) & mask;; bucket = (bucket + 1) & mask) {
+            int id = buckets[bucket] - 1;
+            if (id < 0) {
+                id = add(new String(source, start, end - start), hash);
+                buckets[bucket] = id + 1;
+                if (size * 2 > buckets.length) { rehash(); }
+                return id;
+            }
+
+            if (hashes[id] == hash && equals(names[id], source, start, end)) { return id; }
+        }
+    }
+
+    public int intern(String name) {
+        return intern(name.toCharArray(), 0, name.length());
+    }
+
+    /** @return the canonical String of the ID */
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(String name, int hash) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size << 1);
+            hashes = Arrays.copyOf(hashes, size << 1);
+        }
+
+        names[size] = name;
+        hashes[size] = hash;
+        return size++;
+    }
+
+    private void rehash() {
+        buckets = new int[buckets.length << 1];
+        int mask = buckets.length - 1;
+        for (int id = 0; id < size; id++) {
+            int bucket = mix(hashes[id]) & mask;
+            while (buckets[bucket] != 0) { bucket = (bucket + 1) & mask; }
+            buckets[bucket] = id + 1;
+        }
+    }
+
+    /* spreads the high bits of String hashes, which differ little for short names, over the low bits */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String name, char[] source, int start, int end) {
+        if (name.length() != end - start) { return false; }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source[start + i]) { return false; }
+        }
+        return true;
+    }
+}
@@ -1,17 +1,100 @@
 package lexer.tokens;
 
+import com.google.gson.annotations.JsonAdapter;
+
+/**
+ * A range of the source buffer, shared by every token of a lexer run.
+ * The text of a token is only copied out of the buffer when it is asked for.
+ * <p>
+ * Its JSON has the text and the locations read from the source, see {@link TokenJsonAdapter}.
+ */
+@JsonAdapter(TokenJsonAdapter.class)
 public final class Token {
+    private static final char[] EMPTY = new char[] {};
+
     public TokenType type;
-    public char[] text;
-    public Location start, end;
+    public int startOffset, endOffset;
+
+    /* ID of the name in the SymbolTable of the lexer run, -1 unless the token is an identifier */
+    public int symbol = -1;
+
+    public transient char[] source;
+    private transient String text;
+
+    /* set when the token is materialized from a buffer, to look up locations in its line table */
+    transient TokenBuffer buffer;
+
+    public Token(TokenType type, char[] source, int startOffset, int endOffset) {
+        this.type = type;
+        this.source = source;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    /** An identifier, whose text is the canonical String of the symbol. */
+    public Token(TokenType type, char[] source, int startOffset, int endOffset, int symbol, String name) {
+        this(type, source, startOffset, endOffset);
+        this.symbol = symbol;
+        this.text = name;
+    }
+
+    /** @return an empty END token, for reads past the last token */
+    public static Token end(char[] source, int offset) {
+        return new Token(TokenType.END, source == null ? EMPTY : source, offset, offset);
+    }
+
+    /** Moves the token by delta characters into the buffer of an edited source, which holds the same text there. */
+    public void rebase(TokenBuffer buffer, int delta) {
+        this.source = buffer.source();
+        this.buffer = buffer;
+        this.startOffset += delta;
+        this.endOffset += delta;
+    }
+
+    /** Like {@link #rebase(TokenBuffer, int)} for an identifier lexed with another symbol table, whose name has the ID in the one of the buffer. */
+    public void rebase(TokenBuffer buffer, int delta, int symbol) {
+        rebase(buffer, delta);
+        this.symbol = symbol;
+        this.text = buffer.symbolTable().name(symbol);
+    }
+
+    public int length() {
+        return endOffset - startOffset;
+    }
+
+    public char charAt(int index) {
+        return source[startOffset + index];
+    }
+
+    public String text() {
+        if (text == null) { text = new String(source, startOffset, length()); }
+        return text;
+    }
+
+    /** Compares without materializing the text of the token. */
+    public boolean textEquals(String other) {
+        if (other.length() != length()) { return false; }
+        for (int i = 0; i < other.length(); i++) {
+            if (source[startOffset + i] != other.charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    public Location start() {
+        return buffer != null ? buffer.location(startOffset) : Location.of(source, startOffset);
+    }
+
+    public Location end() {
+        return buffer != null ? buffer.location(endOffset) : Location.of(source, endOffset);
+    }
 
     public String toString() {
-        return "Token { " + type + ", '" + String.valueOf(text) + 
-            "', [" + start + ", " + end + "] }";
+        return "Token { " + type + ", '" + text() +
+            "', [" + start() + ", " + end() + "] }";
     }
 
     public boolean is(TokenType... tokenTypes) {
-        for (TokenType otherType: tokenTypes) { 
+        for (TokenType otherType: tokenTypes) {
             if (this.type == otherType) { return true; }
         }
 
@@ -35,8 +118,25 @@ public final class Token {
             this.offset = offset;
         }
 
+        /**
+         * Lines and columns are not tracked while lexing, they are counted from the start of the source when needed.
+         */
+        public static Location of(char[] source, int offset) {
+            long line = 0, column = 0;
+            for (int i = 0; i < offset && i < source.length; i++) {
+                boolean isNewLine = source[i] == '\r' || source[i] == '\n';
+                if (isNewLine) {
+                    line++;
+                    column = 0;
+                } else {
+                    column++;
+                }
+            }
+            return new Location(line, column, offset);
+        }
+
         public String toString() {
             return "[" + line + ", " + column + "; " + offset + "]";
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package lexer.tokens;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The tokens of a lexer run stored as parallel arrays instead of {@link Token} objects.
+ * Types are kept as ordinals in a byte[] and offsets and symbol IDs in int[]s, so a token costs 13 bytes.
+ * A {@link Token} is only materialized when the parser stores it in the AST.
+ * Identifiers also keep the ID of their name in the {@link SymbolTable} of the lexer run.
+ */
+public final class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final char[] source;
+    private final SymbolTable symbolTable;
+    private byte[] types;
+    private int[] starts, ends, symbols;
+
+    /* tokens before this index have been discarded, the arrays hold the tokens from here up to size */
+    private int first;
+    private int size;
+    private int lastEnd;
+
+    /* offsets of the first character of every line, built on the first location lookup */
+    private volatile int[] lineStarts;
+
+    /* the buffer whose line table this one looks locations up in, itself unless it shares another one */
+    private final TokenBuffer lines;
+
+    public TokenBuffer(char[] source, SymbolTable symbolTable) {
+        this(source, symbolTable, INITIAL_CAPACITY);
+    }
+
+    public TokenBuffer(char[] source, SymbolTable symbolTable, int capacity) {
+        this(source, symbolTable, capacity, null);
+    }
+
+    /**
+     * A buffer over the source of another one, which shares its line table, for buffers that each hold the tokens of a part of a source.
+     * The line table may be built from several threads.
+     */
+    public TokenBuffer(TokenBuffer lines, SymbolTable symbolTable, int capacity) {
+        this(lines.source, symbolTable, capacity, lines.lines);
+    }
+
+    private TokenBuffer(char[] source, SymbolTable symbolTable, int capacity, TokenBuffer lines) {
+        this.source = source;
+        this.symbolTable = symbolTable;
+        this.lines = lines == null ? this : lines;
+        this.types = new byte[Math.max(capacity, 1)];
+        this.starts = new int[types.length];
+        this.ends = new int[types.length];
+        this.symbols = new int[types.length];
+    }
+
+    /** @param symbol the ID of the name of an identifier, -1 for other tokens */
+    public void add(TokenType type, int start, int end, int symbol) {
+        int held = size - first;
+        if (held == types.length) {
+            int capacity = held << 1;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+
+        types[held] = (byte) type.ordinal();
+        starts[held] = start;
+        ends[held] = end;
+        symbols[held] = symbol;
+        size++;
+        lastEnd = end;
+    }
+
+    /**
+     * Drops the tokens before the index to bound the memory of a streamed source.
+     * Indices stay absolute, the dropped tokens must not be read anymore.
+     */
+    public void discardBefore(int index) {
+        int discarded = Math.min(index, size) - first;
+        if (discarded <= 0) { return; }
+
+        int held = size - first - discarded;
+        System.arraycopy(types, discarded, types, 0, held);
+        System.arraycopy(starts, discarded, starts, 0, held);
+        System.arraycopy(ends, discarded, ends, 0, held);
+        System.arraycopy(symbols, discarded, symbols, 0, held);
+        first += discarded;
+    }
+
+    /** Shrinks the arrays to the tokens held, once no more tokens are added. */
+    public void trimToSize() {
+        int held = size - first;
+        types = Arrays.copyOf(types, Math.max(held, 1));
+        starts = Arrays.copyOf(starts, types.length);
+        ends = Arrays.copyOf(ends, types.length);
+        symbols = Arrays.copyOf(symbols, types.length);
+    }
+
+    /** @return the number of tokens added, including the discarded ones */
+    public int size() { return size; }
+    public char[] source() { return source; }
+    public SymbolTable symbolTable() { return symbolTable; }
+
+    public TokenType type(int index) { return TYPES[types[index - first]]; }
+    public int start(int index) { return starts[index - first]; }
+    public int end(int index) { return ends[index - first]; }
+    public int symbol(int index) { return symbols[index - first]; }
+
+    /** @return a new {@link Token} for the token at the index, which resolves its locations through this buffer */
+    public Token token(int index) {
+        int symbol = symbol(index);
+        Token token = symbol < 0
+            ? new Token(type(index), source, start(index), end(index))
+            : new Token(type(index), source, start(index), end(index), symbol, symbolTable.name(symbol));
+        token.buffer = this;
+        return token;
+    }
+
+    /** @return an empty END token placed after the last token */
+    public Token end() {
+        Token token = Token.end(source, lastEnd);
+        token.buffer = this;
+        return token;
+    }
+
+    /** @return the tokens that have not been discarded */
+    public List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size - first);
+        for (int i = first; i < size; i++) { tokens.add(token(i)); }
+        return tokens;
+    }
+
+    /**
+     * Same result as {@link Token.Location#of(char[], int)}, but a binary search over the line starts
+     * instead of a scan from the start of the source.
+     */
+    public Token.Location location(int offset) {
+        int[] lineStarts = lines.lineStarts();
+
+        int clamped = Math.min(offset, source.length);
+        int line = Arrays.binarySearch(lineStarts, clamped);
+        if (line < 0) { line = -line - 2; }
+        return new Token.Location(line, clamped - lineStarts[line], offset);
+    }
+
+    private int[] lineStarts() {
+        int[] starts = lineStarts;
+        if (starts == null) { lineStarts = starts = lineStarts(source); }
+        return starts;
+    }
+
+    private static int[] lineStarts(char[] source) {
+        int[] starts = new int[16];
+        int lines = 1;
+        for (int i = 0; i < source.length; i++) {
+            if (source[i] != '\r' && source[i] != '\n') { continue; }
+            if (lines == starts.length) { starts = Arrays.copyOf(starts, lines << 1); }
+            starts[lines++] = i + 1;
+        }
+        return Arrays.copyOf(starts, lines);
+    }
+
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -0,0 +1,44 @@
+package lexer.tokens;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a token to JSON with its text and locations, which are not fields of the token but read from its source.
+ * Its symbol ID is left out, it only means something to the symbol table of the lexer run.
+ * eg. {@code {"type":"IDENTIFIER","text":"b","start":{"line":0,"column":7,"offset":7},"end":{"line":0,"column":8,"offset":8}}}
+ */
+public final class TokenJsonAdapter extends TypeAdapter<Token> {
+    @Override
+    public void write(JsonWriter out, Token token) throws IOException {
+        if (token == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("type").value(token.type == null ? null : token.type.name());
+        out.name("text").value(token.text());
+        out.name("start");
+        location(out, token.start());
+        out.name("end");
+        location(out, token.end());
+        out.endObject();
+    }
+
+    private static void location(JsonWriter out, Token.Location location) throws IOException {
+        out.beginObject();
+        out.name("line").value(location.line);
+        out.name("column").value(location.column);
+        out.name("offset").value(location.offset);
+        out.endObject();
+    }
+
+    @Override
+    public Token read(JsonReader in) {
+        throw new UnsupportedOperationException("Tokens are views over a source and are not read back from JSON");
+    }
+}
@@ -0,0 +1,168 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.ProgramNode;
+import ast.StatementNode;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.SymbolTable;
+import lexer.tokens.Token;
+import lexer.tokens.TokenBuffer;
+import lexer.tokens.TokenType;
+
+/**
+ * Keeps the tokens and the AST of a source up to date as it is edited.
+ * <p>
+ * An edit only re-lexes from the first token it may have changed up to where the new tokens line up with the old ones again,
+ * and only re-parses the top-level statements that overlap those tokens. The other statements are reused as they are,
+ * with their token ranges and tokens moved to the edited source.
+ * <p>
+ * The returned AST is unresolved like the one of {@link Parser#build()}, reused nodes are resolved again when it is run.
+ */
+public class IncrementalParser {
+    private final SymbolTable symbols = new SymbolTable();
+
+    private char[] chars;
+    private TokenBuffer tokens;
+
+    /* null after an edit that did not parse, the next edit parses the whole source again */
+    private ProgramNode program;
+
+    /* statements parsed by the last edit, for diagnostics and tests */
+    private int reparsedStatements;
+
+    public IncrementalParser(String text) throws UnexpectedTokenException {
+        this.chars = text.toCharArray();
+        this.tokens = new Lexer(ArraySource.fromCharArray(chars), symbols).tokenizeAll();
+        this.program = new Parser(tokens).build();
+        this.reparsedStatements = program.children.size();
+    }
+
+    public ProgramNode getProgram() { return program; }
+    public TokenBuffer getTokens() { return tokens; }
+    public String getText() { return String.valueOf(chars); }
+    public int getReparsedStatements() { return reparsedStatements; }
+
+    /**
+     * Replaces {@code removedLength} characters at the offset with the inserted text.
+     * @return the AST of the edited source
+     * @throws UnexpectedTokenException if the edited source does not parse, the edit is still applied
+     */
+    public ProgramNode edit(int offset, int removedLength, String inserted) throws UnexpectedTokenException {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > chars.length) {
+            throw new IndexOutOfBoundsException("Edit of " + removedLength + " characters at " + offset + " outside of source of length " + chars.length);
+        }
+
+        char[] oldChars = chars;
+        TokenBuffer oldTokens = tokens;
+        int charDelta = inserted.length() - removedLength;
+
+        chars = new char[oldChars.length + charDelta];
+        System.arraycopy(oldChars, 0, chars, 0, offset);
+        inserted.getChars(0, inserted.length(), chars, offset);
+        System.arraycopy(oldChars, offset + removedLength, chars, offset + inserted.length(), oldChars.length - offset - removedLength);
+
+        /* the lexer looks up to two characters past the end of a token, so a token ending right before the edit may change too */
+        int damageStart = firstTokenEndingAtOrAfter(oldTokens, offset - 1);
+        int editEnd = offset + removedLength;
+
+        ArraySource source = ArraySource.fromCharArray(chars);
+        /* the edit may also be in the whitespace before the first damaged token */
+        source.seek(Math.min(oldTokens.start(damageStart), offset));
+        Lexer lexer = new Lexer(source, symbols);
+
+        /* lexing only depends on the text ahead, so once a new token starts where an old one did after the edit, the rest is unchanged */
+        List<Token> relexed = new ArrayList<>();
+        int resync = damageStart;
+        while (true) {
+            Token token = lexer.next();
+            while (resync < oldTokens.size() && oldTokens.start(resync) + charDelta < token.startOffset) { resync++; }
+
+            boolean isResynced = resync < oldTokens.size()
+                && oldTokens.start(resync) >= editEnd
+                && oldTokens.start(resync) + charDelta == token.startOffset;
+            if (isResynced) { break; }
+
+            relexed.add(token);
+            if (token.type == TokenType.END) { resync = oldTokens.size(); break; }
+        }
+
+        tokens = new TokenBuffer(chars, symbols, oldTokens.size() + relexed.size() - (resync - damageStart));
+        for (int i = 0; i < damageStart; i++) {
+            tokens.add(oldTokens.type(i), oldTokens.start(i), oldTokens.end(i), oldTokens.symbol(i));
+        }
+        for (Token token: relexed) {
+            tokens.add(token.type, token.startOffset, token.endOffset, token.symbol);
+        }
+        for (int i = resync; i < oldTokens.size(); i++) {
+            tokens.add(oldTokens.type(i), oldTokens.start(i) + charDelta, oldTokens.end(i) + charDelta, oldTokens.symbol(i));
+        }
+        int tokenDelta = relexed.size() - (resync - damageStart);
+
+        ProgramNode oldProgram = program;
+        program = null;
+        if (oldProgram == null) {
+            program = new Parser(tokens).build();
+            reparsedStatements = program.children.size();
+            return program;
+        }
+
+        program = reparse(oldProgram, damageStart, resync, tokenDelta, charDelta);
+        return program;
+    }
+
+    private ProgramNode reparse(ProgramNode oldProgram, int damageStart, int resync, int tokenDelta, int charDelta) throws UnexpectedTokenException {
+        List<StatementNode> oldChildren = oldProgram.children;
+        ProgramNode node = new ProgramNode();
+        node.tokenStart = 0;
+
+        /* statements that end before the damaged tokens are kept, a statement never looks past its last token */
+        Rebaser unmoved = new Rebaser(tokens, 0, 0);
+        int kept = 0;
+        while (kept < oldChildren.size() && oldChildren.get(kept).tokenEnd <= damageStart) {
+            StatementNode statement = oldChildren.get(kept++);
+            unmoved.rebase(statement);
+            node.children.add(statement);
+        }
+
+        /* statements that start after the resynchronized tokens can be reused once parsing reaches one of them */
+        int reusable = kept;
+        while (reusable < oldChildren.size() && oldChildren.get(reusable).tokenStart < resync) { reusable++; }
+
+        Parser parser = new Parser(tokens);
+        parser.setIndex(kept == 0 ? 0 : oldChildren.get(kept - 1).tokenEnd);
+        reparsedStatements = 0;
+
+        while (true) {
+            while (reusable < oldChildren.size() && oldChildren.get(reusable).tokenStart + tokenDelta < parser.getIndex()) { reusable++; }
+            boolean isReusable = reusable < oldChildren.size() && oldChildren.get(reusable).tokenStart + tokenDelta == parser.getIndex();
+            if (isReusable || parser.peekType() == TokenType.END) { break; }
+
+            node.children.add(parser.parseStatement());
+            reparsedStatements++;
+        }
+
+        Rebaser moved = new Rebaser(tokens, tokenDelta, charDelta);
+        for (int i = reusable; i < oldChildren.size(); i++) {
+            StatementNode statement = oldChildren.get(i);
+            moved.rebase(statement);
+            node.children.add(statement);
+        }
+
+        node.tokenEnd = tokens.size();
+        return node;
+    }
+
+    private static int firstTokenEndingAtOrAfter(TokenBuffer tokens, int offset) {
+        int low = 0, high = tokens.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.end(middle) >= offset) { high = middle; }
+            else { low = middle + 1; }
+        }
+        return low;
+    }
+}
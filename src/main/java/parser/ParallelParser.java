@@ -0,0 +1,198 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ast.ProgramNode;
+import ast.StatementNode;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.SymbolTable;
+import lexer.tokens.TokenBuffer;
+import lexer.tokens.TokenType;
+
+/**
+ * Lexes and parses a source on several cores, for programs made of many top-level statements.
+ * <p>
+ * A pre-scan splits the source into chunks at top-level semicolons, skipping the ones in braces, parentheses, strings and comments.
+ * Every chunk is lexed and parsed on its own with its own symbol table, then the chunks are stitched into one token buffer and one
+ * {@link ProgramNode}, with the token ranges and symbol IDs moved to the stitched buffer. The result is the same as {@link Parser#build()}.
+ */
+public class ParallelParser {
+    /* characters per chunk, large enough that a chunk takes much longer to parse than to schedule */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final char[] chars;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    private final SymbolTable symbols = new SymbolTable();
+    private TokenBuffer tokens;
+
+    public ParallelParser(char[] chars) {
+        this(chars, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelParser(char[] chars, ForkJoinPool pool, int chunkSize) {
+        this.chars = chars;
+        this.pool = pool;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /** @return the tokens of the whole source, once {@link #build()} has returned */
+    public TokenBuffer getTokens() { return tokens; }
+    public SymbolTable getSymbols() { return symbols; }
+
+    private static class Chunk {
+        TokenBuffer tokens;
+        List<StatementNode> statements;
+    }
+
+    /**
+     * @return the same AST as {@link Parser#build()}
+     * @throws UnexpectedTokenException the error of the first chunk that does not parse
+     */
+    public ProgramNode build() throws UnexpectedTokenException {
+        /* stitching is only worth it when the chunks are parsed at the same time */
+        int[] boundaries = pool.getParallelism() > 1 ? split(chars, chunkSize) : new int[] { 0, chars.length };
+        int chunkCount = boundaries.length - 1;
+        if (chunkCount == 1) {
+            tokens = new Lexer(ArraySource.fromCharArray(chars), symbols).tokenizeAll();
+            return new Parser(tokens).build();
+        }
+
+        /* the chunks look up the locations of their tokens in the line table of the stitched buffer */
+        tokens = new TokenBuffer(chars, symbols, chars.length / 4 + 1);
+
+        List<Future<Chunk>> futures = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            int start = boundaries[i], end = boundaries[i + 1];
+            futures.add(pool.submit(() -> parseChunk(start, end)));
+        }
+
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        try {
+            for (Future<Chunk> future: futures) { chunks.add(join(future)); }
+        } finally {
+            for (Future<Chunk> future: futures) { future.cancel(true); }
+        }
+
+        return stitch(chunks);
+    }
+
+    private Chunk parseChunk(int start, int end) throws UnexpectedTokenException {
+        SymbolTable chunkSymbols = new SymbolTable();
+        Chunk chunk = new Chunk();
+        chunk.tokens = new TokenBuffer(tokens, chunkSymbols, (end - start) / 4 + 1);
+
+        Lexer lexer = new Lexer(ArraySource.fromRange(chars, start, end), chunkSymbols);
+        while (lexer.tokenizeNext(chunk.tokens) != TokenType.END) {}
+
+        chunk.statements = new Parser(chunk.tokens).build().children;
+        return chunk;
+    }
+
+    private static Chunk join(Future<Chunk> future) throws UnexpectedTokenException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", exception);
+        } catch (ExecutionException exception) {
+            /* the pool wraps checked exceptions of a task in a RuntimeException */
+            for (Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof UnexpectedTokenException unexpectedToken) { throw unexpectedToken; }
+            }
+
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) { throw runtimeException; }
+            if (cause instanceof Error error) { throw error; }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Concatenates the tokens of the chunks without their END tokens, but the last one, and moves their statements over. */
+    private ProgramNode stitch(List<Chunk> chunks) {
+        ProgramNode root = new ProgramNode();
+        root.tokenStart = 0;
+
+        for (Chunk chunk: chunks) {
+            SymbolTable chunkSymbols = chunk.tokens.symbolTable();
+            int[] symbolIds = new int[chunkSymbols.size()];
+            for (int id = 0; id < symbolIds.length; id++) { symbolIds[id] = symbols.intern(chunkSymbols.name(id)); }
+
+            int base = tokens.size();
+            TokenBuffer chunkTokens = chunk.tokens;
+            for (int i = 0; i < chunkTokens.size() - 1; i++) {
+                int symbol = chunkTokens.symbol(i);
+                tokens.add(chunkTokens.type(i), chunkTokens.start(i), chunkTokens.end(i), symbol < 0 ? -1 : symbolIds[symbol]);
+            }
+
+            Rebaser rebaser = new Rebaser(tokens, base, 0, symbolIds);
+            for (StatementNode statement: chunk.statements) {
+                rebaser.rebase(statement);
+                root.children.add(statement);
+            }
+        }
+
+        TokenBuffer lastTokens = chunks.get(chunks.size() - 1).tokens;
+        int end = lastTokens.size() - 1;
+        tokens.add(TokenType.END, lastTokens.start(end), lastTokens.end(end), -1);
+
+        root.tokenEnd = tokens.size();
+        return root;
+    }
+
+    /**
+     * Splits the source after the first top-level semicolon past every chunkSize characters.
+     * Strings and comments are skipped by the same rules as the {@link Lexer}, so a split never falls inside a token.
+     * @return the offsets the chunks start at, followed by the length of the source
+     */
+    public static int[] split(char[] chars, int chunkSize) {
+        int[] boundaries = new int[16];
+        int count = 1;
+        int depth = 0;
+
+        int i = 0;
+        while (i < chars.length) {
+            char c = chars[i++];
+            switch (c) {
+                case '{': case '(': case '[': depth++; break;
+                case '}': case ')': case ']': depth--; break;
+
+                case '"':
+                    while (i < chars.length) {
+                        char next = chars[i++];
+                        if (next == '\\') { i++; }
+                        else if (next == '"') { break; }
+                    }
+                break;
+
+                case '/':
+                    if (i < chars.length && chars[i] == '/') {
+                        while (i < chars.length && chars[i] != '\n') { i++; }
+                    } else if (i < chars.length && chars[i] == '*') {
+                        i++;
+                        while (i < chars.length && !(chars[i] == '*' && i + 1 < chars.length && chars[i + 1] == '/')) { i++; }
+                        i = Math.min(i + 2, chars.length);
+                    }
+                break;
+
+                case ';':
+                    if (depth != 0 || i - boundaries[count - 1] < chunkSize || i == chars.length) { break; }
+                    if (count == boundaries.length) { boundaries = Arrays.copyOf(boundaries, count << 1); }
+                    boundaries[count++] = i;
+                break;
+            }
+        }
+
+        if (count == boundaries.length) { boundaries = Arrays.copyOf(boundaries, count + 1); }
+        boundaries[count++] = chars.length;
+        return Arrays.copyOf(boundaries, count);
+    }
+}
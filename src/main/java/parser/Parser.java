@@ -8,12 +8,15 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import ast.ProgramNode;
 import ast.StatementNode;
 import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
 import lexer.tokens.Token;
+import lexer.tokens.TokenBuffer;
 import lexer.tokens.TokenType;
 import parser.partial_parsers.expressions.ExpressionParser;
 import parser.partial_parsers.expressions.pratt.BindingPower;
@@ -22,42 +25,106 @@ import parser.partial_parsers.statements.StatementParser;
 
 public class Parser {
     private int index = 0;
-    private List<Token> tokens;
+    private TokenBuffer tokens;
     private List<Error> errors = new ArrayList<>();
 
+    /* pulls the tokens on demand when streaming, null when the source was lexed up front */
+    private Lexer lexer;
+    private boolean isLexed;
+
     private StatementParser statementParser;
     private ExpressionParser expressionParser;
 
-    public Parser(List<Token> tokens) {
+    public Parser(TokenBuffer tokens) {
         this.tokens = tokens;
 
         this.expressionParser = new ExpressionParser(this);
         this.statementParser = new StatementParser(this, expressionParser);
     }
 
+    /**
+     * Streams the tokens from the lexer as they are needed. The tokens of a top-level statement
+     * are released once it has been parsed, since parsing a top-level statement never looks past its terminating token.
+     */
+    public Parser(Lexer lexer) {
+        this(new TokenBuffer(lexer.getChars(), lexer.getSymbols()));
+        this.lexer = lexer;
+    }
+
     public int getIndex() { return index; }
     public void setIndex(int index) { this.index = index; }
-    public List<Token> getTokens() { return tokens; }
+    public TokenBuffer getTokens() { return tokens; }
     public List<Error> getErrors() { return errors; }
     public void curtailErrors(int index) { errors = errors.subList(0, index); }
 
-    public boolean isEOF() { return index >= tokens.size(); }
+    public boolean isEOF() { return index >= tokens.size() && !pull(index); }
 
-    public Token peek() {
-        if (isEOF()) {
-            Token token = new Token();
-            token.type = TokenType.END;
-            return token;
+    /** @return if a token was lexed up to the index */
+    private boolean pull(int index) {
+        while (index >= tokens.size()) {
+            if (lexer == null || isLexed) { return false; }
+            isLexed = lexer.tokenizeNext(tokens) == TokenType.END;
         }
-        return tokens.get(index);
+        return true;
+    }
+
+    /** @return the type of the next token, without materializing it */
+    public TokenType peekType() {
+        return isEOF() ? TokenType.END : tokens.type(index);
+    }
+
+    /** @return the type of the token n tokens after the next one, END past the last token */
+    public TokenType peekType(int n) {
+        int at = index + n;
+        return at >= tokens.size() && !pull(at) ? TokenType.END : tokens.type(at);
+    }
+
+    /**
+     * Tells a parenthesized list of parameters followed by an arrow from other parentheses, without parsing them.
+     * The scan stops at the first token that cannot be part of the parameters, so other parentheses are usually told apart within a few tokens.
+     * @param isParameterToken if a token may appear between the parentheses of the parameters
+     * @return if the next token opens parentheses whose matching closing one is followed by an arrow
+     */
+    public boolean isArrowAfterParentheses(Predicate<TokenType> isParameterToken) {
+        if (peekType() != TokenType.OPEN_PAREN) { return false; }
+
+        int depth = 0;
+        for (int n = 0;; n++) {
+            TokenType type = peekType(n);
+            if (type == TokenType.OPEN_PAREN) { depth++; }
+            else if (type == TokenType.CLOSED_PAREN) {
+                if (--depth == 0) { return peekType(n + 1) == TokenType.ARROW; }
+            }
+            else if (!isParameterToken.test(type)) { return false; }
+        }
+    }
+
+    /** Materializes the next token, prefer {@link #peekType()} unless the token is kept. */
+    public Token peek() {
+        return isEOF() ? tokens.end() : tokens.token(index);
     }
 
-    public Token consume() { return tokens.get(index++); }
+    public Token consume() { return tokens.token(index++); }
+
+    public void skip() { index++; }
     
     public Token expect(TokenType... tokenTypes) throws UnexpectedTokenException {
-        Token nextToken = peek();
-        if (nextToken.is(tokenTypes)) { return consume(); }
-        throw new UnexpectedTokenException(nextToken, tokenTypes);
+        if (is(peekType(), tokenTypes)) { return consume(); }
+        throw new UnexpectedTokenException(peek(), tokenTypes);
+    }
+
+    /** Like {@link #expect(TokenType...)} for tokens that are not kept in the AST. */
+    public TokenType skip(TokenType... tokenTypes) throws UnexpectedTokenException {
+        TokenType type = peekType();
+        if (is(type, tokenTypes)) { index++; return type; }
+        throw new UnexpectedTokenException(peek(), tokenTypes);
+    }
+
+    private static boolean is(TokenType type, TokenType... tokenTypes) {
+        for (TokenType otherType: tokenTypes) {
+            if (type == otherType) { return true; }
+        }
+        return false;
     }
 
     public Token expectWithRecovery(TokenType expectedTokenType, UnexpectedTokenException.ErrorRecovery recoveryStrategy) throws UnexpectedTokenException {
@@ -65,18 +132,25 @@ public class Parser {
     }
 
     public Token expectWithRecovery(List<TokenType> expectedTokenTypes, UnexpectedTokenException.ErrorRecovery recoveryStrategy) throws UnexpectedTokenException {
-        Token nextToken = peek();
+        TokenType nextType = peekType();
         for (TokenType type: expectedTokenTypes) {
-            if (nextToken.is(type)) { return consume(); }
+            if (nextType == type) { return consume(); }
         }
         
-        throw new UnexpectedTokenException(nextToken, expectedTokenTypes,recoveryStrategy);
+        throw new UnexpectedTokenException(peek(), expectedTokenTypes,recoveryStrategy);
     }
 
     public StatementNode parseStatement() throws UnexpectedTokenException {
         return statementParser.parseStatement();
     }
 
+    /** @return the next top-level statement, null at the end of the program */
+    public StatementNode nextStatement() throws UnexpectedTokenException {
+        if (lexer != null) { tokens.discardBefore(index); }
+        if (peekType() == TokenType.END) { return null; }
+        return statementParser.parseStatement();
+    }
+
     /* TODO: handle syntax errors 
      * 1. Insert/imagine the expected token
      * 2. Remove until finding expected token or semicolon
@@ -85,15 +159,13 @@ public class Parser {
     public ProgramNode build() throws UnexpectedTokenException {
         ProgramNode root = new ProgramNode();
         root.tokenStart = 0;
-        root.tokenEnd = tokens.size();
         
         index = 0;
-        for (Token nextToken = peek(); nextToken.type != TokenType.END; nextToken = peek()) {
-            StatementNode nextStatement = statementParser.parseStatement();
-            if (nextStatement == null) break;
+        for (StatementNode nextStatement = nextStatement(); nextStatement != null; nextStatement = nextStatement()) {
             root.children.add(nextStatement);
         }
 
+        root.tokenEnd = tokens.size();
         return root;
     }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package parser;
+
+import ast.ExpressionNode;
+import ast.StatementNode;
+import ast.annotations.TypeAnnotation;
+import ast.exprs.*;
+import ast.stmts.*;
+import lexer.tokens.Token;
+import lexer.tokens.TokenBuffer;
+
+/**
+ * Moves a subtree parsed against one token buffer into another one that holds the same tokens,
+ * by tokenDelta tokens and charDelta characters.
+ */
+final class Rebaser {
+    private final TokenBuffer tokens;
+    private final int tokenDelta, charDelta;
+
+    /* IDs of the names of the old symbol table in the symbol table of the buffer, null if both tables are the same */
+    private final int[] symbols;
+
+    Rebaser(TokenBuffer tokens, int tokenDelta, int charDelta) {
+        this(tokens, tokenDelta, charDelta, null);
+    }
+
+    Rebaser(TokenBuffer tokens, int tokenDelta, int charDelta, int[] symbols) {
+        this.tokens = tokens;
+        this.tokenDelta = tokenDelta;
+        this.charDelta = charDelta;
+        this.symbols = symbols;
+    }
+
+    private void rebase(Token token) {
+        if (token == null) { return; }
+        if (symbols != null && token.symbol >= 0) { token.rebase(tokens, charDelta, symbols[token.symbol]); }
+        else { token.rebase(tokens, charDelta); }
+    }
+
+    void rebase(StatementNode statement) {
+        statement.tokenStart += tokenDelta;
+        statement.tokenEnd += tokenDelta;
+
+        if (statement instanceof CommentStatement comment) {
+            rebase(comment.comment);
+            return;
+        }
+
+        if (statement instanceof ExpressionStatement expr) {
+            rebase(expr.expression);
+            return;
+        }
+
+        if (statement instanceof ReturnStatement ret) {
+            rebase(ret.returnExpression);
+            return;
+        }
+
+        if (statement instanceof GuardStatement guard) {
+            rebase(guard.clause);
+            rebase(guard.body);
+            return;
+        }
+
+        if (statement instanceof VariableDeclaration varDecl) {
+            for (Token modifier: varDecl.modifiers) { rebase(modifier); }
+            rebase(varDecl.identifier);
+            /* the left side of the assignment is the identifier of the declaration */
+            varDecl.assignmentExpression.tokenStart += tokenDelta;
+            varDecl.assignmentExpression.tokenEnd += tokenDelta;
+            rebase(varDecl.assignmentExpression.operator);
+            rebase(varDecl.assignmentExpression.right);
+            return;
+        }
+
+        throw new IllegalStateException("Missing rebase for statement: " + statement.getClass());
+    }
+
+    void rebase(ExpressionNode expression) {
+        expression.tokenStart += tokenDelta;
+        expression.tokenEnd += tokenDelta;
+
+        if (expression instanceof LiteralExpression literal) {
+            rebase(literal.value);
+            return;
+        }
+
+        if (expression instanceof IdentifierExpression identifier) {
+            rebase(identifier.identifier);
+            if (identifier.typeAnnotation != null) { rebase(identifier.typeAnnotation); }
+            return;
+        }
+
+        if (expression instanceof OperationExpression operation) {
+            rebase(operation.operator);
+            rebase(operation.left);
+            rebase(operation.right);
+            return;
+        }
+
+        if (expression instanceof GroupedExpression grouped) {
+            rebase(grouped.expression);
+            return;
+        }
+
+        if (expression instanceof PrefixExpression prefixed) {
+            rebase(prefixed.prefix);
+            rebase(prefixed.expression);
+            return;
+        }
+
+        if (expression instanceof PostfixExpression postfixed) {
+            rebase(postfixed.postfix);
+            rebase(postfixed.expression);
+            return;
+        }
+
+        if (expression instanceof CodeBlockExpression codeBlock) {
+            for (StatementNode statement: codeBlock.children) { rebase(statement); }
+            return;
+        }
+
+        if (expression instanceof IfExpression ifExpression) {
+            for (ExpressionNode condition: ifExpression.conditions) { rebase(condition); }
+            for (CodeBlockExpression block: ifExpression.blocks) { rebase(block); }
+            return;
+        }
+
+        if (expression instanceof FunctionExpression function) {
+            for (IdentifierExpression param: function.params) { rebase(param); }
+            rebase(function.block);
+            return;
+        }
+
+        if (expression instanceof FunctionCallExpression functionCall) {
+            rebase(functionCall.functionIdentifier);
+            for (ExpressionNode param: functionCall.params) { rebase(param); }
+            return;
+        }
+
+        throw new IllegalStateException("Missing rebase for expression: " + expression.getClass());
+    }
+
+    /* type signatures do not keep their tokens */
+    void rebase(TypeAnnotation annotation) {
+        annotation.tokenStart += tokenDelta;
+        annotation.tokenEnd += tokenDelta;
+    }
+}
@@ -7,7 +7,6 @@ import java.util.function.Supplier;
 import ast.*;
 import ast.exprs.*;
 import errors.parser.UnexpectedTokenException;
-import errors.parser.UnexpectedTokenException.ErrorRecovery;
 import lexer.tokens.Token;
 import lexer.tokens.TokenType;
 import parser.Parser;
@@ -27,47 +26,47 @@ public class ExpressionParser {
         this.lookups = new LiteralExpressionLookups(this);
     }
 
-    public ExpressionNode parseExpression(Integer bindingPower) throws UnexpectedTokenException {
-        Token token = parser.peek();
+    public ExpressionNode parseExpression(int bindingPower) throws UnexpectedTokenException {
+        TokenType type = parser.peekType();
 
-        var nullHandler = lookups.nullDenotationHandlers.get(token.type);
-        if (nullHandler == null) { throw new UnexpectedTokenException(token, lookups.nullDenotationHandlers.keySet().stream().toList()); }
+        var nullHandler = lookups.nullDenotationHandlers[type.ordinal()];
+        if (nullHandler == null) { throw new UnexpectedTokenException(parser.peek(), lookups.nullDenotationTypes()); }
         ExpressionNode left = nullHandler.invoke();
 
-        token = parser.peek();
-        Integer nextBindingPower = lookups.bindingPowers.getOrDefault(token.type, -1);
+        type = parser.peekType();
+        int nextBindingPower = lookups.bindingPowers[type.ordinal()];
 
         while (nextBindingPower > bindingPower) {
-            var leftHandler = lookups.leftDenotationHandlers.get(token.type);
-            if (leftHandler == null) { throw new UnexpectedTokenException(token, lookups.leftDenotationHandlers.keySet().stream().toList()); }
+            var leftHandler = lookups.leftDenotationHandlers[type.ordinal()];
+            if (leftHandler == null) { throw new UnexpectedTokenException(parser.peek(), lookups.leftDenotationTypes()); }
             left = leftHandler.invoke(nextBindingPower, left);
             
-            token = parser.peek();
-            nextBindingPower = lookups.bindingPowers.getOrDefault(token.type, -1);
+            type = parser.peekType();
+            nextBindingPower = lookups.bindingPowers[type.ordinal()];
         }
 
         return left;
     }
 
-    public ExpressionNode parseConditional(Integer bindingPower) throws UnexpectedTokenException {
-        Token token = parser.peek();
+    public ExpressionNode parseConditional(int bindingPower) throws UnexpectedTokenException {
+        TokenType type = parser.peekType();
 
-        var nullHandler = lookups.nullDenotationHandlers.get(token.type);
-        if (nullHandler == null) { throw new UnexpectedTokenException(token, lookups.nullDenotationHandlers.keySet().stream().toList()); }
+        var nullHandler = lookups.nullDenotationHandlers[type.ordinal()];
+        if (nullHandler == null) { throw new UnexpectedTokenException(parser.peek(), lookups.nullDenotationTypes()); }
         ExpressionNode left = nullHandler.invoke();
 
-        token = parser.peek();
-        if (token.is(TokenType.OPEN_CURLY)) { return left; }
-        Integer nextBindingPower = lookups.bindingPowers.getOrDefault(token.type, -1);
+        type = parser.peekType();
+        if (type == TokenType.OPEN_CURLY) { return left; }
+        int nextBindingPower = lookups.bindingPowers[type.ordinal()];
 
         while (nextBindingPower > bindingPower) {
-            var leftHandler = lookups.leftDenotationHandlers.get(token.type);
-            if (leftHandler == null) { throw new UnexpectedTokenException(token, lookups.leftDenotationHandlers.keySet().stream().toList()); }
+            var leftHandler = lookups.leftDenotationHandlers[type.ordinal()];
+            if (leftHandler == null) { throw new UnexpectedTokenException(parser.peek(), lookups.leftDenotationTypes()); }
             left = leftHandler.invoke(nextBindingPower, left);
             
-            token = parser.peek();
-            if (token.is(TokenType.OPEN_CURLY)) { return left; }
-            nextBindingPower = lookups.bindingPowers.getOrDefault(token.type, -1);
+            type = parser.peekType();
+            if (type == TokenType.OPEN_CURLY) { return left; }
+            nextBindingPower = lookups.bindingPowers[type.ordinal()];
         }
 
         return left;
@@ -85,7 +84,7 @@ public class ExpressionParser {
         return node;
     }
 
-    public OperationExpression parseInfixExpression(Integer bindingPower, ExpressionNode left) throws UnexpectedTokenException {
+    public OperationExpression parseInfixExpression(int bindingPower, ExpressionNode left) throws UnexpectedTokenException {
         OperationExpression node = new OperationExpression();
         node.tokenStart = left.tokenStart;
         node.operator = parser.consume();
@@ -98,7 +97,7 @@ public class ExpressionParser {
         return node;
     }
 
-    public PostfixExpression parsePostfixExpression(Integer bindingPower, ExpressionNode left) throws UnexpectedTokenException {
+    public PostfixExpression parsePostfixExpression(int bindingPower, ExpressionNode left) throws UnexpectedTokenException {
         PostfixExpression node = new PostfixExpression();
         node.tokenStart = parser.getIndex();
         node.expression = left;
@@ -120,9 +119,9 @@ public class ExpressionParser {
         CodeBlockExpression node = new CodeBlockExpression();
         node.tokenStart = parser.getIndex();
 
-        parser.expect(TokenType.OPEN_CURLY);
-        while (parser.peek().type != TokenType.CLOSED_CURLY) { node.children.add(parser.parseStatement()); }
-        parser.expect(TokenType.CLOSED_CURLY);
+        parser.skip(TokenType.OPEN_CURLY);
+        while (parser.peekType() != TokenType.CLOSED_CURLY) { node.children.add(parser.parseStatement()); }
+        parser.skip(TokenType.CLOSED_CURLY);
 
         node.tokenEnd = parser.getIndex();
         return node;
@@ -133,7 +132,7 @@ public class ExpressionParser {
         node.tokenStart = parser.getIndex();
 
         while (true) {
-            parser.expect(TokenType.IF);
+            parser.skip(TokenType.IF);
 
             // var clause = parseExpression(BindingPower.LOWEST.ordinal());
             var clause = parseConditional(BindingPower.LOWEST.ordinal());
@@ -141,15 +140,13 @@ public class ExpressionParser {
             node.blocks.add(parseCodeBlockExpression());
 
             /* stop parsing if there is not another `else` */
-            Token token = parser.peek();
-            if (token.type != TokenType.ELSE) { break; }
-            parser.consume();
+            if (parser.peekType() != TokenType.ELSE) { break; }
+            parser.skip();
 
 
             /* if this is an `else` block and not an `else if` block, 
                 parse the final block expression of the if expression */
-            token = parser.peek();
-            if (token.type != TokenType.IF) { 
+            if (parser.peekType() != TokenType.IF) { 
                 node.blocks.add(parseCodeBlockExpression());
                 break;
             }
@@ -164,16 +161,19 @@ public class ExpressionParser {
      * 1. (a, b) -> {};
      * 2. (a + b);
      * 
-     * Check for the first case then proceed to the second case as fallback.
+     * Look ahead for the arrow after the matching parenthesis to pick one, instead of parsing the first case
+     * and backtracking to the second one on an exception.
      */
     public ExpressionNode handleAmbiguousOpenParentheses() throws UnexpectedTokenException {
-        int beforeParsingParamsIndex = parser.getIndex();
+        if (parser.isArrowAfterParentheses(ExpressionParser::isParameterToken)) { return parseFunctionExpression(); }
+        return parseGroupedExpression();
+    }
 
-        try { return parseFunctionExpression(); } 
-        catch (UnexpectedTokenException exception) {
-            if (!exception.recoverableFrom(ErrorRecovery.AmbiguousOpenParentheses)) { throw exception; }
-            parser.setIndex(beforeParsingParamsIndex);
-            return parseGroupedExpression();
+    /** Tokens of identifiers with optional type annotations, see {@link TypeAnnotationParser#isParameterToken(TokenType)} */
+    private static boolean isParameterToken(TokenType type) {
+        switch (type) {
+            case IDENTIFIER: case COLON: { return true; }
+            default: { return TypeAnnotationParser.isParameterToken(type); }
         }
     }
 
@@ -182,13 +182,9 @@ public class ExpressionParser {
         FunctionExpression node = new FunctionExpression();
         node.tokenStart = parser.getIndex();
         node.params = parseFunctionParamsDefinition();
-        try {
-            parser.expect(TokenType.ARROW);
-        } catch (UnexpectedTokenException exception) {
-            throw exception.withRecoveryStrategy(ErrorRecovery.AmbiguousOpenParentheses);
-        }
+        parser.skip(TokenType.ARROW);
 
-        if (parser.peek().type != TokenType.OPEN_CURLY) {
+        if (parser.peekType() != TokenType.OPEN_CURLY) {
             node.annotatedReturnType = typeAnnotationParser.parseTypeSignature(BindingPower.LOWEST.ordinal());
         }
 
@@ -202,11 +198,7 @@ public class ExpressionParser {
      * Function parameters must all be identifiers, followed by an optional type
      */
     public List<IdentifierExpression> parseFunctionParamsDefinition() throws UnexpectedTokenException {
-        try {
-            return parseTupleExpression(() -> identifierMemberParser.parseIdentifierWithOptionalType());
-        } catch (UnexpectedTokenException exception) {
-            throw exception.withRecoveryStrategy(ErrorRecovery.AmbiguousOpenParentheses);
-        }
+        return parseTupleExpression(() -> identifierMemberParser.parseIdentifierWithOptionalType());
     }
     
     /**
@@ -223,16 +215,15 @@ public class ExpressionParser {
     public <T extends ExpressionNode> List<T> parseTupleExpression(NodeSupplier<T> supplier) throws UnexpectedTokenException {
         List<T> expressions = new ArrayList<>();
 
-        parser.expect(TokenType.OPEN_PAREN);
+        parser.skip(TokenType.OPEN_PAREN);
 
-        switch (parser.peek().type) {
-            case CLOSED_PAREN: { parser.consume(); return expressions; }
+        switch (parser.peekType()) {
+            case CLOSED_PAREN: { parser.skip(); return expressions; }
             default: { expressions.add(supplier.get()); }
         }
 
         while (true) {
-            Token token = parser.expect(TokenType.CLOSED_PAREN, TokenType.COMMA);
-            switch (token.type) {
+            switch (parser.skip(TokenType.CLOSED_PAREN, TokenType.COMMA)) {
                 case CLOSED_PAREN: { return expressions; }
                 case COMMA: { expressions.add(supplier.get()); break; }
                 default: { throw new RuntimeException("Unreachable state, expected token types should have been exhausted."); }
@@ -240,7 +231,7 @@ public class ExpressionParser {
         }
     }
 
-    public FunctionCallExpression parseFunctionCallExpression(Integer bindingPower, ExpressionNode left) throws UnexpectedTokenException {
+    public FunctionCallExpression parseFunctionCallExpression(int bindingPower, ExpressionNode left) throws UnexpectedTokenException {
         FunctionCallExpression node = new FunctionCallExpression();
         node.tokenStart = left.tokenStart;
         node.functionIdentifier = left;
@@ -256,9 +247,9 @@ public class ExpressionParser {
     public GroupedExpression parseGroupedExpression() throws UnexpectedTokenException {
         GroupedExpression node = new GroupedExpression();
         node.tokenStart = parser.getIndex();
-        parser.expect(TokenType.OPEN_PAREN);
+        parser.skip(TokenType.OPEN_PAREN);
         node.expression = parseExpression(BindingPower.LOWEST.ordinal());
-        parser.expect(TokenType.CLOSED_PAREN);
+        parser.skip(TokenType.CLOSED_PAREN);
         node.tokenEnd = parser.getIndex();
         return node;
     }
@@ -271,7 +262,7 @@ public class ExpressionParser {
         return node;
     }
 
-    public AssignmentExpression parseAssignmentExpression(Integer bindingPower, ExpressionNode left) throws UnexpectedTokenException {
+    public AssignmentExpression parseAssignmentExpression(int bindingPower, ExpressionNode left) throws UnexpectedTokenException {
         AssignmentExpression node = new AssignmentExpression();
         node.tokenStart = left.tokenStart;
 
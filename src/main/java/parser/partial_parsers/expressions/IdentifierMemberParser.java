@@ -4,7 +4,6 @@ import java.util.List;
 
 import ast.exprs.IdentifierExpression;
 import errors.parser.UnexpectedTokenException;
-import lexer.tokens.Token;
 import lexer.tokens.TokenType;
 import parser.Parser;
 
@@ -27,7 +26,7 @@ public class IdentifierMemberParser {
 
     public IdentifierExpression parseIdentifierWithOptionalType() throws UnexpectedTokenException {
         IdentifierExpression node = parseIdentifierExpression();
-        if (parser.peek().is(TokenType.COLON)) {
+        if (parser.peekType() == TokenType.COLON) {
             node.typeAnnotation = typeAnnotationParser.parseTypeAnnotation();
             node.tokenEnd = parser.getIndex();
         }
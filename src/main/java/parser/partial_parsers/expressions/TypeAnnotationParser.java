@@ -6,7 +6,6 @@ import java.util.List;
 import ast.annotations.TypeAnnotation;
 import ast.types.*;
 import errors.parser.UnexpectedTokenException;
-import errors.parser.UnexpectedTokenException.ErrorRecovery;
 import lexer.tokens.Token;
 import lexer.tokens.TokenType;
 import parser.partial_parsers.expressions.pratt.BindingPower;
@@ -26,46 +25,43 @@ public class TypeAnnotationParser {
         TypeAnnotation node = new TypeAnnotation();
         node.tokenStart = parser.getIndex();
 
-        parser.expect(TokenType.COLON);
+        parser.skip(TokenType.COLON);
         node.typeSignature = parseTypeSignature(BindingPower.LOWEST.ordinal());
 
         node.tokenEnd = parser.getIndex();
         return node;
     }
 
-    public TypeSignature parseTypeSignature(Integer bindingPower) throws UnexpectedTokenException {
-        Token token = parser.peek();
+    public TypeSignature parseTypeSignature(int bindingPower) throws UnexpectedTokenException {
+        TokenType type = parser.peekType();
 
-        var nullHandler = lookups.nullDenotationHandlers.get(token.type);
-        if (nullHandler == null) { throw new UnexpectedTokenException(token, lookups.nullDenotationHandlers.keySet().stream().toList()); }
+        var nullHandler = lookups.nullDenotationHandlers[type.ordinal()];
+        if (nullHandler == null) { throw new UnexpectedTokenException(parser.peek(), lookups.nullDenotationTypes()); }
         TypeSignature left = nullHandler.invoke();
 
-        token = parser.peek();
-        Integer nextBindingPower = lookups.bindingPowers.getOrDefault(token.type, -1);
+        type = parser.peekType();
+        int nextBindingPower = lookups.bindingPowers[type.ordinal()];
 
         while (nextBindingPower > bindingPower) {
-            var leftHandler = lookups.leftDenotationHandlers.get(token.type);
-            if (leftHandler == null) { throw new UnexpectedTokenException(token, lookups.leftDenotationHandlers.keySet().stream().toList()); }
+            var leftHandler = lookups.leftDenotationHandlers[type.ordinal()];
+            if (leftHandler == null) { throw new UnexpectedTokenException(parser.peek(), lookups.leftDenotationTypes()); }
             left = leftHandler.invoke(nextBindingPower, left);
             
-            token = parser.peek();
-            nextBindingPower = lookups.bindingPowers.getOrDefault(token.type, -1);
+            type = parser.peekType();
+            nextBindingPower = lookups.bindingPowers[type.ordinal()];
         }
 
         return left;
     }
 
-    public TypeSignature parseOptionalType(Integer bindingPower, TypeSignature left) throws UnexpectedTokenException {
-        parser.expect(TokenType.QUESTION_MARK);
-        left.optional = true;
-        return left;
+    public TypeSignature parseOptionalType(int bindingPower, TypeSignature left) throws UnexpectedTokenException {
+        parser.skip(TokenType.QUESTION_MARK);
+        return TypeTable.optional(left);
     }
 
     public PrimitiveType parsePrimitiveType() throws UnexpectedTokenException {
-        PrimitiveType node = new PrimitiveType();
         Token token = parser.expect(TokenType.PRIMITIVE_TYPE);
-        node.primitiveType = PrimitiveType.Value.fromToken(token);
-        return node;
+        return TypeTable.primitive(PrimitiveType.Value.fromToken(token));
     }
 
     /** user-defined types, eg. structs */
@@ -74,7 +70,7 @@ public class TypeAnnotationParser {
     //     return IdentifierType.fromToken(token);
     // }
 
-    // public MemberType parseMemberType(Integer bindingPower, TypeSignature left) throws UnexpectedTokenException {
+    // public MemberType parseMemberType(int bindingPower, TypeSignature left) throws UnexpectedTokenException {
     //     MemberType node = new MemberType();
     //     parser.expect(TokenType.PERIOD);
 
@@ -85,51 +81,47 @@ public class TypeAnnotationParser {
     //     return node;
     // }
 
+    /** A function type if an arrow follows the matching parenthesis, eg. {@code (Int) -> Bool}, else a grouped type, eg. {@code (Int)?} */
     public TypeSignature handleAmbiguousOpenParentheses() throws UnexpectedTokenException {
-        int beforeParsingParamsIndex = parser.getIndex();
+        if (parser.isArrowAfterParentheses(TypeAnnotationParser::isParameterToken)) { return parseFunctionType(); }
+        return parseGroupedType();
+    }
 
-        try { return parseFunctionType(); } 
-        catch (UnexpectedTokenException exception) {
-            if (!exception.recoverableFrom(ErrorRecovery.AmbiguousOpenParentheses)) { throw exception; }
-            parser.setIndex(beforeParsingParamsIndex);
-            return parseGroupedType();
+    /** @return if the token may appear in the parameter types of a function type */
+    static boolean isParameterToken(TokenType type) {
+        switch (type) {
+            case PRIMITIVE_TYPE: case COMMA: case ARROW: case QUESTION_MARK: case OPEN_PAREN: case CLOSED_PAREN: { return true; }
+            default: { return false; }
         }
     }
 
     public TypeSignature parseGroupedType() throws UnexpectedTokenException {
-        parser.expect(TokenType.OPEN_PAREN);
+        parser.skip(TokenType.OPEN_PAREN);
         TypeSignature node = parseTypeSignature(BindingPower.LOWEST.ordinal());
-        parser.expect(TokenType.CLOSED_PAREN);
+        parser.skip(TokenType.CLOSED_PAREN);
         return node;
     }
 
     public List<TypeSignature> parseFunctionParamTypes() throws UnexpectedTokenException {
         List<TypeSignature> paramTypes = new ArrayList<>();
-        try {
-            parser.expect(TokenType.OPEN_PAREN);
-            switch (parser.peek().type) {
-                case CLOSED_PAREN: { parser.consume(); return paramTypes; }
-                default: { paramTypes.add(parseTypeSignature(BindingPower.LOWEST.ordinal())); }
-            }
+        parser.skip(TokenType.OPEN_PAREN);
+        switch (parser.peekType()) {
+            case CLOSED_PAREN: { parser.skip(); return paramTypes; }
+            default: { paramTypes.add(parseTypeSignature(BindingPower.LOWEST.ordinal())); }
+        }
 
-            while (true) {
-                Token token = parser.expect(TokenType.CLOSED_PAREN, TokenType.COMMA);
-                switch (token.type) {
-                    case CLOSED_PAREN: { return paramTypes; }
-                    case COMMA: { paramTypes.add(parseTypeSignature(BindingPower.COMMA.ordinal())); break; }
-                    default: { throw new RuntimeException("Unreachable state, expected token types should have been exhausted."); }
-                }
+        while (true) {
+            switch (parser.skip(TokenType.CLOSED_PAREN, TokenType.COMMA)) {
+                case CLOSED_PAREN: { return paramTypes; }
+                case COMMA: { paramTypes.add(parseTypeSignature(BindingPower.COMMA.ordinal())); break; }
+                default: { throw new RuntimeException("Unreachable state, expected token types should have been exhausted."); }
             }
-        } catch (UnexpectedTokenException exception) {
-            throw new UnexpectedTokenException(exception.getToken(), exception.getExpectedTypes(), ErrorRecovery.AmbiguousOpenParentheses);
         }
     }
 
     public FunctionType parseFunctionType() throws UnexpectedTokenException {
-        FunctionType node = new FunctionType();
-        node.paramTypes = parseFunctionParamTypes();
-        parser.expect(TokenType.ARROW);
-        node.returnType = parseTypeSignature(BindingPower.LOWEST.ordinal());
-        return node;
+        List<TypeSignature> paramTypes = parseFunctionParamTypes();
+        parser.skip(TokenType.ARROW);
+        return TypeTable.function(paramTypes, parseTypeSignature(BindingPower.LOWEST.ordinal()));
     }
 }
\ No newline at end of file
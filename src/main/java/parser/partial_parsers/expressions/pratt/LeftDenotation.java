@@ -3,6 +3,6 @@ package parser.partial_parsers.expressions.pratt;
 import errors.parser.UnexpectedTokenException;
 
 @FunctionalInterface
-public interface LeftDenotation<Arg1, Arg2, ReturnType> {
-    ReturnType invoke(Arg1 arg1, Arg2 arg2) throws UnexpectedTokenException;
-}
\ No newline at end of file
+public interface LeftDenotation<Arg, ReturnType> {
+    ReturnType invoke(int bindingPower, Arg left) throws UnexpectedTokenException;
+}
@@ -1,32 +1,59 @@
 package parser.partial_parsers.expressions.pratt;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import ast.*;
 import lexer.tokens.TokenType;
 import parser.partial_parsers.expressions.ExpressionParser;
 
 public class LiteralExpressionLookups {
+    private static final TokenType[] TYPES = TokenType.values();
+
     private ExpressionParser parser;
-    public final HashMap<TokenType, Integer> bindingPowers = new HashMap<>();
-    public final HashMap<TokenType, NullDenotation<ExpressionNode>> nullDenotationHandlers = new HashMap<>();
-    public final HashMap<TokenType, LeftDenotation<Integer, ExpressionNode, ExpressionNode>> leftDenotationHandlers = new HashMap<>();
+
+    /* indexed by the ordinals of the token types, -1 for tokens that do not continue an expression */
+    public final int[] bindingPowers = new int[TYPES.length];
+    @SuppressWarnings("unchecked")
+    public final NullDenotation<ExpressionNode>[] nullDenotationHandlers = (NullDenotation<ExpressionNode>[]) new NullDenotation<?>[TYPES.length];
+    @SuppressWarnings("unchecked")
+    public final LeftDenotation<ExpressionNode, ExpressionNode>[] leftDenotationHandlers = (LeftDenotation<ExpressionNode, ExpressionNode>[]) new LeftDenotation<?, ?>[TYPES.length];
 
     private void addNullDenotation(TokenType type, NullDenotation<ExpressionNode> handler) {
-        bindingPowers.put(type, BindingPower.HIGHEST.ordinal());
-        nullDenotationHandlers.put(type, handler);
+        bindingPowers[type.ordinal()] = BindingPower.HIGHEST.ordinal();
+        nullDenotationHandlers[type.ordinal()] = handler;
     }
 
-    private void addLeftDenotation(TokenType type, LeftDenotation<Integer, ExpressionNode, ExpressionNode> handler, BindingPower bindingPower) {
-        bindingPowers.put(type, bindingPower.ordinal());
-        leftDenotationHandlers.put(type, handler);
+    private void addLeftDenotation(TokenType type, LeftDenotation<ExpressionNode, ExpressionNode> handler, BindingPower bindingPower) {
+        bindingPowers[type.ordinal()] = bindingPower.ordinal();
+        leftDenotationHandlers[type.ordinal()] = handler;
     }
 
     public LiteralExpressionLookups(ExpressionParser parser) {
         this.parser = parser;
+        Arrays.fill(bindingPowers, -1);
         addNullDenotations();
         addLeftDenotations();
-        this.bindingPowers.remove(TokenType.OPEN_CURLY);
+        this.bindingPowers[TokenType.OPEN_CURLY.ordinal()] = -1;
+    }
+
+    /** @return the token types that can start an expression, for errors */
+    public List<TokenType> nullDenotationTypes() {
+        return typesOf(nullDenotationHandlers);
+    }
+
+    /** @return the token types that can continue an expression, for errors */
+    public List<TokenType> leftDenotationTypes() {
+        return typesOf(leftDenotationHandlers);
+    }
+
+    private static List<TokenType> typesOf(Object[] handlers) {
+        List<TokenType> types = new ArrayList<>();
+        for (int i = 0; i < handlers.length; i++) {
+            if (handlers[i] != null) { types.add(TYPES[i]); }
+        }
+        return types;
     }
 
     public void addLeftDenotations() {
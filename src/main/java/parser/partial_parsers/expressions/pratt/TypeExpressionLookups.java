@@ -1,33 +1,60 @@
 package parser.partial_parsers.expressions.pratt;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import ast.types.TypeSignature;
 import lexer.tokens.TokenType;
 import parser.partial_parsers.expressions.TypeAnnotationParser;
 
 public class TypeExpressionLookups {
+    private static final TokenType[] TYPES = TokenType.values();
+
     private TypeAnnotationParser parser;
-    public final HashMap<TokenType, Integer> bindingPowers = new HashMap<>();
-    public final HashMap<TokenType, NullDenotation<TypeSignature>> nullDenotationHandlers = new HashMap<>();
-    public final HashMap<TokenType, LeftDenotation<Integer, TypeSignature, TypeSignature>> leftDenotationHandlers = new HashMap<>();
 
-    private void addNullDenotation(TokenType type,  NullDenotation<TypeSignature> handler) {
-        bindingPowers.put(type, BindingPower.HIGHEST.ordinal());
-        nullDenotationHandlers.put(type, handler);
+    /* indexed by the ordinals of the token types, -1 for tokens that do not continue a type */
+    public final int[] bindingPowers = new int[TYPES.length];
+    @SuppressWarnings("unchecked")
+    public final NullDenotation<TypeSignature>[] nullDenotationHandlers = (NullDenotation<TypeSignature>[]) new NullDenotation<?>[TYPES.length];
+    @SuppressWarnings("unchecked")
+    public final LeftDenotation<TypeSignature, TypeSignature>[] leftDenotationHandlers = (LeftDenotation<TypeSignature, TypeSignature>[]) new LeftDenotation<?, ?>[TYPES.length];
+
+    private void addNullDenotation(TokenType type, NullDenotation<TypeSignature> handler) {
+        bindingPowers[type.ordinal()] = BindingPower.HIGHEST.ordinal();
+        nullDenotationHandlers[type.ordinal()] = handler;
     }
 
-    private void addLeftDenotation(TokenType type, LeftDenotation<Integer, TypeSignature, TypeSignature> handler, BindingPower bindingPower) {
-        bindingPowers.put(type, bindingPower.ordinal());
-        leftDenotationHandlers.put(type, handler);
+    private void addLeftDenotation(TokenType type, LeftDenotation<TypeSignature, TypeSignature> handler, BindingPower bindingPower) {
+        bindingPowers[type.ordinal()] = bindingPower.ordinal();
+        leftDenotationHandlers[type.ordinal()] = handler;
     }
 
     public TypeExpressionLookups(TypeAnnotationParser parser) {
         this.parser = parser;
+        Arrays.fill(bindingPowers, -1);
         addNullDenotations();
         addLeftDenotations();
     }
 
+    /** @return the token types that can start a type, for errors */
+    public List<TokenType> nullDenotationTypes() {
+        return typesOf(nullDenotationHandlers);
+    }
+
+    /** @return the token types that can continue a type, for errors */
+    public List<TokenType> leftDenotationTypes() {
+        return typesOf(leftDenotationHandlers);
+    }
+
+    private static List<TokenType> typesOf(Object[] handlers) {
+        List<TokenType> types = new ArrayList<>();
+        for (int i = 0; i < handlers.length; i++) {
+            if (handlers[i] != null) { types.add(TYPES[i]); }
+        }
+        return types;
+    }
+
     public void addLeftDenotations() {
         // addLeftDenotation(TokenType.PERIOD, parser::parseMemberType, BindingPower.MEMBER);
         addLeftDenotation(TokenType.QUESTION_MARK, parser::parseOptionalType, BindingPower.PREFIX);
@@ -5,7 +5,6 @@ import java.util.List;
 import ast.*;
 import ast.stmts.*;
 import errors.parser.UnexpectedTokenException;
-import lexer.tokens.Token;
 import lexer.tokens.TokenType;
 import parser.Parser;
 import parser.partial_parsers.expressions.ExpressionParser;
@@ -21,8 +20,7 @@ public class StatementParser {
     }
 
     public StatementNode parseStatement() throws UnexpectedTokenException {
-        Token token = parser.peek();
-        switch (token.type) {
+        switch (parser.peekType()) {
             case COMMENT: { return parseCommentStatement(); }
             case LET: { return parseVariableDeclaration(); }
             case GUARD: { return parseGuardStatement(); }
@@ -33,17 +31,18 @@ public class StatementParser {
 
     /** Valid top-level (program level) statements */
     public StatementNode parseDeclarationOrComment() throws UnexpectedTokenException {
-        Token token = parser.peek();
-        switch (token.type) {
+        switch (parser.peekType()) {
             case COMMENT: { return parseCommentStatement(); }
             case LET: { return parseVariableDeclaration(); }
-            default: { throw new UnexpectedTokenException(token, List.of(TokenType.COMMENT, TokenType.LET)); }
+            default: { throw new UnexpectedTokenException(parser.peek(), List.of(TokenType.COMMENT, TokenType.LET)); }
         }
     }
 
     public CommentStatement parseCommentStatement() throws UnexpectedTokenException {
         CommentStatement node = new CommentStatement();
+        node.tokenStart = parser.getIndex();
         node.comment = parser.expect(TokenType.COMMENT);
+        node.tokenEnd = parser.getIndex();
         return node;
     }
 
@@ -59,7 +58,7 @@ public class StatementParser {
         ExpressionStatement node = new ExpressionStatement();
         node.tokenStart = parser.getIndex();
         node.expression = expressionParser.parseExpression(BindingPower.LOWEST.ordinal());
-        parser.expect(TokenType.SEMICOLON);
+        parser.skip(TokenType.SEMICOLON);
         node.tokenEnd = parser.getIndex();
         return node;
     }
@@ -69,7 +68,7 @@ public class StatementParser {
         GuardStatement node = new GuardStatement();
         node.tokenStart = parser.getIndex();
 
-        parser.expect(TokenType.GUARD);
+        parser.skip(TokenType.GUARD);
 
         // var clause = expressionParser.parseExpression(BindingPower.LOWEST.ordinal());
         var clause = expressionParser.parseConditional(BindingPower.LOWEST.ordinal());
@@ -77,7 +76,7 @@ public class StatementParser {
 
         node.body = expressionParser.parseCodeBlockExpression();
 
-        parser.expect(TokenType.SEMICOLON);
+        parser.skip(TokenType.SEMICOLON);
         node.tokenEnd = parser.getIndex();
         return node;
     }
@@ -85,10 +84,10 @@ public class StatementParser {
     public ReturnStatement parseReturnStatement() throws UnexpectedTokenException {
         ReturnStatement node = new ReturnStatement();
         node.tokenStart = parser.getIndex();
-        parser.expect(TokenType.RETURN);
+        parser.skip(TokenType.RETURN);
 
         node.returnExpression = expressionParser.parseExpression(BindingPower.LOWEST.ordinal());
-        parser.expect(TokenType.SEMICOLON);
+        parser.skip(TokenType.SEMICOLON);
 
         node.tokenEnd = parser.getIndex();
         return node;
@@ -104,7 +103,7 @@ public class StatementParser {
         node.identifier = identifier;
         node.assignmentExpression = assignment;
 
-        parser.expect(TokenType.SEMICOLON);
+        parser.skip(TokenType.SEMICOLON);
         node.tokenEnd = parser.getIndex();
         return node;
     }
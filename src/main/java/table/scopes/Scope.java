@@ -17,6 +17,7 @@ public abstract class Scope {
     protected static long globalScopeCount = 1;
     protected static long globalIdentifierCount = 0;
 
+    /* the scope tree is only built for debugging and the REPL, see interpreter.Frame */
     // protected Map<String, Symbol> members = new LinkedHashMap<>();
     public Map<String, Symbol> members = new LinkedHashMap<>();
     // protected Map<String, Scope> children = new LinkedHashMap<>();
@@ -43,7 +44,7 @@ public abstract class Scope {
     }
 
     public Symbol find(IdentifierExpression identifier) throws UndeclaredIdentifierException {
-        String identifierName = String.valueOf(identifier.identifier.text);
+        String identifierName = identifier.identifier.text();
         return this.find(identifierName, identifier);
     }
 
@@ -56,7 +57,7 @@ public abstract class Scope {
     }
 
     public Symbol findIteratively(IdentifierExpression identifier) throws UndeclaredIdentifierException {
-        String identifierName = String.valueOf(identifier.identifier.text);
+        String identifierName = identifier.identifier.text();
         Scope scope = this;
         while (scope != null) {
             Symbol symbol = scope.members.get(identifierName);
@@ -72,14 +73,14 @@ public abstract class Scope {
      * ONLY USE FOR READ-EVAL-PRINT-LOOP
      */
     public void remove(IdentifierExpression identifier) {
-        String name = String.valueOf(identifier.identifier.text);
+        String name = identifier.identifier.text();
         this.children.remove(name);
         this.members.remove(name);
     }
 
     public Scope addFunctionScope(IdentifierExpression identifier) {
         long uniqueGlobalIndex = ++globalScopeCount;
-        String scopeName = String.valueOf(identifier.identifier.text);
+        String scopeName = identifier.identifier.text();
 
         Scope childScope = new FunctionScope(scopeName, uniqueGlobalIndex, children.size(), this);
         children.put(scopeName, childScope);
@@ -105,7 +106,7 @@ public abstract class Scope {
     //  * @throws DuplicateIdentifierException
     //  */
     // public Symbol declareAndDefineType(IdentifierExpression identifier, ExpressionNode definition) throws DuplicateIdentifierException {
-    //     String identifierName = String.valueOf(identifier.identifier.text);
+    //     String identifierName = identifier.identifier.text();
     //     if (this.members.containsKey(identifierName)) { throw new DuplicateIdentifierException(identifier); }
     //     Symbol symbol = new Symbol(identifierName, definition.typeSignature, this);
     //     this.members.put(identifierName, symbol);
@@ -113,7 +114,7 @@ public abstract class Scope {
     // }
 
     public Symbol declareAndDefineValue(IdentifierExpression identifier, Builtin.Any definition) throws DuplicateIdentifierException {
-        String identifierName = String.valueOf(identifier.identifier.text);
+        String identifierName = identifier.identifier.text();
         if (this.members.containsKey(identifierName)) { throw new DuplicateIdentifierException(identifier); }
         
         Scope.globalIdentifierCount++;
@@ -121,8 +122,7 @@ public abstract class Scope {
         Symbol symbol = new CompiledVariableSymbol(Scope.globalIdentifierCount, identifierName, this, definition);
         
         if (definition instanceof Builtin.Function functionDefinition) {
-            functionDefinition.scope.setName(identifierName);
-            symbol = new CompiledFunctionSymbol(Scope.globalIdentifierCount, identifierName, this, functionDefinition, functionDefinition.scope);
+            symbol = new CompiledFunctionSymbol(Scope.globalIdentifierCount, identifierName, this, functionDefinition, functionDefinition.closure.scope);
         }
         
         this.members.put(identifierName, symbol);
@@ -0,0 +1,23 @@
+package vm;
+
+import compiler.Chunk;
+import interpreter.Frame;
+import interpreter.builtins.Builtin;
+
+/**
+ * Function value of the virtual machine, a compiled function body paired with the frame it was created in.
+ */
+public final class Closure extends Builtin.Any {
+    public final Chunk chunk;
+    public final Frame closure;
+
+    public Closure(Chunk chunk, Frame closure) {
+        this.chunk = chunk;
+        this.closure = closure;
+    }
+
+    @Override
+    public java.lang.String toString() {
+        return "Function(" + chunk.params.stream().map(id -> id.identifier.text()).toList() + " -> ?)";
+    }
+}
@@ -0,0 +1,417 @@
+package vm;
+
+import java.util.Arrays;
+
+import ast.exprs.*;
+import ast.stmts.GuardStatement;
+import compiler.Chunk;
+import compiler.OpCode;
+import errors.analyzer.DuplicateIdentifierException;
+import errors.analyzer.UndeclaredIdentifierException;
+import interpreter.Frame;
+import interpreter.Operations;
+import interpreter.builtins.Builtin;
+
+/**
+ * Operand stack machine that runs the {@link Chunk}s produced by {@link compiler.Compiler}.
+ * <p>
+ * Script calls do not recurse on the Java stack, every call pushes a {@link CallFrame} instead.
+ * Tail calls replace the running function in its {@link CallFrame}.
+ * <p>
+ * The operand stack and the call frames live on the heap and grow on demand, so the recursion depth
+ * is bounded by the memory budget given to the machine rather than by the size of the thread's stack.
+ * The budget covers the operand stack, the call frames and the {@link Frame}s of the calls and blocks that are running,
+ * by estimated sizes. The values in them and the frames kept alive by closures are program data and are not counted.
+ */
+public class VirtualMachine {
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /* estimated bytes per operand stack slot and per call frame, including its slot in the array */
+    private static final int SLOT_SIZE = 8;
+    private static final int CALL_FRAME_SIZE = 48;
+    /* a Frame object and the header of its slot array, its slots are SLOT_SIZE each */
+    private static final int FRAME_SIZE = 40;
+
+    private static final int INITIAL_STACK_SIZE = 256;
+    private static final int INITIAL_CALL_DEPTH = 64;
+
+    private static final class CallFrame {
+        Chunk chunk;
+        int returnAddress;
+        Frame frame;
+        int base;
+        /* frameMemory of the caller, restored when the call returns */
+        long frameMemory;
+    }
+
+    private final long memoryBudget;
+    private Builtin.Any[] stack = new Builtin.Any[INITIAL_STACK_SIZE];
+    private CallFrame[] callFrames = new CallFrame[INITIAL_CALL_DEPTH];
+    /* estimated bytes of the Frames of the running calls and blocks */
+    private long frameMemory = 0;
+
+    public VirtualMachine() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * @param memoryBudget estimated upper bound in bytes for the operand stack, the call frames and the Frames of the running calls together
+     */
+    public VirtualMachine(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public String run(Chunk program) throws UndeclaredIdentifierException, DuplicateIdentifierException {
+        Builtin.Any result = execute(program);
+        return result == null ? "" : result.toString();
+    }
+
+    /**
+     * @return the value of the program level {@code return} or taken {@code guard}, null if there was none
+     */
+    public Builtin.Any execute(Chunk program) throws UndeclaredIdentifierException, DuplicateIdentifierException {
+        if (program.maxStackSize > stack.length) { growStack(program.maxStackSize, program.name); }
+        Builtin.Any[] stack = this.stack;
+
+        Chunk chunk = program;
+        int[] code = chunk.code;
+        Frame frame = new Frame(null, program.frameSize, null);
+        frameMemory = frameSize(program.frameSize);
+        int callDepth = 0;
+        int ip = 0;
+        int sp = 0;
+
+        while (true) {
+            switch (code[ip++]) {
+                case OpCode.CONSTANT: {
+                    stack[sp++] = chunk.constants[code[ip++]];
+                    break;
+                }
+
+                case OpCode.VOID: {
+                    stack[sp++] = Builtin.Void.value();
+                    break;
+                }
+
+                case OpCode.POP: {
+                    stack[--sp] = null;
+                    break;
+                }
+
+                case OpCode.LOAD_LOCAL: {
+                    Builtin.Any value = frame.slots[code[ip]];
+                    if (value == null) { throw new UndeclaredIdentifierException((IdentifierExpression) chunk.nodes[code[ip + 1]]); }
+                    stack[sp++] = value;
+                    ip += 2;
+                    break;
+                }
+
+                case OpCode.LOAD: {
+                    Frame outer = frame;
+                    for (int depth = code[ip]; depth > 0; depth--) { outer = outer.parent; }
+
+                    Builtin.Any value = outer.slots[code[ip + 1]];
+                    if (value == null) { throw new UndeclaredIdentifierException((IdentifierExpression) chunk.nodes[code[ip + 2]]); }
+                    stack[sp++] = value;
+                    ip += 3;
+                    break;
+                }
+
+                case OpCode.UNDECLARED: {
+                    throw new UndeclaredIdentifierException((IdentifierExpression) chunk.nodes[code[ip]]);
+                }
+
+                case OpCode.DEFINE: {
+                    int slot = code[ip];
+                    if (frame.slots[slot] != null) { throw new DuplicateIdentifierException((IdentifierExpression) chunk.nodes[code[ip + 1]]); }
+                    frame.slots[slot] = stack[--sp];
+                    stack[sp] = null;
+                    ip += 2;
+                    break;
+                }
+
+                case OpCode.ADD: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.plus(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.SUBTRACT: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.minus(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.MULTIPLY: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.multiply(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.MODULO: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.modulo(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.LESS_THAN: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.lessThan(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.LESS_THAN_OR_EQUALS_TO: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.lessThanOrEqualsTo(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.GREATER_THAN: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.greaterThan(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.GREATER_THAN_OR_EQUALS_TO: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.greaterThanOrEqualsTo(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.EQUALS_TO: {
+                    Builtin.Any right = stack[--sp];
+                    Builtin.Any left = stack[sp - 1];
+                    if (left instanceof Builtin.Int leftInt && right instanceof Builtin.Int rightInt) { stack[sp - 1] = leftInt.equalsTo(rightInt); }
+                    else { stack[sp - 1] = binary(chunk, code[ip], left, right); }
+                    ip++;
+                    break;
+                }
+
+                case OpCode.DIVIDE, OpCode.NOT_EQUALS_TO, OpCode.AND, OpCode.OR, OpCode.BINARY: {
+                    Builtin.Any right = stack[--sp];
+                    stack[sp - 1] = binary(chunk, code[ip], stack[sp - 1], right);
+                    ip++;
+                    break;
+                }
+
+                case OpCode.PREFIX: {
+                    PrefixExpression prefixed = (PrefixExpression) chunk.nodes[code[ip++]];
+                    stack[sp - 1] = Operations.prefix(prefixed.prefix, stack[sp - 1]);
+                    break;
+                }
+
+                case OpCode.JUMP: {
+                    ip = code[ip];
+                    break;
+                }
+
+                case OpCode.JUMP_IF_FALSE: {
+                    Builtin.Any clause = stack[--sp];
+                    stack[sp] = null;
+                    if (clause == Builtin.Bool.FALSE) { ip = code[ip]; }
+                    else if (clause == Builtin.Bool.TRUE) { ip += 2; }
+                    else { throw nonBooleanClause(chunk.nodes[code[ip + 1]]); }
+                    break;
+                }
+
+                case OpCode.ENTER: {
+                    frameMemory += frameSize(code[ip]);
+                    frame = new Frame(frame, code[ip++], null);
+                    break;
+                }
+
+                case OpCode.LEAVE: {
+                    frameMemory -= frameSize(frame.slots.length);
+                    frame = frame.parent;
+                    break;
+                }
+
+                case OpCode.CLOSURE: {
+                    stack[sp++] = new Closure(chunk.functions[code[ip++]], frame);
+                    break;
+                }
+
+                case OpCode.CALL: {
+                    int argumentCount = code[ip];
+                    int base = sp - argumentCount - 1;
+                    FunctionCallExpression functionCall = (FunctionCallExpression) chunk.nodes[code[ip + 1]];
+
+                    if (!(stack[base] instanceof Closure function)) {
+                        throw new RuntimeException(functionCall.functionIdentifier + " is not a function.");
+                    }
+
+                    Chunk callee = function.chunk;
+                    if (callee.arity() != argumentCount) {
+                        throw new RuntimeException(functionCall.functionIdentifier + " expects " + callee.arity() + " arguments. " +
+                            argumentCount + " arguments were provided at call site: " + functionCall);
+                    }
+
+                    if (callDepth == callFrames.length) { growCallFrames(functionCall); }
+                    if (base + callee.maxStackSize > stack.length) { stack = growStack(base + callee.maxStackSize, functionCall); }
+                    long callerFrameMemory = frameMemory;
+                    reserveFrame(callerFrameMemory, callee.frameSize, functionCall);
+
+                    Frame calleeFrame = new Frame(function.closure, callee.frameSize, null);
+                    for (int i = 0; i < argumentCount; i++) {
+                        calleeFrame.define(callee.params.get(i), stack[base + 1 + i]);
+                        stack[base + 1 + i] = null;
+                    }
+
+                    CallFrame callFrame = callFrames[callDepth];
+                    if (callFrame == null) { callFrame = callFrames[callDepth] = new CallFrame(); }
+                    callFrame.chunk = chunk;
+                    callFrame.returnAddress = ip + 2;
+                    callFrame.frame = frame;
+                    callFrame.base = base;
+                    callFrame.frameMemory = callerFrameMemory;
+                    callDepth++;
+
+                    chunk = callee;
+                    code = callee.code;
+                    frame = calleeFrame;
+                    ip = 0;
+                    sp = base;
+                    break;
+                }
+
+                case OpCode.TAIL_CALL: {
+                    int argumentCount = code[ip];
+                    int arguments = sp - argumentCount;
+                    FunctionCallExpression functionCall = (FunctionCallExpression) chunk.nodes[code[ip + 1]];
+
+                    if (!(stack[arguments - 1] instanceof Closure function)) {
+                        throw new RuntimeException(functionCall.functionIdentifier + " is not a function.");
+                    }
+
+                    Chunk callee = function.chunk;
+                    if (callee.arity() != argumentCount) {
+                        throw new RuntimeException(functionCall.functionIdentifier + " expects " + callee.arity() + " arguments. " +
+                            argumentCount + " arguments were provided at call site: " + functionCall);
+                    }
+
+                    int base = callFrames[callDepth - 1].base;
+                    if (base + callee.maxStackSize > stack.length) { stack = growStack(base + callee.maxStackSize, functionCall); }
+                    /* the callee frame hangs off its closure, so the frames of the caller are no longer running */
+                    reserveFrame(callFrames[callDepth - 1].frameMemory, callee.frameSize, functionCall);
+
+                    Frame calleeFrame = new Frame(function.closure, callee.frameSize, null);
+                    for (int i = 0; i < argumentCount; i++) {
+                        calleeFrame.define(callee.params.get(i), stack[arguments + i]);
+                    }
+                    for (int i = base; i < sp; i++) { stack[i] = null; }
+
+                    /* the call frame of the caller is reused, so the callee returns straight to it */
+                    chunk = callee;
+                    code = callee.code;
+                    frame = calleeFrame;
+                    ip = 0;
+                    sp = base;
+                    break;
+                }
+
+                case OpCode.RETURN: {
+                    Builtin.Any result = stack[--sp];
+
+                    CallFrame callFrame = callFrames[--callDepth];
+                    chunk = callFrame.chunk;
+                    code = chunk.code;
+                    frame = callFrame.frame;
+                    ip = callFrame.returnAddress;
+                    sp = callFrame.base;
+                    frameMemory = callFrame.frameMemory;
+                    callFrame.chunk = null;
+                    callFrame.frame = null;
+
+                    stack[sp++] = result;
+                    break;
+                }
+
+                case OpCode.HALT: {
+                    Builtin.Any result = stack[--sp];
+                    stack[sp] = null;
+                    return result;
+                }
+
+                case OpCode.EXIT: {
+                    return null;
+                }
+
+                default: { throw new IllegalStateException("Unknown op code: " + code[ip - 1]); }
+            }
+        }
+    }
+
+    private long memoryUsage(int stackSize, int callDepth) {
+        return (long) stackSize * SLOT_SIZE + (long) callDepth * CALL_FRAME_SIZE + frameMemory;
+    }
+
+    private static long frameSize(int slots) {
+        return FRAME_SIZE + (long) slots * SLOT_SIZE;
+    }
+
+    /** Accounts for the frame of a call on top of the frames of its caller, if it fits in the budget. */
+    private void reserveFrame(long callerFrameMemory, int slots, Object site) {
+        frameMemory = callerFrameMemory + frameSize(slots);
+        if (memoryUsage(stack.length, callFrames.length) > memoryBudget) { throw stackOverflow(site); }
+    }
+
+    /**
+     * Doubles the operand stack, or grows it to whatever is left of the budget if doubling would exceed it.
+     */
+    private Builtin.Any[] growStack(int requiredSize, Object site) {
+        long available = (memoryBudget - memoryUsage(0, callFrames.length)) / SLOT_SIZE;
+        long size = Math.min(Math.max(requiredSize, (long) stack.length * 2), Math.min(available, Integer.MAX_VALUE - 8));
+        if (size < requiredSize) { throw stackOverflow(site); }
+
+        stack = Arrays.copyOf(stack, (int) size);
+        return stack;
+    }
+
+    private void growCallFrames(Object site) {
+        long available = (memoryBudget - memoryUsage(stack.length, 0)) / CALL_FRAME_SIZE;
+        long size = Math.min((long) callFrames.length * 2, Math.min(available, Integer.MAX_VALUE - 8));
+        if (size <= callFrames.length) { throw stackOverflow(site); }
+
+        callFrames = Arrays.copyOf(callFrames, (int) size);
+    }
+
+    private RuntimeException stackOverflow(Object site) {
+        return new RuntimeException("Stack overflow, memory budget of " + memoryBudget + " bytes exceeded at call site: " + site);
+    }
+
+    private static Builtin.Any binary(Chunk chunk, int node, Builtin.Any left, Builtin.Any right) {
+        OperationExpression operation = (OperationExpression) chunk.nodes[node];
+        return Operations.binary(operation.operator, left, right);
+    }
+
+    private static RuntimeException nonBooleanClause(Object node) {
+        if (node instanceof GuardStatement guard) {
+            return new RuntimeException("Guard statement clause does not evaluate to a boolean: " + guard);
+        }
+        return new RuntimeException("If expression clause does not evaluate to a boolean: " + node);
+    }
+}
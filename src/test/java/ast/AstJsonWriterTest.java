@@ -0,0 +1,95 @@
+package ast;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import ast.exprs.FunctionExpression;
+import ast.stmts.VariableDeclaration;
+import ast.types.TypeSignature;
+import errors.analyzer.UndeclaredIdentifierException;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AstJsonWriterTest {
+    private static final String PROGRAM = """
+        let fib = (n: Int) -> Int {
+            guard n <= 1 { return n; };
+            return fib(n - 1) + fib(n - 2);
+        };
+        // comment
+        let unwrap = (x: Int?) -> { return x!; };
+        let apply = (f: (Int) -> Int?, x: Int) -> { return f(x); };
+        let sign = (x: Int) -> Int {
+            return if x < 0 { return -1; } else if x == 0 { return 0; } else { return 1; };
+        };
+        let quoted = "a \\"quoted\\" \\\\ string\twith a tab";
+        let total = (fib(10) + sign(-3)) * 2;
+        return total + 1;
+        """;
+
+    private static final Gson pretty = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().serializeNulls().create();
+    private static final Gson compact = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+    private static ProgramNode program() throws Exception {
+        ProgramNode program = new Parser(new Lexer(ArraySource.fromString(PROGRAM)).tokenizeAll()).build();
+        /* resolves the frame slots and tail calls, so that they are written as well */
+        assertEquals("Int(109)", new Interpreter(program).run());
+        return program;
+    }
+
+    @Test
+    public void testWritesWhatGsonWrites() throws Exception {
+        ProgramNode program = program();
+
+        assertEquals(pretty.toJson(program), AstJsonWriter.toJson(program, false));
+        assertEquals(compact.toJson(program), AstJsonWriter.toJson(program, true));
+    }
+
+    @Test
+    public void testWritesTheTextAndLocationsOfTokens() throws Exception {
+        String json = AstJsonWriter.toJson(program(), true);
+
+        assertTrue(json.contains("{\"type\":\"IDENTIFIER\",\"text\":\"fib\",\"start\":{\"line\":0,\"column\":4,\"offset\":4},\"end\":{\"line\":0,\"column\":7,\"offset\":7}}"), json);
+        assertTrue(json.contains("\"text\":\"\\\"a \\\\\\\"quoted\\\\\\\" \\\\\\\\ string\\twith a tab\\\"\""), json);
+    }
+
+    @Test
+    public void testWritesSubtreesAndTypes() throws Exception {
+        ProgramNode program = program();
+        VariableDeclaration apply = (VariableDeclaration) program.children.get(3);
+        TypeSignature type = ((FunctionExpression) apply.assignmentExpression.right).params.get(0).typeAnnotation.typeSignature;
+
+        assertEquals(pretty.toJson(apply), AstJsonWriter.toJson(apply, false));
+        assertEquals(compact.toJson(type), AstJsonWriter.toJson(type, true));
+    }
+
+    @Test
+    public void testErrorsNameTheIdentifier() throws Exception {
+        ProgramNode program = new Parser(new Lexer(ArraySource.fromString("let a = 1;\nreturn b;")).tokenizeAll()).build();
+        var exception = assertThrows(UndeclaredIdentifierException.class, () -> new Interpreter(program).run());
+
+        assertTrue(exception.getMessage().startsWith("Undeclared identifier: {\"identifier\":Token { IDENTIFIER, 'b', [[1, 7; 18], [1, 8; 19]] },"), exception.getMessage());
+    }
+
+    @Test
+    public void testStreamsToAFile(@TempDir Path directory) throws Exception {
+        ProgramNode program = program();
+        Path file = directory.resolve("AST.json");
+        Files.writeString(file, "a longer file that is truncated first ".repeat(1000));
+
+        AstJsonWriter.write(program, file, false);
+        assertEquals(pretty.toJson(program), Files.readString(file));
+    }
+}
@@ -0,0 +1,143 @@
+package ast.flat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import ast.AstJsonWriter;
+import ast.ProgramNode;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenBuffer;
+import parser.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlatTreeCacheTest {
+    private static final String PROGRAM = """
+        let twice = (f: (Int) -> Int?, x: Int) -> Int { return f(f(x)!)!; };
+        // comment
+        let inc = (x: Int) -> Int? { return x + 1; };
+        let names = "a \\"string\\"";
+        let x: Int = 3;
+        return x * 2 + 1;
+        """;
+
+    private static final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    @TempDir
+    Path directory;
+
+    private File sourceFile;
+    private File cacheFile;
+    private byte[] hash;
+    private ProgramNode program;
+    private FlatTree tree;
+
+    @BeforeEach
+    public void parse() throws Exception {
+        sourceFile = directory.resolve("Test.ascetic").toFile();
+        Files.writeString(sourceFile.toPath(), PROGRAM);
+        cacheFile = FlatTreeCache.cacheFileOf(sourceFile);
+        hash = FlatTreeCache.hash(sourceFile);
+
+        TokenBuffer tokens = new Lexer(ArraySource.fromString(PROGRAM)).tokenizeAll();
+        program = new Parser(tokens).build();
+        tree = FlatTree.of(program, tokens);
+    }
+
+    @Test
+    public void testNamesTheCacheAfterTheSource() {
+        assertEquals(directory.resolve("Test.ascc").toFile().getAbsoluteFile(), cacheFile);
+    }
+
+    @Test
+    public void testLoadsTheStoredTree() throws Exception {
+        FlatTreeCache.store(cacheFile, hash, tree);
+        FlatTree loaded = FlatTreeCache.load(cacheFile, hash, PROGRAM.toCharArray());
+
+        assertNotNull(loaded);
+        assertEquals(FlatTreePrinter.toJson(tree), FlatTreePrinter.toJson(loaded));
+        assertEquals(gson.toJson(tree.toProgram()), gson.toJson(loaded.toProgram()));
+        /* a run from the cache writes the same AST.json as one that parses */
+        assertEquals(AstJsonWriter.toJson(program, false), AstJsonWriter.toJson(loaded.toProgram(), false));
+        assertEquals("Int(7)", new Interpreter(loaded.toProgram()).run());
+    }
+
+    @Test
+    public void testStampsTheJsonWrittenFromTheTree() throws Exception {
+        File json = directory.resolve("AST.json").toFile();
+        FlatTreeCache.store(cacheFile, hash, tree);
+        assertFalse(FlatTreeCache.isStamped(cacheFile, json, false));
+
+        AstJsonWriter.write(program, json.toPath(), false);
+        assertFalse(FlatTreeCache.isStamped(cacheFile, json, false));
+        FlatTreeCache.stamp(cacheFile, json, false);
+        assertTrue(FlatTreeCache.isStamped(cacheFile, json, false));
+        assertFalse(FlatTreeCache.isStamped(cacheFile, json, true));
+        /* the stamp is in the header, the tree still loads after it */
+        assertNotNull(FlatTreeCache.load(cacheFile, hash, PROGRAM.toCharArray()));
+
+        /* written over by another run */
+        AstJsonWriter.write(program, json.toPath(), true);
+        assertFalse(FlatTreeCache.isStamped(cacheFile, json, false));
+
+        /* a new tree has not been written out yet */
+        FlatTreeCache.stamp(cacheFile, json, true);
+        FlatTreeCache.store(cacheFile, hash, tree);
+        assertFalse(FlatTreeCache.isStamped(cacheFile, json, true));
+    }
+
+    /** A run from the cache loads the tree instead of lexing and parsing, this is the time it saves */
+    @Test
+    public void testLoadsFasterThanLexingAndParsing() throws Exception {
+        String source = PROGRAM.replace("return x * 2 + 1;", "").repeat(2000);
+        Files.writeString(sourceFile.toPath(), source);
+        byte[] sourceHash = FlatTreeCache.hash(sourceFile);
+        TokenBuffer tokens = new Lexer(ArraySource.fromString(source)).tokenizeAll();
+        FlatTreeCache.store(cacheFile, sourceHash, FlatTree.of(new Parser(tokens).build(), tokens));
+
+        long parsing = Long.MAX_VALUE, loading = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            new Parser(new Lexer(ArraySource.fromString(source)).tokenizeAll()).build();
+            parsing = Math.min(parsing, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            FlatTreeCache.load(cacheFile, sourceHash, source.toCharArray()).toProgram();
+            loading = Math.min(loading, System.nanoTime() - start);
+        }
+        System.out.println("parse " + parsing / 1000 + " us, load " + loading / 1000 + " us");
+        assertTrue(loading < parsing, "loading took " + loading / 1000 + " us, lexing and parsing " + parsing / 1000 + " us");
+    }
+
+    @Test
+    public void testMissesWhenTheSourceChanged() throws Exception {
+        FlatTreeCache.store(cacheFile, hash, tree);
+        Files.writeString(sourceFile.toPath(), PROGRAM + "\n");
+
+        assertNull(FlatTreeCache.load(cacheFile, FlatTreeCache.hash(sourceFile), (PROGRAM + "\n").toCharArray()));
+    }
+
+    @Test
+    public void testMissesWhenTheCacheIsMissingOrBroken() throws Exception {
+        assertNull(FlatTreeCache.load(cacheFile, hash, PROGRAM.toCharArray()));
+
+        FlatTreeCache.store(cacheFile, hash, tree);
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) { file.setLength(file.length() / 2); }
+        assertNull(FlatTreeCache.load(cacheFile, hash, PROGRAM.toCharArray()));
+    }
+}
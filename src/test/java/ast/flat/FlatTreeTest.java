@@ -0,0 +1,113 @@
+package ast.flat;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import ast.ProgramNode;
+import errors.parser.UnexpectedTokenException;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenBuffer;
+import lexer.tokens.TokenType;
+import parser.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FlatTreeTest {
+    private static final String PROGRAM = """
+        let fib = (n: Int) -> Int {
+            guard n <= 1 { return n; };
+            return fib(n - 1) + fib(n - 2);
+        };
+        // comment
+        let unwrap = (x: Int?) -> { return x!; };
+        let apply = (f: (Int) -> Int, x: Int) -> { return f(x); };
+        let sign = (x: Int) -> Int {
+            return if x < 0 { return -1; } else if x == 0 { return 0; } else { return 1; };
+        };
+        let s = "a \\"string\\"";
+        let total = (fib(10) + sign(-3)) * apply((y) -> { return y * 2; }, 4);
+        return total;
+        """;
+
+    private static final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    private static TokenBuffer tokens(String text) {
+        return new Lexer(ArraySource.fromString(text)).tokenizeAll();
+    }
+
+    @Test
+    public void testMaterializesTheSameProgram() throws Exception {
+        TokenBuffer tokens = tokens(PROGRAM);
+        ProgramNode program = new Parser(tokens).build();
+        FlatTree tree = FlatTree.of(program, tokens);
+
+        assertEquals(gson.toJson(program), gson.toJson(tree.toProgram()));
+        assertEquals("Int(432)", new Interpreter(tree.toProgram()).run());
+    }
+
+    @Test
+    public void testParsesStatementByStatement() throws UnexpectedTokenException {
+        TokenBuffer tokens = tokens(PROGRAM);
+        FlatTree expected = FlatTree.of(new Parser(tokens).build(), tokens);
+        FlatTree streamed = FlatTree.parse(new Parser(new Lexer(ArraySource.fromString(PROGRAM))));
+
+        assertEquals(expected.size(), streamed.size());
+        assertEquals(FlatTreePrinter.toJson(expected), FlatTreePrinter.toJson(streamed));
+    }
+
+    @Test
+    public void testViews() throws UnexpectedTokenException {
+        TokenBuffer tokens = tokens(PROGRAM);
+        FlatTree tree = FlatTree.of(new Parser(tokens).build(), tokens);
+
+        int root = tree.root();
+        assertEquals(8, tree.childCount(root));
+        assertEquals(tree.size(), tree.subtreeEnd(root));
+
+        /* let fib = ... */
+        int declaration = tree.firstChild(root);
+        assertEquals(FlatTree.Kind.VARIABLE_DECLARATION, tree.kind(declaration));
+        int assignment = tree.firstChild(declaration);
+        assertEquals(TokenType.ASSIGNMENT, tree.tokenType(assignment));
+        assertEquals("fib", tree.text(tree.firstChild(assignment)));
+
+        int function = tree.child(assignment, 1);
+        assertEquals(FlatTree.Kind.FUNCTION, tree.kind(function));
+        assertEquals("Int", FlatTreePrinter.typeName(tree.typeSignature(function)));
+        assertEquals(2, tree.childCount(function));
+        assertEquals(tree.nextSibling(declaration), tree.subtreeEnd(declaration));
+
+        int identifiers = 0;
+        for (int node = 0; node < tree.size(); node++) {
+            if (tree.kind(node) == FlatTree.Kind.IDENTIFIER && tree.text(node).equals("fib")) { identifiers++; }
+        }
+        assertEquals(4, identifiers);
+
+        /* let unwrap = (x: Int?) -> ... */
+        int unwrap = tree.child(tree.firstChild(tree.child(root, 2)), 1);
+        assertEquals("Int?", FlatTreePrinter.typeName(tree.typeSignature(tree.firstChild(tree.child(unwrap, 0)))));
+
+        /* let apply = (f: (Int) -> Int, x: Int) -> ... */
+        int apply = tree.child(tree.firstChild(tree.child(root, 3)), 1);
+        int annotation = tree.firstChild(tree.child(apply, 0));
+        assertEquals("(Int) -> Int", FlatTreePrinter.typeName(tree.typeSignature(annotation)));
+    }
+
+    @Test
+    public void testPrintsJson() throws UnexpectedTokenException {
+        String source = "let s = \"a\\n\";";
+        TokenBuffer tokens = tokens(source);
+        FlatTree tree = FlatTree.of(new Parser(tokens).build(), tokens);
+
+        assertEquals("{\"kind\":\"PROGRAM\",\"tokenStart\":0,\"tokenEnd\":6,\"children\":["
+            + "{\"kind\":\"VARIABLE_DECLARATION\",\"tokenStart\":0,\"tokenEnd\":5,\"declarationType\":\"let\",\"children\":["
+            + "{\"kind\":\"ASSIGNMENT\",\"tokenStart\":1,\"tokenEnd\":4,\"tokenType\":\"ASSIGNMENT\",\"text\":\"=\",\"children\":["
+            + "{\"kind\":\"IDENTIFIER\",\"tokenStart\":1,\"tokenEnd\":2,\"tokenType\":\"IDENTIFIER\",\"text\":\"s\"},"
+            + "{\"kind\":\"LITERAL\",\"tokenStart\":3,\"tokenEnd\":4,\"tokenType\":\"STRING_LITERAL\",\"text\":\"\\\"a\\\\n\\\"\"}]}]}]}",
+            FlatTreePrinter.toJson(tree));
+    }
+}
@@ -0,0 +1,99 @@
+package ast.types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import ast.exprs.FunctionExpression;
+import ast.stmts.VariableDeclaration;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.ParallelParser;
+import parser.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TypeTableTest {
+    private static final PrimitiveType INT = TypeTable.primitive(PrimitiveType.Value.Int);
+    private static final PrimitiveType BOOL = TypeTable.primitive(PrimitiveType.Value.Bool);
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    private static TypeSignature type(String annotation) throws Exception {
+        var program = new Parser(new Lexer(ArraySource.fromString("let x: " + annotation + " = y;")).tokenizeAll()).build();
+        return ((VariableDeclaration) program.children.get(0)).identifier.typeAnnotation.typeSignature;
+    }
+
+    @Test
+    public void testInternsPrimitiveTypes() throws Exception {
+        assertSame(INT, type("Int"));
+        assertSame(INT, type("(Int)"));
+        assertSame(TypeTable.primitive(PrimitiveType.Value.Int, true), type("Int?"));
+        assertSame(type("Int?"), type("(Int?)?"));
+        assertNotSame(INT, type("Int?"));
+        assertNotSame(INT, type("Float"));
+    }
+
+    @Test
+    public void testInternsFunctionTypesByStructure() throws Exception {
+        FunctionType function = TypeTable.function(List.of(INT, TypeTable.optional(BOOL)), INT);
+        assertSame(function, type("(Int, Bool?) -> Int"));
+        assertSame(function, TypeTable.function(List.of(INT, TypeTable.optional(BOOL)), INT));
+
+        assertNotSame(function, type("(Int, Bool) -> Int"));
+        assertNotSame(function, type("(Bool?, Int) -> Int"));
+        assertNotSame(function, type("(Int, Bool?) -> Int?"));
+        assertSame(TypeTable.optional(function), type("((Int, Bool?) -> Int)?"));
+
+        var higherOrder = (FunctionType) type("((Int) -> Bool) -> (Int) -> Bool");
+        assertSame(higherOrder.paramTypes.get(0), higherOrder.returnType);
+    }
+
+    @Test
+    public void testKeysMaps() throws Exception {
+        Map<TypeSignature, String> names = new HashMap<>();
+        names.put(type("(Int) -> Int"), "unary");
+        names.put(type("Int"), "int");
+
+        assertEquals("unary", names.get(TypeTable.function(List.of(INT), INT)));
+        assertEquals("int", names.get(INT));
+        assertEquals(2, names.size());
+    }
+
+    @Test
+    public void testDropsFunctionTypesNothingRefersTo() throws Exception {
+        /* types no other test interns, which only this list refers to */
+        TypeSignature unusual = TypeTable.primitive(PrimitiveType.Value.Type, true);
+        List<FunctionType> types = new ArrayList<>();
+        for (int i = 0; i < 64; i++) { types.add(TypeTable.function(Collections.nCopies(i, unusual), unusual)); }
+        int interned = TypeTable.functionCount();
+        types = null;
+
+        for (int i = 0; i < 50 && TypeTable.functionCount() > interned - 64; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(TypeTable.functionCount() <= interned - 64, "the table kept " + TypeTable.functionCount() + " of " + interned + " types");
+    }
+
+    @Test
+    public void testSharesTypesAcrossParallelChunks() throws Exception {
+        String source = "let f = (g: (Int) -> Int?) -> Int? { return g(1); };\n".repeat(64);
+        var program = new ParallelParser(source.toCharArray(), pool, 128).build();
+
+        TypeSignature first = ((FunctionExpression) ((VariableDeclaration) program.children.get(0)).assignmentExpression.right).annotatedReturnType;
+        for (var statement: program.children) {
+            var function = (FunctionExpression) ((VariableDeclaration) statement).assignmentExpression.right;
+            assertSame(first, function.annotatedReturnType);
+            assertSame(TypeTable.function(List.of(INT), first), function.params.get(0).typeAnnotation.typeSignature);
+        }
+        assertTrue(first.optional);
+    }
+}
@@ -0,0 +1,151 @@
+package codegen;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles the generated C++ with the local g++ and compares the output of the binary with the interpreter.
+ * Skipped when no g++ is installed.
+ */
+public class CppGeneratorTest {
+    private static boolean hasCompiler;
+
+    /* deleted after each test together with the sources and binaries in it */
+    @TempDir
+    Path temporaryDirectory;
+
+    @BeforeAll
+    public static void findCompiler() {
+        try {
+            Process process = new ProcessBuilder("g++", "--version").redirectErrorStream(true).start();
+            process.getInputStream().readAllBytes();
+            hasCompiler = process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException | InterruptedException e) {
+            hasCompiler = false;
+        }
+    }
+
+    private static String interpret(String program) throws Exception {
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        return new Interpreter(AST).run();
+    }
+
+    private record Execution(int exitCode, String output) {}
+
+    private Execution compileAndRun(String program) throws Exception {
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        String source = new CppGenerator().generate(AST);
+
+        Path directory = Files.createTempDirectory(temporaryDirectory, "ascetic-cpp");
+        Path sourceFile = directory.resolve("program.cpp");
+        Path binary = directory.resolve("program");
+        Files.writeString(sourceFile, source);
+
+        Process compilation = new ProcessBuilder("g++", "-std=c++17", "-O0", "-o", binary.toString(), sourceFile.toString())
+            .redirectErrorStream(true)
+            .start();
+        String diagnostics = new String(compilation.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, compilation.waitFor(), diagnostics + "\n" + source);
+
+        Process execution = new ProcessBuilder(binary.toString()).start();
+        String output = new String(execution.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        return new Execution(execution.waitFor(), output.strip());
+    }
+
+    @Test
+    public void testMatchesInterpreter() throws Exception {
+        assumeTrue(hasCompiler, "g++ is not installed");
+
+        List<String> programs = List.of(
+            """
+            let fib = (n: Int) -> Int {
+                guard n <= 1 { return n; };
+                return fib(n - 1) + fib(n - 2);
+            };
+            return fib(20);
+            """,
+            """
+            let isPrime = (n: Int) -> {
+                guard n <= 1 { return false; };
+                let isDivisible = (m: Int) -> Bool { return n % m == 0; };
+                return loop(2, n, isDivisible);
+            };
+            let loop = (start: Int, end: Int, f: (Int) -> Bool) -> {
+                guard start >= end { return true; };
+                guard f(start) { return false; };
+                return loop(start + 1, end, f);
+            };
+            return isPrime(733) && !isPrime(735);
+            """,
+            """
+            let getAdder = (a) -> {
+                return (b) -> { return a + b; };
+            };
+            let x = 10;
+            let y = {
+                let z = x + 1;
+                let x = z * 2;
+                return x;
+            };
+            let grade = (score: Int) -> {
+                return if score >= 90 { return "A"; }
+                       else if score >= 80 { return "B"; }
+                       else { return "C\\té"; };
+            };
+            return grade(getAdder(80)(y - 2)) + grade(85) + grade(x);
+            """,
+            """
+            let half = 1.0 / 2.0;
+            return -half * 3.0 + 0.1 - 100000000.0;
+            """,
+            """
+            let nothing = if false { return 1; };
+            let f = (a, b) -> { return a; };
+            guard 2147483647 + 1 < 0 { return f; };
+            return nothing;
+            """,
+            /* deeper than the native stack takes without tail calls */
+            """
+            let loop = (i, n) -> {
+                guard i >= n { return i; };
+                return loop(i + 1, n);
+            };
+            let isEven = (n: Int) -> Bool { return if n == 0 { return true; } else { return isOdd(n - 1); }; };
+            let isOdd = (n: Int) -> Bool { return if n == 0 { return false; } else { return isEven(n - 1); }; };
+            return loop(0, 1000000) + if isEven(1000001) { return 1; } else { return 2; };
+            """
+        );
+
+        for (String program: programs) {
+            assertEquals(interpret(program), compileAndRun(program).output(), program);
+        }
+    }
+
+    @Test
+    public void testRuntimeErrors() throws Exception {
+        assumeTrue(hasCompiler, "g++ is not installed");
+
+        assertNotEquals(0, compileAndRun("{ let x = 0; }; return x;").exitCode());
+        assertNotEquals(0, compileAndRun("let f = (a) -> { return a; }; return f(1, 2);").exitCode());
+        assertNotEquals(0, compileAndRun("return 1 + 1.0;").exitCode());
+    }
+}
@@ -0,0 +1,284 @@
+package interpreter;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import ast.ProgramNode;
+import errors.analyzer.UndeclaredIdentifierException;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.Parser;
+import table.scopes.ProgramScope;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InterpreterTest {
+    private static String run(String program) throws Exception {
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        return new Interpreter(AST).run();
+    }
+
+    private static String run(String program, int compileThreshold) throws Exception {
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        var interpreter = new Interpreter(AST);
+        interpreter.setCompileThreshold(compileThreshold);
+        return interpreter.run();
+    }
+
+    private static String stream(String program) throws Exception {
+        var parser = new Parser(new Lexer(ArraySource.fromString(program)));
+        return new Interpreter(new ProgramNode()).run(parser);
+    }
+
+    @Nested
+    class Functions {
+        @Test
+        public void testRecursion() throws Exception {
+            String program = """
+                let fib = (n: Int) -> Int {
+                    guard n <= 1 { return n; };
+                    return fib(n - 1) + fib(n - 2);
+                };
+                return fib(10);
+            """;
+
+            assertEquals("Int(55)", run(program));
+        }
+
+        @Test
+        public void testForwardReference() throws Exception {
+            String program = """
+                let isPrime = (n: Int) -> {
+                    guard n <= 1 { return false; };
+                    guard n == 2 { return true; };
+
+                    let isDivisible = (m: Int) -> Bool {
+                        return n % m == 0;
+                    };
+
+                    return loop(2, n, isDivisible);
+                };
+
+                let loop = (start: Int, end: Int, f: (Int) -> Bool) -> {
+                    guard start >= end { return true; };
+                    guard f(start) { return false; };
+                    return loop(start + 1, end, f);
+                };
+
+                return isPrime(733);
+            """;
+
+            assertEquals("Bool(true)", run(program));
+        }
+
+        @Test
+        public void testClosures() throws Exception {
+            String program = """
+                let getAdder = (a: Int) -> {
+                    return (b: Int) -> {
+                        return a + b;
+                    };
+                };
+
+                let add3 = getAdder(3);
+                let add4 = getAdder(4);
+                return add3(4) + add4(5);
+            """;
+
+            assertEquals("Int(16)", run(program));
+        }
+
+        @Test
+        public void testOperandTypesChange() throws Exception {
+            String program = """
+                let add = (a, b) -> {
+                    return a + b;
+                };
+                let three = add(1, 2);
+                let word = add("a", "b");
+                return add(1.5, 2.5);
+            """;
+
+            assertEquals("Float(4.0)", run(program));
+        }
+
+        @Test
+        public void testTailCalls() throws Exception {
+            String program = """
+                let count = (n: Int, total: Int) -> Int {
+                    guard n == 0 { return total; };
+                    return count(n - 1, total + 1);
+                };
+                return count(100000, 0);
+            """;
+
+            assertEquals("Int(100000)", run(program));
+        }
+
+        @Test
+        public void testMutualTailCalls() throws Exception {
+            String program = """
+                let isEven = (n: Int) -> Bool {
+                    guard n == 0 { return true; };
+                    return isOdd(n - 1);
+                };
+                let isOdd = (n: Int) -> Bool {
+                    return if n == 0 { return false; } else { return isEven(n - 1); };
+                };
+                return isEven(100001);
+            """;
+
+            assertEquals("Bool(false)", run(program));
+        }
+    }
+
+    @Nested
+    class Compilation {
+        @Test
+        public void testCompiledMatchesInterpreted() throws Exception {
+            String program = """
+                let fib = (n: Int) -> Int {
+                    guard n <= 1 { return n; };
+                    return fib(n - 1) + fib(n - 2);
+                };
+                let grade = (score) -> {
+                    let passed = score >= 50;
+                    return if score >= 90 { return "A"; } else if passed { return "B"; } else { return "C"; };
+                };
+                let getAdder = (a) -> {
+                    return (b) -> { return { let sum = a + b; return sum; }; };
+                };
+                let add = getAdder(5);
+                return grade(fib(12)) + grade(75) + grade(-fib(3)) + grade(add(90));
+            """;
+
+            String interpreted = run(program, -1);
+            assertEquals("String(ABCA)", interpreted);
+            assertEquals(interpreted, run(program, 0));
+            assertEquals(interpreted, run(program, 3));
+        }
+
+        @Test
+        public void testCompiledTailCalls() throws Exception {
+            String program = """
+                let count = (n: Int, total: Int) -> Int {
+                    guard n == 0 { return total; };
+                    return count(n - 1, total + 1);
+                };
+                return count(100000, 0);
+            """;
+
+            assertEquals("Int(100000)", run(program, 10));
+        }
+
+        @Test
+        public void testCompiledErrors() {
+            assertThrows(UndeclaredIdentifierException.class, () -> run("let f = () -> { return x; }; f();", 0));
+            assertThrows(RuntimeException.class, () -> run("let f = (a) -> { guard a { return 1; }; return 0; }; f(1);", 0));
+        }
+    }
+
+    @Nested
+    class Operations {
+        @Test
+        public void testEquality() throws Exception {
+            assertEquals("Bool(true)", run("return 100000 == 99999 + 1;"));
+            assertEquals("Bool(false)", run("return 100000 != 99999 + 1;"));
+            assertEquals("Bool(true)", run("return 0.5 == 0.25 + 0.25;"));
+        }
+    }
+
+    @Nested
+    class Scoping {
+        @Test
+        public void testShadowing() throws Exception {
+            String program = """
+                let x = 10;
+                let y = {
+                    let z = x + 1;
+                    let x = z * 2;
+                    return x;
+                };
+                return x + y;
+            """;
+
+            assertEquals("Int(32)", run(program));
+        }
+
+        @Test
+        public void testBlockScope() {
+            String program = """
+                {
+                    let x = 0;
+                };
+                return x;
+            """;
+
+            assertThrows(UndeclaredIdentifierException.class, () -> run(program));
+        }
+
+        @Test
+        public void testRecordedScopes() throws Exception {
+            String program = """
+                let add = (a: Int, b: Int) -> Int {
+                    return a + b;
+                };
+                return add(1, 2);
+            """;
+            var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+            var AST = new Parser(tokens).build();
+            ProgramScope programScope = new ProgramScope("InterpreterTest");
+
+            assertEquals("Int(3)", new Interpreter(AST, programScope).run());
+            assertEquals(1, programScope.members.size());
+            assertEquals(1, programScope.children.size());
+        }
+    }
+
+    @Nested
+    class Streaming {
+        @Test
+        public void testMatchesBuiltProgram() throws Exception {
+            String program = """
+                let isPrime = (n: Int) -> {
+                    guard n <= 1 { return false; };
+                    let isDivisible = (m: Int) -> Bool { return n % m == 0; };
+                    return loop(2, n, isDivisible);
+                };
+                // declared after the function that calls it
+                let loop = (start: Int, end: Int, f: (Int) -> Bool) -> {
+                    guard start >= end { return true; };
+                    guard f(start) { return false; };
+                    return loop(start + 1, end, f);
+                };
+                let x = 10;
+                let y = {
+                    let z = x + 1;
+                    let x = z * 2;
+                    return x;
+                };
+                guard isPrime(733) && !isPrime(735) { return x + y; };
+                return 0;
+            """;
+
+            assertEquals("Int(32)", run(program));
+            assertEquals(run(program), stream(program));
+        }
+
+        @Test
+        public void testRunsBeforeParsingTheRest() throws Exception {
+            assertEquals("Int(1)", stream("let one = 1; return one; let = ;"));
+            assertThrows(UnexpectedTokenException.class, () -> run("let one = 1; return one; let = ;"));
+        }
+
+        @Test
+        public void testUndeclared() {
+            assertThrows(UndeclaredIdentifierException.class, () -> stream("let y = x; let x = 1;"));
+            assertThrows(UndeclaredIdentifierException.class, () -> stream("let f = () -> { return x; }; f();"));
+        }
+    }
+}
@@ -7,9 +7,13 @@ import org.junit.jupiter.api.Test;
 import lexer.sources.*;
 import lexer.tokens.*;
 
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 public class LexerTest {
@@ -24,9 +28,25 @@ public class LexerTest {
 
                 TokenType expectedType = entry.getValue();
                 assertEquals(expectedType, token.type);
-                assertEquals(0, token.start.offset);
-                assertEquals(keyword.length(), token.end.offset);
-                assertArrayEquals(keyword.toCharArray(), token.text);
+                assertEquals(0, token.startOffset);
+                assertEquals(keyword.length(), token.endOffset);
+                assertEquals(keyword, token.text());
+            });
+        }
+
+        @Test
+        public void testNearMisses() {
+            Constants.keywords.keySet().forEach((keyword) -> {
+                char[] source = ("  " + keyword + " ").toCharArray();
+                assertEquals(Constants.keywords.get(keyword), Constants.keyword(source, 2, 2 + keyword.length()));
+                assertEquals(TokenType.IDENTIFIER, Constants.keyword(source, 2, 1 + keyword.length()));
+                assertEquals(TokenType.IDENTIFIER, Constants.keyword(source, 1, 2 + keyword.length()));
+
+                for (int i = 0; i < keyword.length(); i++) {
+                    char[] changed = keyword.toCharArray();
+                    changed[i] = '_';
+                    assertEquals(TokenType.IDENTIFIER, Constants.keyword(changed, 0, changed.length), String.valueOf(changed));
+                }
             });
         }
     }
@@ -41,9 +61,9 @@ public class LexerTest {
 
             TokenType expectedType = TokenType.COMMENT;
             assertEquals(expectedType, token.type);
-            assertEquals(0, token.start.offset);
-            assertEquals(comment.length(), token.end.offset);
-            assertArrayEquals(comment.toCharArray(), token.text);
+            assertEquals(0, token.startOffset);
+            assertEquals(comment.length(), token.endOffset);
+            assertEquals(comment, token.text());
         }
 
         @Test
@@ -54,9 +74,9 @@ public class LexerTest {
 
             TokenType expectedType = TokenType.COMMENT;
             assertEquals(expectedType, token.type);
-            assertEquals(0, token.start.offset);
-            assertEquals(comment.length() - 1, token.end.offset);
-            assertArrayEquals(comment.substring(0, comment.length() - 1).toCharArray(), token.text);
+            assertEquals(0, token.startOffset);
+            assertEquals(comment.length() - 1, token.endOffset);
+            assertEquals(comment.substring(0, comment.length() - 1), token.text());
         }
 
         @Test
@@ -73,9 +93,9 @@ public class LexerTest {
 
             TokenType expectedType = TokenType.COMMENT;
             assertEquals(expectedType, token.type);
-            assertEquals(0, token.start.offset);
-            assertEquals(comment.length(), token.end.offset);
-            assertArrayEquals(comment.toCharArray(), token.text);
+            assertEquals(0, token.startOffset);
+            assertEquals(comment.length(), token.endOffset);
+            assertEquals(comment, token.text());
         }
         
         @Test
@@ -104,9 +124,9 @@ public class LexerTest {
 
             TokenType expectedType = TokenType.STRING_LITERAL;
             assertEquals(expectedType, token.type);
-            assertEquals(0, token.start.offset);
-            assertEquals(string.length(), token.end.offset);
-            assertArrayEquals(string.toCharArray(), token.text);
+            assertEquals(0, token.startOffset);
+            assertEquals(string.length(), token.endOffset);
+            assertEquals(string, token.text());
         }
 
         @Test
@@ -157,9 +177,9 @@ public class LexerTest {
                 Token token = new Lexer(source).next();
 
                 assertEquals(expectedType, token.type);
-                assertEquals(0, token.start.offset);
-                assertEquals(identifier.length(), token.end.offset);
-                assertArrayEquals(identifier.toCharArray(), token.text); 
+                assertEquals(0, token.startOffset);
+                assertEquals(identifier.length(), token.endOffset);
+                assertEquals(identifier, token.text()); 
             });
         }
 
@@ -239,11 +259,11 @@ public class LexerTest {
         public void testInts() {
             String ints = "123 456 789";
             Source source = ArraySource.fromString(ints);
-            List<Token> tokens = new Lexer(source).tokenizeAll();
+            TokenBuffer tokens = new Lexer(source).tokenizeAll();
 
             TokenType expectedType = TokenType.INTEGER_LITERAL;
             assertEquals(4, tokens.size());
-            tokens.forEach(token -> {
+            tokens.toList().forEach(token -> {
                 if (token.type != TokenType.END) {
                     assertEquals(expectedType, token.type);
                 }
@@ -254,15 +274,148 @@ public class LexerTest {
         public void testFloats() {
             String ints = "0.123 .456 7.89";
             Source source = ArraySource.fromString(ints);
-            List<Token> tokens = new Lexer(source).tokenizeAll();
+            TokenBuffer tokens = new Lexer(source).tokenizeAll();
 
             TokenType expectedType = TokenType.FLOAT_LITERAL;
             assertEquals(4, tokens.size());
-            tokens.forEach(token -> {
+            tokens.toList().forEach(token -> {
                 if (token.type != TokenType.END) {
                     assertEquals(expectedType, token.type);
                 }
             });
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class Buffer {
+        @Test
+        public void testMatchesNext() {
+            String program = "let x = 1;\r\n  // comment\n\nlet f = (a) -> { return a + .5; };\n";
+            TokenBuffer tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+            Lexer lexer = new Lexer(ArraySource.fromString(program));
+
+            for (int i = 0; i < tokens.size(); i++) {
+                Token expected = lexer.next();
+                assertEquals(expected.type, tokens.type(i));
+                assertEquals(expected.startOffset, tokens.start(i));
+                assertEquals(expected.endOffset, tokens.end(i));
+                assertEquals(expected.text(), tokens.token(i).text());
+            }
+            assertEquals(TokenType.END, tokens.type(tokens.size() - 1));
+        }
+
+        @Test
+        public void testLocations() {
+            char[] program = "a\nbc\r\n\n  d\n".toCharArray();
+            TokenBuffer tokens = new Lexer(ArraySource.fromCharArray(program)).tokenizeAll();
+
+            for (int offset = 0; offset <= program.length + 1; offset++) {
+                Token.Location expected = Token.Location.of(program, offset);
+                Token.Location actual = tokens.location(offset);
+                assertEquals(List.of(expected.line, expected.column, expected.offset), List.of(actual.line, actual.column, actual.offset));
+            }
+        }
+    }
+
+    @Nested
+    class MappedSources {
+        private void assertSameTokens(String program) throws Exception {
+            assertSameTokens(program, program);
+        }
+
+        /** @param program the contents of the file with its line breaks normalized */
+        private void assertSameTokens(String contents, String program) throws Exception {
+            Path file = Files.createTempFile("ascetic", ".asc");
+            try {
+                Files.writeString(file, contents, StandardCharsets.UTF_8);
+                MappedSource source = MappedSource.fromFile(file.toFile());
+                TokenBuffer expected = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+                TokenBuffer actual = new Lexer(source).tokenizeAll();
+
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.type(i), actual.type(i));
+                    assertEquals(expected.start(i), actual.start(i));
+                    assertEquals(expected.end(i), actual.end(i));
+                }
+                assertEquals(program, source.getText());
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        @Test
+        public void testAscii() throws Exception {
+            assertSameTokens("");
+            assertSameTokens("let x = 1;\nreturn x + 2.5;\n");
+            assertSameTokens("let s = \"abc\"; // ".repeat(20000));
+        }
+
+        @Test
+        public void testUtf8() throws Exception {
+            assertSameTokens("let \u00e9t\u00e9 = \"\u65e5\u672c\"; /* \ud83d\ude00 */");
+            /* long enough for multi-byte characters to be split between decoded chunks */
+            assertSameTokens("let s = \"\u00e9\u65e5\ud83d\ude00\"; ".repeat(20000));
+        }
+
+        @Test
+        public void testLineBreaks() throws Exception {
+            assertSameTokens("let x = 1;\r\nreturn x + 2.5;\r\n", "let x = 1;\nreturn x + 2.5;\n");
+            assertSameTokens("a\rb\r\n\r\nc\n\rd", "a\nb\n\nc\n\nd");
+            assertSameTokens("let \u00e9 = 1; // \u65e5\r\n".repeat(20000), "let \u00e9 = 1; // \u65e5\n".repeat(20000));
+            /* a \r\n split between decoded chunks */
+            assertSameTokens("x".repeat((1 << 16) - 1) + "\r\ny", "x".repeat((1 << 16) - 1) + "\ny");
+
+            Path file = Files.createTempFile("ascetic", ".asc");
+            try {
+                Files.writeString(file, "let a = 1;\r\n// note\r\nreturn c;\r\n", StandardCharsets.UTF_8);
+                TokenBuffer tokens = new Lexer(MappedSource.fromFile(file.toFile())).tokenizeAll();
+
+                Token comment = tokens.token(5);
+                assertEquals(TokenType.COMMENT, comment.type);
+                assertEquals("// note", comment.text());
+                Token identifier = tokens.token(7);
+                assertEquals("c", identifier.text());
+                assertEquals(List.of(2L, 7L), List.of(identifier.start().line, identifier.start().column));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Nested
+    class Interning {
+        @Test
+        public void testInterning() {
+            TokenBuffer tokens = new Lexer(ArraySource.fromString("let ab = ba + ab; let ba = ab;")).tokenizeAll();
+            List<Token> list = tokens.toList();
+
+            Token first = list.get(1), second = list.get(5), third = list.get(10);
+            assertEquals("ab", first.text());
+            assertEquals(first.symbol, second.symbol);
+            assertEquals(first.symbol, third.symbol);
+            assertSame(first.text(), third.text());
+            assertNotEquals(first.symbol, list.get(3).symbol);
+
+            assertEquals(-1, list.get(0).symbol);
+            assertEquals(2, tokens.symbolTable().size());
+        }
+
+        @Test
+        public void testManySymbols() {
+            SymbolTable symbols = new SymbolTable();
+            for (int i = 0; i < 10000; i++) { assertEquals(i, symbols.intern("name" + i)); }
+            for (int i = 0; i < 10000; i++) { assertEquals(i, symbols.intern("name" + i)); }
+            assertEquals("name1234", symbols.name(1234));
+        }
+
+        @Test
+        public void testSharedTable() {
+            SymbolTable symbols = new SymbolTable();
+            Token first = new Lexer(ArraySource.fromString("x"), symbols).next();
+            Token second = new Lexer(ArraySource.fromString("y x"), symbols).tokenizeAll().token(1);
+            assertEquals(first.symbol, second.symbol);
+            assertSame(first.text(), second.text());
+        }
+    }
+}
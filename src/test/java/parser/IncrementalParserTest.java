@@ -0,0 +1,141 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import ast.ProgramNode;
+import errors.parser.UnexpectedTokenException;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+public class IncrementalParserTest {
+    private static final String PROGRAM = """
+        let fib = (n: Int) -> Int {
+            guard n <= 1 { return n; };
+            return fib(n - 1) + fib(n - 2);
+        };
+        // comment
+        let x = 10;
+        let y = { let z = x + 1; return z * 2; };
+        /* block
+           comment */
+        let s = "a string; with \\"quotes\\"";
+        return fib(x) + y;
+        """;
+
+    /* tokens are written without their symbol IDs, which depend on the order names were first seen in and differ between the two parsers */
+    private static final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    private static String parse(String text) {
+        try {
+            return gson.toJson(new Parser(new Lexer(ArraySource.fromString(text)).tokenizeAll()).build());
+        } catch (UnexpectedTokenException exception) {
+            return "error";
+        }
+    }
+
+    private static String edit(IncrementalParser parser, int offset, int removedLength, String inserted) {
+        try {
+            return gson.toJson(parser.edit(offset, removedLength, inserted));
+        } catch (UnexpectedTokenException exception) {
+            return "error";
+        }
+    }
+
+    @Test
+    public void testReusesUntouchedStatements() throws Exception {
+        IncrementalParser parser = new IncrementalParser(PROGRAM);
+        ProgramNode before = parser.getProgram();
+
+        int offset = PROGRAM.indexOf("10");
+        ProgramNode after = parser.edit(offset, 2, "12");
+
+        assertEquals(1, parser.getReparsedStatements());
+        assertEquals(before.children.size(), after.children.size());
+        for (int i = 0; i < after.children.size(); i++) {
+            if (i != 2) { assertSame(before.children.get(i), after.children.get(i)); }
+        }
+        assertEquals(parse(parser.getText()), gson.toJson(after));
+        assertEquals("Int(170)", new Interpreter(after).run());
+    }
+
+    @Test
+    public void testEditsSpanningStatements() throws Exception {
+        IncrementalParser parser = new IncrementalParser(PROGRAM);
+
+        /* opening a block comment swallows the statements up to the next closing one */
+        int offset = PROGRAM.indexOf("let x");
+        assertEquals(parse(PROGRAM.substring(0, offset) + "/*" + PROGRAM.substring(offset)), edit(parser, offset, 0, "/*"));
+        assertEquals(parse(PROGRAM), edit(parser, offset, 2, ""));
+
+        /* merging two statements into one */
+        offset = PROGRAM.indexOf(";\nlet y =");
+        String merged = PROGRAM.substring(0, offset) + " +" + PROGRAM.substring(offset + 9);
+        assertEquals(parse(merged), edit(parser, offset, 9, " +"));
+        assertEquals(parse(merged), gson.toJson(parser.getProgram()));
+        assertEquals(6, parser.getProgram().children.size());
+    }
+
+    @Test
+    public void testRandomEdits() throws Exception {
+        String[] garbage = { "", "1", ".5", "x", "+ 2", ";", "(", ")", "{", "}", "\"", "/*", "*/", "//", "->", "=" };
+        Random random = new Random(42);
+        String text = PROGRAM;
+        IncrementalParser parser = new IncrementalParser(text);
+        int valid = 0;
+
+        for (int step = 0; step < 2000; step++) {
+            int offset, removedLength = 0;
+            String inserted;
+
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                /* a new statement after the end of another one, at the top level or in a block */
+                offset = text.indexOf(";\n", random.nextInt(text.length())) + 2;
+                if (offset == 1) { offset = 0; }
+                inserted = "let q" + step + " = " + step + ";\n";
+            } else if (kind == 1 && text.contains("let q")) {
+                /* removes one of the statements added before */
+                offset = text.indexOf("let q", random.nextInt(text.indexOf("let q") + 1));
+                removedLength = text.indexOf(";\n", offset) + 2 - offset;
+                inserted = "";
+            } else if (kind == 2) {
+                /* whitespace next to whitespace does not split a token */
+                offset = text.indexOf(' ', random.nextInt(text.length()));
+                if (offset < 0) { offset = 0; }
+                inserted = random.nextBoolean() ? " " : "\n";
+            } else {
+                offset = random.nextInt(text.length() + 1);
+                removedLength = Math.min(random.nextInt(4), text.length() - offset);
+                inserted = garbage[random.nextInt(garbage.length)];
+            }
+
+            String previous = text;
+            String removed = text.substring(offset, offset + removedLength);
+            text = text.substring(0, offset) + inserted + text.substring(offset + removedLength);
+
+            String actual = edit(parser, offset, removedLength, inserted);
+            assertEquals(text, parser.getText());
+            assertEquals(parse(text), actual, text);
+
+            /* an edit that broke the program is undone, to keep most of the edits incremental */
+            if (actual.equals("error")) {
+                text = previous;
+                assertEquals(parse(text), edit(parser, offset, inserted.length(), removed));
+            } else {
+                valid++;
+            }
+        }
+
+        assertTrue(valid > 1000, valid + " edits parsed");
+    }
+}
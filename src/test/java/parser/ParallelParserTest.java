@@ -0,0 +1,116 @@
+package parser;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import ast.ProgramNode;
+import errors.parser.UnexpectedTokenException;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelParserTest {
+    private static final String PROGRAM = """
+        let fib = (n: Int) -> Int {
+            guard n <= 1 { return n; };
+            return fib(n - 1) + fib(n - 2);
+        };
+        // comment; with a semicolon
+        let x = 10;
+        let y = { let z = x + 1; return z * 2; };
+        /* block;
+           comment; */
+        let s = "a string; with \\"quotes\\";";
+        let t = fib(x) + y;
+        return t;
+        """;
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    /* symbol IDs depend on the order names were first seen in, which differs between the two parsers */
+    private static final Gson gson = new GsonBuilder().serializeNulls().setExclusionStrategies(new ExclusionStrategy() {
+        public boolean shouldSkipField(FieldAttributes field) { return field.getName().equals("symbol"); }
+        public boolean shouldSkipClass(Class<?> type) { return false; }
+    }).create();
+
+    @AfterAll
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    private static int[] offsets(String text, String... splits) {
+        int[] offsets = new int[splits.length + 2];
+        for (int i = 0; i < splits.length; i++) { offsets[i + 1] = text.indexOf(splits[i]); }
+        offsets[splits.length + 1] = text.length();
+        return offsets;
+    }
+
+    @Test
+    public void testSplitsAtTopLevelSemicolons() {
+        int[] boundaries = ParallelParser.split(PROGRAM.toCharArray(), 1);
+        /* the whitespace after the last semicolon is a chunk of its own */
+        int[] expected = offsets(PROGRAM, "\n// comment", "\nlet y", "\n/* block", "\nlet t", "\nreturn t", "\n");
+        expected[expected.length - 2] = PROGRAM.length() - 1;
+        assertArrayEquals(expected, boundaries);
+
+        assertArrayEquals(new int[] { 0, PROGRAM.length() }, ParallelParser.split(PROGRAM.toCharArray(), PROGRAM.length()));
+        assertArrayEquals(new int[] { 0, 0 }, ParallelParser.split(new char[0], 1));
+    }
+
+    @Test
+    public void testMatchesSequentialParse() throws Exception {
+        String text = PROGRAM.repeat(50);
+        TokenBuffer expectedTokens = new Lexer(ArraySource.fromString(text)).tokenizeAll();
+        ProgramNode expected = new Parser(expectedTokens).build();
+
+        for (int chunkSize: new int[] { 1, 100, 1000, text.length() }) {
+            ParallelParser parser = new ParallelParser(text.toCharArray(), pool, chunkSize);
+            ProgramNode actual = parser.build();
+
+            assertEquals(gson.toJson(expected), gson.toJson(actual));
+            assertEquals(expectedTokens.toString(), parser.getTokens().toString());
+            assertEquals(expectedTokens.size(), parser.getTokens().size());
+        }
+    }
+
+    @Test
+    public void testInternsAcrossChunks() throws Exception {
+        ParallelParser parser = new ParallelParser(PROGRAM.toCharArray(), pool, 1);
+        ProgramNode program = parser.build();
+        TokenBuffer tokens = parser.getTokens();
+
+        /* fib is lexed in the first and in the last but one chunk */
+        int first = -1, last = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.symbol(i) >= 0 && tokens.token(i).textEquals("fib")) {
+                if (first < 0) { first = i; }
+                last = i;
+            }
+        }
+        assertEquals(tokens.symbol(first), tokens.symbol(last));
+        assertSame(tokens.token(first).text(), tokens.token(last).text());
+
+        assertEquals("Int(77)", new Interpreter(program).run());
+    }
+
+    @Test
+    public void testReportsFirstError() {
+        String text = PROGRAM + "let a = ;\n" + PROGRAM + "let b = );\n";
+        UnexpectedTokenException expected = assertThrows(UnexpectedTokenException.class, () -> new Parser(new Lexer(ArraySource.fromString(text)).tokenizeAll()).build());
+        UnexpectedTokenException actual = assertThrows(UnexpectedTokenException.class, () -> new ParallelParser(text.toCharArray(), pool, 1).build());
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+}
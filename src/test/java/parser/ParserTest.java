@@ -0,0 +1,81 @@
+package parser;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import ast.ExpressionNode;
+import ast.exprs.FunctionExpression;
+import ast.exprs.GroupedExpression;
+import ast.exprs.OperationExpression;
+import ast.stmts.VariableDeclaration;
+import ast.types.FunctionType;
+import ast.types.PrimitiveType;
+import ast.types.TypeSignature;
+import errors.parser.UnexpectedTokenException;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import lexer.tokens.TokenType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParserTest {
+    private static VariableDeclaration declaration(String source) throws UnexpectedTokenException {
+        var program = new Parser(new Lexer(ArraySource.fromString(source)).tokenizeAll()).build();
+        return (VariableDeclaration) program.children.get(0);
+    }
+
+    private static ExpressionNode value(String source) throws UnexpectedTokenException {
+        return declaration(source).assignmentExpression.right;
+    }
+
+    private static TypeSignature type(String source) throws UnexpectedTokenException {
+        return declaration(source).identifier.typeAnnotation.typeSignature;
+    }
+
+    @Nested
+    class AmbiguousParentheses {
+        @Test
+        public void testGroupedExpressions() throws Exception {
+            assertInstanceOf(GroupedExpression.class, value("let x = (a);"));
+            assertInstanceOf(GroupedExpression.class, value("let x = (a + b);"));
+
+            var operation = assertInstanceOf(OperationExpression.class, value("let x = (a) * ((b, c) -> { return b; })(1, 2);"));
+            assertInstanceOf(GroupedExpression.class, operation.left);
+        }
+
+        @Test
+        public void testFunctions() throws Exception {
+            assertInstanceOf(FunctionExpression.class, value("let f = () -> { return 1; };"));
+
+            var function = assertInstanceOf(FunctionExpression.class, value("let f = (a, g: (Int, Bool?) -> Int) -> Int { return g(a); };"));
+            assertEquals(2, function.params.size());
+            assertInstanceOf(FunctionType.class, function.params.get(1).typeAnnotation.typeSignature);
+        }
+
+        @Test
+        public void testTypes() throws Exception {
+            var function = assertInstanceOf(FunctionType.class, type("let f: ((Int) -> Bool, Int) -> Int = g;"));
+            assertInstanceOf(FunctionType.class, function.paramTypes.get(0));
+
+            var grouped = assertInstanceOf(PrimitiveType.class, type("let x: (Int)? = y;"));
+            assertTrue(grouped.optional);
+        }
+
+        @Test
+        public void testReportsErrorsInParameters() {
+            /* the arrow decides that the parentheses are parameters, so the error is in them and not at the arrow */
+            var exception = assertThrows(UnexpectedTokenException.class, () -> value("let f = (a b) -> { return a; };"));
+            assertEquals(TokenType.IDENTIFIER, exception.getToken().type);
+
+            /* an operator cannot be part of parameters, so these parentheses are grouped */
+            exception = assertThrows(UnexpectedTokenException.class, () -> value("let f = (a + 1) -> { return a; };"));
+            assertEquals(TokenType.ARROW, exception.getToken().type);
+
+            exception = assertThrows(UnexpectedTokenException.class, () -> value("let x = (a + 1;"));
+            assertEquals(TokenType.SEMICOLON, exception.getToken().type);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package vm;
+
+import org.junit.jupiter.api.Test;
+
+import compiler.Chunk;
+import compiler.Compiler;
+import errors.analyzer.DuplicateIdentifierException;
+import errors.analyzer.UndeclaredIdentifierException;
+import interpreter.Interpreter;
+import lexer.Lexer;
+import lexer.sources.ArraySource;
+import parser.Parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+public class VirtualMachineTest {
+    private static String run(String program) throws Exception {
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        return new VirtualMachine().run(new Compiler().compile(AST));
+    }
+
+    private static String interpret(String program) throws Exception {
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        return new Interpreter(AST).run();
+    }
+
+    @Test
+    public void testMatchesInterpreter() throws Exception {
+        List<String> programs = List.of(
+            """
+            let fib = (n: Int) -> Int {
+                guard n <= 1 { return n; };
+                return fib(n - 1) + fib(n - 2);
+            };
+            return fib(15);
+            """,
+            """
+            let getAdder = (a: Int) -> {
+                return (b: Int) -> { return a + b; };
+            };
+            let add3 = getAdder(3);
+            return add3(4);
+            """,
+            """
+            let x = 10;
+            let y = {
+                let z = x + 1;
+                let x = z * 2;
+                return x;
+            };
+            return x + y;
+            """,
+            """
+            let grade = (score: Int) -> {
+                return if score >= 90 { return "A"; }
+                       else if score >= 80 { return "B"; }
+                       else { return "C"; };
+            };
+            return grade(95) + grade(85) + grade(10);
+            """,
+            """
+            let nothing = if false { return 1; };
+            let one = {
+                guard true { return 1; };
+                return 0;
+            };
+            guard !(one == 1) { return nothing; };
+            return -one + 2 * 3 - 4 / 2 % 3;
+            """,
+            """
+            let unused = 1.5 * 2.0;
+            "never returned";
+            """
+        );
+
+        for (String program: programs) {
+            assertEquals(interpret(program), run(program), program);
+        }
+    }
+
+    @Test
+    public void testTailCalls() throws Exception {
+        String program = """
+            let isEven = (n: Int) -> Bool {
+                guard n == 0 { return true; };
+                return isOdd(n - 1);
+            };
+            let isOdd = (n: Int) -> Bool {
+                return if n == 0 { return false; } else { return isEven(n - 1); };
+            };
+            return isEven(100000);
+            """;
+
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        Compiler compiler = new Compiler();
+        assertEquals("Bool(true)", new VirtualMachine(1 << 16).run(compiler.compile(AST)));
+
+        compiler.setEliminateTailCalls(false);
+        assertThrows(RuntimeException.class, () -> new VirtualMachine(1 << 16).run(compiler.compile(AST)));
+    }
+
+    @Test
+    public void testDeepRecursion() throws Exception {
+        String program = """
+            let sum = (n: Int) -> Int {
+                guard n == 0 { return 0; };
+                return n + sum(n - 1);
+            };
+            return sum(100000);
+            """;
+        var tokens = new Lexer(ArraySource.fromString(program)).tokenizeAll();
+        var AST = new Parser(tokens).build();
+        Chunk chunk = new Compiler().compile(AST);
+
+        assertEquals("Int(705082704)", new VirtualMachine().run(chunk));
+
+        RuntimeException overflow = assertThrows(RuntimeException.class, () -> new VirtualMachine(1 << 16).run(chunk));
+        assertTrue(overflow.getMessage().startsWith("Stack overflow"), overflow.getMessage());
+    }
+
+    @Test
+    public void testBudgetCountsVariableFrames() throws Exception {
+        StringBuilder locals = new StringBuilder();
+        for (int i = 0; i < 64; i++) { locals.append("let a").append(i).append(" = n;\n"); }
+        String program = """
+            let lean = (n: Int) -> Int {
+                guard n == 0 { return 0; };
+                return 1 + lean(n - 1);
+            };
+            let heavy = (n: Int) -> Int {
+                guard n == 0 { return 0; };
+            """ + locals + """
+                return 1 + heavy(n - 1);
+            };
+            """;
+
+        /* 10000 calls fit in 4 MB, but not with 64 more slots in each of their frames */
+        Chunk lean = new Compiler().compile(new Parser(new Lexer(ArraySource.fromString(program + "return lean(10000);")).tokenizeAll()).build());
+        assertEquals("Int(10000)", new VirtualMachine(4L << 20).run(lean));
+
+        Chunk heavy = new Compiler().compile(new Parser(new Lexer(ArraySource.fromString(program + "return heavy(10000);")).tokenizeAll()).build());
+        assertEquals("Int(10000)", new VirtualMachine().run(heavy));
+        RuntimeException overflow = assertThrows(RuntimeException.class, () -> new VirtualMachine(4L << 20).run(heavy));
+        assertTrue(overflow.getMessage().startsWith("Stack overflow"), overflow.getMessage());
+    }
+
+    @Test
+    public void testIdentifierErrors() {
+        assertThrows(UndeclaredIdentifierException.class, () -> run("{ let x = 0; }; return x;"));
+        assertThrows(DuplicateIdentifierException.class, () -> run("let f = (a, a) -> { return a; }; f(1, 2);"));
+    }
+}